@@ -0,0 +1,85 @@
+package com.mindex.challenge.benchmark;
+
+import com.mindex.challenge.ChallengeApplication;
+import com.mindex.challenge.cache.EmployeeCache;
+import com.mindex.challenge.dao.EmployeeRepository;
+import com.mindex.challenge.data.Employee;
+import com.mindex.challenge.index.CompensationStatsIndex;
+import com.mindex.challenge.index.EmployeeSearchIndex;
+import com.mindex.challenge.index.OrgChartIndex;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The application context the benchmarks run against: the services on top of either the embedded MongoServer or the
+ * in-memory repositories, without the web server and the seed data, loaded with a synthetic org chart instead.
+ */
+public class BenchmarkContext implements AutoCloseable {
+
+    public static final String MONGO_STORAGE = "mongo";
+
+    public static final String IN_MEMORY_STORAGE = "inmemory";
+
+    private static final int INSERT_BATCH_SIZE = 10_000;
+
+    private final ConfigurableApplicationContext context;
+
+    private final SyntheticOrg org;
+
+    /**
+     * @param org The org chart to load.
+     * @param storage Either {@link #MONGO_STORAGE} or {@link #IN_MEMORY_STORAGE}.
+     * @param properties Extra application properties, as name=value.
+     */
+    public BenchmarkContext(SyntheticOrg org, String storage, String... properties) {
+        SpringApplication application = new SpringApplication(ChallengeApplication.class);
+        application.setWebApplicationType(WebApplicationType.NONE);
+        if (IN_MEMORY_STORAGE.equals(storage)) {
+            application.setAdditionalProfiles(IN_MEMORY_STORAGE);
+        } else if (!MONGO_STORAGE.equals(storage)) {
+            throw new IllegalArgumentException("Unknown storage: " + storage);
+        }
+
+        Map<String, Object> overrides = new HashMap<>();
+        overrides.put("bootstrap.location", "");
+        overrides.put("logging.level.com.mindex", "WARN");
+        for (String property : properties) {
+            int separator = property.indexOf('=');
+            overrides.put(property.substring(0, separator), property.substring(separator + 1));
+        }
+        application.addInitializers(context -> context.getEnvironment().getPropertySources()
+                .addFirst(new MapPropertySource("benchmark", overrides)));
+        this.context = application.run();
+        this.org = org;
+
+        EmployeeRepository employeeRepository = getBean(EmployeeRepository.class);
+        List<Employee> employees = org.getEmployees();
+        for (int from = 0; from < employees.size(); from += INSERT_BATCH_SIZE) {
+            employeeRepository.insert(employees.subList(from, Math.min(employees.size(), from + INSERT_BATCH_SIZE)));
+        }
+        // The indexes and the cache were loaded when the context was refreshed, before the org chart was inserted.
+        getBean(OrgChartIndex.class).rebuild();
+        getBean(EmployeeSearchIndex.class).rebuild();
+        getBean(CompensationStatsIndex.class).rebuild();
+        getBean(EmployeeCache.class).warm();
+    }
+
+    public <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    public SyntheticOrg getOrg() {
+        return org;
+    }
+
+    @Override
+    public void close() {
+        context.close();
+    }
+}
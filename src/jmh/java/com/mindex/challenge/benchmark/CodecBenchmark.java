@@ -0,0 +1,110 @@
+package com.mindex.challenge.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mindex.challenge.data.ReportingStructure;
+import com.mindex.challenge.service.ReportingStructureService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Encoding and decoding the reporting structure of the root of a synthetic org chart in every media type the
+ * controllers negotiate, with the object mappers of the application's message converters. The payload sizes, plain
+ * and gzipped as the server compresses them, are printed during the setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+public class CodecBenchmark {
+
+    @Param({"10000", "100000"})
+    public int size;
+
+    @Param({"json", "smile", "cbor"})
+    public String format;
+
+    private BenchmarkContext context;
+
+    private ObjectMapper objectMapper;
+
+    private ReportingStructure reportingStructure;
+
+    private byte[] encoded;
+
+    @Setup
+    public void setup() throws IOException {
+        context = new BenchmarkContext(SyntheticOrg.generate(size, 64, 8, 0.01, 0.001, 42), BenchmarkContext.IN_MEMORY_STORAGE);
+        objectMapper = messageConverter().getObjectMapper();
+        reportingStructure = context.getBean(ReportingStructureService.class)
+                .retrieveReportingStructure(context.getOrg().getRoot().getEmployeeId());
+        encoded = objectMapper.writeValueAsBytes(reportingStructure);
+
+        System.out.printf("%n%s payload of %d reports: %d bytes, %d bytes gzipped%n",
+                format, reportingStructure.getNumberOfReports(), encoded.length, gzip(encoded).length);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        return objectMapper.writeValueAsBytes(reportingStructure);
+    }
+
+    /**
+     * Encoding followed by the compression the server applies to large responses.
+     */
+    @Benchmark
+    public byte[] encodeGzipped() throws IOException {
+        return gzip(objectMapper.writeValueAsBytes(reportingStructure));
+    }
+
+    @Benchmark
+    public ReportingStructure decode() throws IOException {
+        return objectMapper.readValue(encoded, ReportingStructure.class);
+    }
+
+    private AbstractJackson2HttpMessageConverter messageConverter() {
+        switch (format) {
+            case "json":
+                return context.getBean(MappingJackson2HttpMessageConverter.class);
+            case "smile":
+                return context.getBean(MappingJackson2SmileHttpMessageConverter.class);
+            case "cbor":
+                return context.getBean(MappingJackson2CborHttpMessageConverter.class);
+            default:
+                throw new IllegalArgumentException("Unknown format: " + format);
+        }
+    }
+
+    private static byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(bytes.length / 4);
+        try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(compressed)) {
+            gzipOutputStream.write(bytes);
+        }
+        return compressed.toByteArray();
+    }
+}
@@ -0,0 +1,103 @@
+package com.mindex.challenge.benchmark;
+
+import com.mindex.challenge.data.Compensation;
+import com.mindex.challenge.data.CompensationStatistics;
+import com.mindex.challenge.data.PayrollRollup;
+import com.mindex.challenge.service.CompensationService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compensation reads and creates against a synthetic org chart where every employee has a compensation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+public class CompensationBenchmark {
+
+    @Param({"10000", "100000"})
+    public int size;
+
+    @Param({BenchmarkContext.MONGO_STORAGE, BenchmarkContext.IN_MEMORY_STORAGE})
+    public String storage;
+
+    private BenchmarkContext context;
+
+    private CompensationService compensationService;
+
+    private Random random;
+
+    @Setup
+    public void setup() {
+        SyntheticOrg org = SyntheticOrg.generate(size, 64, 8, 0, 0, 42);
+        context = new BenchmarkContext(org, storage);
+        compensationService = context.getBean(CompensationService.class);
+        random = new Random(42);
+
+        for (int i = 0; i < org.getEmployees().size(); i++) {
+            compensationService.createCompensation(org.getEmployees().get(i).getEmployeeId(), compensation("2020-01-01"));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Compensation readCompensation() {
+        return compensationService.retrieveCompensation(context.getOrg().getEmployee(random).getEmployeeId());
+    }
+
+    @Benchmark
+    public Compensation createCompensation() {
+        String effectiveDate = LocalDate.of(2021, 1, 1).plusDays(random.nextInt(3650)).toString();
+        return compensationService.createCompensation(context.getOrg().getEmployee(random).getEmployeeId(), compensation(effectiveDate));
+    }
+
+    /**
+     * Salary percentiles of every department and position, answered from the sketches.
+     */
+    @Benchmark
+    public CompensationStatistics compensationStatistics() {
+        return compensationService.retrieveCompensationStatistics(null);
+    }
+
+    @Benchmark
+    public CompensationStatistics compensationStatisticsOfDepartment() {
+        return compensationService.retrieveCompensationStatistics("Department" + random.nextInt(20));
+    }
+
+    /**
+     * The payroll roll-up of the whole org by department, which loads every compensation, for comparison with the
+     * statistics.
+     */
+    @Benchmark
+    public PayrollRollup payrollRollupByDepartment() {
+        return compensationService.retrievePayrollRollup(context.getOrg().getRoot().getEmployeeId(), null, true);
+    }
+
+    private Compensation compensation(String effectiveDate) {
+        Compensation compensation = new Compensation();
+        compensation.setSalary(String.valueOf(50_000 + random.nextInt(150_000)));
+        compensation.setEffectiveDate(effectiveDate);
+        return compensation;
+    }
+}
@@ -0,0 +1,102 @@
+package com.mindex.challenge.benchmark;
+
+import com.mindex.challenge.data.Employee;
+import com.mindex.challenge.data.EmployeePage;
+import com.mindex.challenge.service.EmployeeService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Employee create, read and update against a synthetic org chart.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+public class EmployeeBenchmark {
+
+    @Param({"10000", "100000"})
+    public int size;
+
+    @Param({BenchmarkContext.MONGO_STORAGE, BenchmarkContext.IN_MEMORY_STORAGE})
+    public String storage;
+
+    private BenchmarkContext context;
+
+    private EmployeeService employeeService;
+
+    private Random random;
+
+    @Setup
+    public void setup() {
+        context = new BenchmarkContext(SyntheticOrg.generate(size, 64, 8, 0.01, 0.001, 42), storage);
+        employeeService = context.getBean(EmployeeService.class);
+        random = new Random(42);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Employee createEmployee() {
+        Employee employee = new Employee();
+        employee.setFirstName("Benchmark");
+        employee.setDirectReports(new ArrayList<>());
+        return employeeService.create(employee);
+    }
+
+    @Benchmark
+    public Employee readEmployee() {
+        return employeeService.read(context.getOrg().getEmployee(random).getEmployeeId());
+    }
+
+    /**
+     * A page of the employee listing after a random employee, which costs the same no matter how deep it is.
+     */
+    @Benchmark
+    public EmployeePage listPage() {
+        return employeeService.list(context.getOrg().getEmployee(random).getEmployeeId(), null, null, 100);
+    }
+
+    /**
+     * A type-ahead search for the start of a random last name, which matches hundreds of employees at every size, and
+     * the same search in one of the departments.
+     */
+    @Benchmark
+    public List<Employee> searchByName() {
+        return employeeService.search("last" + random.nextInt(100), null, null, 20);
+    }
+
+    @Benchmark
+    public List<Employee> searchByNameInDepartment() {
+        return employeeService.search("last" + random.nextInt(100), "Department" + random.nextInt(20), null, 20);
+    }
+
+    /**
+     * Updates a random employee with its own stored copy, which keeps the org chart the same between invocations.
+     */
+    @Benchmark
+    public Employee updateEmployee() {
+        Employee employee = employeeService.read(context.getOrg().getEmployee(random).getEmployeeId());
+        return employeeService.update(employee);
+    }
+}
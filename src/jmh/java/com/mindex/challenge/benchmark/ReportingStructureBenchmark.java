@@ -0,0 +1,123 @@
+package com.mindex.challenge.benchmark;
+
+import com.mindex.challenge.data.Employee;
+import com.mindex.challenge.data.ReportingStructure;
+import com.mindex.challenge.index.OrgChartIndex;
+import com.mindex.challenge.service.ReportingStructureService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reporting structure traversal over synthetic org charts, with both strategies and both storage backends.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+public class ReportingStructureBenchmark {
+
+    @Param({"10000", "100000"})
+    public int size;
+
+    @Param({"64"})
+    public int maxDepth;
+
+    @Param({"8"})
+    public int maxFanOut;
+
+    @Param({"0.01"})
+    public double sharedReportRatio;
+
+    @Param({"0.001"})
+    public double danglingReportRatio;
+
+    @Param({"index", "level-batched"})
+    public String strategy;
+
+    @Param({BenchmarkContext.MONGO_STORAGE, BenchmarkContext.IN_MEMORY_STORAGE})
+    public String storage;
+
+    private BenchmarkContext context;
+
+    private ReportingStructureService reportingStructureService;
+
+    private OrgChartIndex orgChartIndex;
+
+    private Random random;
+
+    private List<String> batchIds;
+
+    @Setup
+    public void setup() {
+        SyntheticOrg org = SyntheticOrg.generate(size, maxDepth, maxFanOut, sharedReportRatio, danglingReportRatio, 42);
+        context = new BenchmarkContext(org, storage, "reporting-structure.strategy=" + strategy);
+        reportingStructureService = context.getBean(ReportingStructureService.class);
+        orgChartIndex = context.getBean(OrgChartIndex.class);
+        random = new Random(42);
+
+        batchIds = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            batchIds.add(org.getEmployee(random).getEmployeeId());
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    /**
+     * The whole org chart. Repeated requests are served from the memo with the index strategy.
+     */
+    @Benchmark
+    public ReportingStructure rootReportingStructure() {
+        return reportingStructureService.retrieveReportingStructure(context.getOrg().getRoot().getEmployeeId());
+    }
+
+    /**
+     * The whole org chart right after the root was updated, which invalidates the memo of the root only.
+     */
+    @Benchmark
+    public ReportingStructure rootReportingStructureAfterUpdate() {
+        Employee root = context.getOrg().getRoot();
+        orgChartIndex.put(root);
+        return reportingStructureService.retrieveReportingStructure(root.getEmployeeId());
+    }
+
+    /**
+     * Only the number of reports of the whole org chart right after the root was updated, so nothing is copied.
+     */
+    @Benchmark
+    public ReportingStructure rootCountAfterUpdate() {
+        Employee root = context.getOrg().getRoot();
+        orgChartIndex.put(root);
+        return reportingStructureService.retrieveReportingStructure(root.getEmployeeId(), null, "count");
+    }
+
+    @Benchmark
+    public ReportingStructure randomReportingStructure() {
+        return reportingStructureService.retrieveReportingStructure(context.getOrg().getEmployee(random).getEmployeeId());
+    }
+
+    @Benchmark
+    public List<ReportingStructure> batchReportingStructures() {
+        return reportingStructureService.retrieveReportingStructures(batchIds);
+    }
+}
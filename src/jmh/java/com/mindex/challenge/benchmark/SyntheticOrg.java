@@ -0,0 +1,106 @@
+package com.mindex.challenge.benchmark;
+
+import com.mindex.challenge.data.Employee;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Generates a random but reproducible org chart for the benchmarks.
+ *
+ * Employees are added one at a time under a random manager that is not at the maximum depth and does not have the
+ * maximum number of direct reports yet, so the same seed and settings always produce the same org chart. Employee 0 is
+ * the root. A share of the employees is also listed as a direct report of a second, earlier employee, which is never
+ * one of their own reports, so the org chart has no cycles. A share of the employees gets an extra direct report that
+ * does not exist.
+ */
+public class SyntheticOrg {
+
+    private final List<Employee> employees;
+
+    private SyntheticOrg(List<Employee> employees) {
+        this.employees = employees;
+    }
+
+    /**
+     * @param size The number of employees.
+     * @param maxDepth The maximum number of levels below the root.
+     * @param maxFanOut The maximum number of direct reports of an employee, not counting shared and dangling ones.
+     * @param sharedReportRatio The share of the employees that have a second manager.
+     * @param danglingReportRatio The share of the employees that have a direct report that does not exist.
+     * @param seed The random seed.
+     * @return The generated org chart.
+     */
+    public static SyntheticOrg generate(int size, int maxDepth, int maxFanOut, double sharedReportRatio, double danglingReportRatio, long seed) {
+        Random random = new Random(seed);
+        List<Employee> employees = new ArrayList<>(size);
+        int[] depths = new int[size];
+        // The employees that can still take a direct report, removed by swapping with the last one once they are full.
+        int[] open = new int[size];
+        int openCount = 0;
+
+        for (int i = 0; i < size; i++) {
+            Employee employee = new Employee();
+            employee.setEmployeeId(new UUID(random.nextLong(), random.nextLong()).toString());
+            employee.setFirstName("First" + i);
+            employee.setLastName("Last" + i);
+            employee.setPosition("Position" + (i % 50));
+            employee.setDepartment("Department" + (i % 20));
+            employee.setDirectReports(new ArrayList<>());
+            employees.add(employee);
+
+            if (i > 0) {
+                if (openCount == 0) {
+                    throw new IllegalArgumentException("An org chart with maxDepth " + maxDepth + " and maxFanOut " + maxFanOut
+                            + " cannot hold " + size + " employees");
+                }
+                int slot = random.nextInt(openCount);
+                int manager = open[slot];
+                addDirectReport(employees.get(manager), employee.getEmployeeId());
+                depths[i] = depths[manager] + 1;
+                if (employees.get(manager).getDirectReports().size() == maxFanOut) {
+                    open[slot] = open[--openCount];
+                }
+
+                if (i > 1 && random.nextDouble() < sharedReportRatio) {
+                    int secondManager = random.nextInt(i);
+                    if (secondManager != manager) {
+                        addDirectReport(employees.get(secondManager), employee.getEmployeeId());
+                    }
+                }
+            }
+
+            if (depths[i] < maxDepth && maxFanOut > 0) {
+                open[openCount++] = i;
+            }
+        }
+
+        for (Employee employee : employees) {
+            if (random.nextDouble() < danglingReportRatio) {
+                addDirectReport(employee, new UUID(random.nextLong(), random.nextLong()).toString());
+            }
+        }
+
+        return new SyntheticOrg(employees);
+    }
+
+    public List<Employee> getEmployees() {
+        return employees;
+    }
+
+    public Employee getRoot() {
+        return employees.get(0);
+    }
+
+    public Employee getEmployee(Random random) {
+        return employees.get(random.nextInt(employees.size()));
+    }
+
+    private static void addDirectReport(Employee manager, String employeeId) {
+        Employee directReport = new Employee();
+        directReport.setEmployeeId(employeeId);
+        manager.getDirectReports().add(directReport);
+    }
+}
@@ -1,18 +1,43 @@
 package com.mindex.challenge;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.mindex.challenge.dao.EmployeeRepository;
 import com.mindex.challenge.data.Employee;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
 import org.springframework.stereotype.Component;
 
 import javax.annotation.PostConstruct;
+import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
 
+/**
+ * Loads the seed employees into the database on startup.
+ *
+ * The seed file is streamed with the Jackson token API one employee at a time and inserted in batches, so neither the
+ * file nor the employees are ever held in memory as a whole. The file is either a JSON array of employees or newline
+ * delimited JSON and may be gzipped; both are detected from the content.
+ */
 @Component
 public class DataBootstrap {
-    private static final String DATASTORE_LOCATION = "/static/employee_database.json";
+    private static final Logger LOG = LoggerFactory.getLogger(DataBootstrap.class);
+
+    @Value("${bootstrap.location}")
+    private String location;
+
+    @Value("${bootstrap.batch-size}")
+    private int batchSize;
 
     @Autowired
     private EmployeeRepository employeeRepository;
@@ -20,20 +45,80 @@ public class DataBootstrap {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private ResourceLoader resourceLoader;
+
     @PostConstruct
     public void init() {
-        InputStream inputStream = this.getClass().getResourceAsStream(DATASTORE_LOCATION);
-
-        Employee[] employees = null;
+        if (location.isEmpty()) {
+            LOG.debug("No bootstrap location configured, skipping data bootstrap");
+            return;
+        }
 
-        try {
-            employees = objectMapper.readValue(inputStream, Employee[].class);
+        long start = System.nanoTime();
+        Resource resource = resourceLoader.getResource(location);
+        int loaded;
+        try (InputStream inputStream = resource.getInputStream()) {
+            loaded = read(objectMapper, inputStream, batchSize, employeeRepository::insert);
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
 
-        for (Employee employee : employees) {
-            employeeRepository.insert(employee);
+        long elapsedMillis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        LOG.debug("Loaded [{}] employees from [{}] in [{}] ms, [{}] employees/s", loaded, location, elapsedMillis, loaded * 1000L / elapsedMillis);
+    }
+
+    /**
+     * Reads the employees from a JSON array or newline delimited JSON, gzipped or not, and hands them to the consumer
+     * in batches.
+     *
+     * @param objectMapper The mapper to read the employees with.
+     * @param inputStream The seed file.
+     * @param batchSize The maximum number of employees per batch.
+     * @param batchConsumer Called with every batch. The list is reused once it returns.
+     * @return The number of employees read.
+     */
+    static int read(ObjectMapper objectMapper, InputStream inputStream, int batchSize, Consumer<List<Employee>> batchConsumer) throws IOException {
+        InputStream bufferedStream = new BufferedInputStream(inputStream);
+        if (isGzipped(bufferedStream)) {
+            bufferedStream = new BufferedInputStream(new GZIPInputStream(bufferedStream));
+        }
+
+        int count = 0;
+        List<Employee> batch = new ArrayList<>(batchSize);
+        try (JsonParser parser = objectMapper.getFactory().createParser(bufferedStream)) {
+            JsonToken token = parser.nextToken();
+            // A JSON array holds the employees, while newline delimited JSON is a sequence of employees at the root.
+            if (token == JsonToken.START_ARRAY) {
+                token = parser.nextToken();
+            }
+
+            while (token == JsonToken.START_OBJECT) {
+                batch.add(parser.readValueAs(Employee.class));
+                count++;
+                if (batch.size() >= batchSize) {
+                    batchConsumer.accept(batch);
+                    batch.clear();
+                }
+                token = parser.nextToken();
+            }
+
+            if (token != null && token != JsonToken.END_ARRAY) {
+                throw new IOException("Expected an employee object but found " + token + " at " + parser.getCurrentLocation());
+            }
+        }
+
+        if (!batch.isEmpty()) {
+            batchConsumer.accept(batch);
         }
+        return count;
+    }
+
+    private static boolean isGzipped(InputStream inputStream) throws IOException {
+        inputStream.mark(2);
+        int first = inputStream.read();
+        int second = inputStream.read();
+        inputStream.reset();
+        return first == (GZIPInputStream.GZIP_MAGIC & 0xff) && second == (GZIPInputStream.GZIP_MAGIC >>> 8);
     }
 }
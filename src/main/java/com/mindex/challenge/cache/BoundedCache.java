@@ -0,0 +1,364 @@
+package com.mindex.challenge.cache;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Read-through cache that holds at most {@code maxSize} entries, evicting the least recently used one first, and
+ * expires entries {@code ttl} after they were stored.
+ *
+ * The keys are spread by hash over up to {@value #MAX_SEGMENTS} segments, each with its own lock and least recently used
+ * order over its share of the max size, so lookups of different keys rarely wait for each other while a hit still
+ * reorders its segment. Caches too small to give every segment {@value #MIN_SEGMENT_SIZE} entries use fewer segments,
+ * down to one with an exact least recently used order.
+ *
+ * Values are loaded outside the lock so a slow load does not block hits on other keys. Every load registers a token for
+ * its key, which a put or invalidation of that key removes, and a loaded value is only stored while its token is still
+ * registered. So a load that raced with a write of the same key can never overwrite the newer value, while writes of
+ * other keys do not discard it. Null values are never stored. A cache with a max size or ttl of 0 stores nothing and
+ * loads every time.
+ */
+public class BoundedCache<K, V> {
+
+    static final int MAX_SEGMENTS = 16;
+
+    static final int MIN_SEGMENT_SIZE = 64;
+
+    private final int maxSize;
+
+    private final long ttlNanos;
+
+    private final LongSupplier nanoClock;
+
+    private final Segment<K, V>[] segments;
+
+    private static class Entry<V> {
+
+        private final V value;
+
+        private final long storedAt;
+
+        private Entry(V value, long storedAt) {
+            this.value = value;
+            this.storedAt = storedAt;
+        }
+    }
+
+    private static class Segment<K, V> {
+
+        private final ReentrantLock lock = new ReentrantLock();
+
+        private final int maxSize;
+
+        private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+        // The token of the latest load of every key being loaded, see the class comment.
+        private final Map<K, Object> loads = new HashMap<>();
+
+        private long hits;
+
+        private long misses;
+
+        private long evictions;
+
+        private long expirations;
+
+        private Segment(int maxSize) {
+            this.maxSize = maxSize;
+        }
+    }
+
+    /**
+     * Snapshot of the cache counters, taken one segment at a time, so the counters of a segment are consistent with
+     * each other but segments may be taken a few lookups apart.
+     */
+    public static class Stats {
+
+        private final int size;
+
+        private final int maxSize;
+
+        private final long hits;
+
+        private final long misses;
+
+        private final long evictions;
+
+        private final long expirations;
+
+        private Stats(int size, int maxSize, long hits, long misses, long evictions, long expirations) {
+            this.size = size;
+            this.maxSize = maxSize;
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.expirations = expirations;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        public int getMaxSize() {
+            return maxSize;
+        }
+
+        public long getHits() {
+            return hits;
+        }
+
+        /**
+         * @return The number of lookups that had to load the value, including the ones that found an expired entry.
+         */
+        public long getMisses() {
+            return misses;
+        }
+
+        /**
+         * @return The number of entries removed to make room for new ones.
+         */
+        public long getEvictions() {
+            return evictions;
+        }
+
+        /**
+         * @return The number of entries removed because they were older than the ttl.
+         */
+        public long getExpirations() {
+            return expirations;
+        }
+
+        public double getHitRate() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0 : (double) hits / lookups;
+        }
+    }
+
+    public BoundedCache(int maxSize, Duration ttl) {
+        this(maxSize, ttl, System::nanoTime);
+    }
+
+    BoundedCache(int maxSize, Duration ttl, LongSupplier nanoClock) {
+        if (maxSize < 0 || ttl.isNegative()) {
+            throw new IllegalArgumentException("Cache limits cannot be negative: maxSize=" + maxSize + ", ttl=" + ttl);
+        }
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+        this.nanoClock = nanoClock;
+
+        int segmentCount = Math.max(1, Math.min(MAX_SEGMENTS, Integer.highestOneBit(maxSize / MIN_SEGMENT_SIZE)));
+        @SuppressWarnings("unchecked")
+        Segment<K, V>[] segments = (Segment<K, V>[]) new Segment<?, ?>[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment<>(maxSize / segmentCount + (i < maxSize % segmentCount ? 1 : 0));
+        }
+        this.segments = segments;
+    }
+
+    /**
+     * Returns the cached value, loading and storing it if it is not cached or has expired.
+     *
+     * @param key The key to look up.
+     * @param loader Loads the value on a miss. May return null, which is returned but not stored.
+     * @return The cached or loaded value.
+     */
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        Segment<K, V> segment = segmentOf(key);
+        Object token = new Object();
+        segment.lock.lock();
+        try {
+            Entry<V> entry = lookup(segment, key, nanoClock.getAsLong());
+            if (entry != null) {
+                return entry.value;
+            }
+            segment.loads.put(key, token);
+        } finally {
+            segment.lock.unlock();
+        }
+
+        V value;
+        try {
+            value = loader.apply(key);
+        } catch (RuntimeException | Error exception) {
+            finishLoad(segment, key, token, null);
+            throw exception;
+        }
+        finishLoad(segment, key, token, value);
+        return value;
+    }
+
+    /**
+     * Returns the cached values of the keys, loading the ones that are not cached or have expired with a single call.
+     *
+     * @param keys The keys to look up.
+     * @param loader Loads the values of the missing keys, leaving out the keys that have no value.
+     * @return The cached or loaded values by key, without the keys that have no value.
+     */
+    public Map<K, V> getAll(Collection<K> keys, Function<? super List<K>, ? extends Map<K, V>> loader) {
+        Map<K, V> values = new HashMap<>();
+        LinkedHashSet<K> missing = new LinkedHashSet<>();
+        Object token = new Object();
+        long now = nanoClock.getAsLong();
+        for (K key : keys) {
+            if (values.containsKey(key) || missing.contains(key)) {
+                continue;
+            }
+            Segment<K, V> segment = segmentOf(key);
+            segment.lock.lock();
+            try {
+                Entry<V> entry = lookup(segment, key, now);
+                if (entry != null) {
+                    values.put(key, entry.value);
+                } else {
+                    segment.loads.put(key, token);
+                    missing.add(key);
+                }
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+        if (missing.isEmpty()) {
+            return values;
+        }
+
+        Map<K, V> loaded;
+        try {
+            loaded = loader.apply(new ArrayList<>(missing));
+        } catch (RuntimeException | Error exception) {
+            for (K key : missing) {
+                finishLoad(segmentOf(key), key, token, null);
+            }
+            throw exception;
+        }
+        for (K key : missing) {
+            V value = loaded.get(key);
+            finishLoad(segmentOf(key), key, token, value);
+            if (value != null) {
+                values.put(key, value);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Stores the value, replacing any cached one.
+     */
+    public void put(K key, V value) {
+        Segment<K, V> segment = segmentOf(key);
+        segment.lock.lock();
+        try {
+            segment.loads.remove(key);
+            store(segment, key, value);
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+
+    public void invalidate(K key) {
+        Segment<K, V> segment = segmentOf(key);
+        segment.lock.lock();
+        try {
+            segment.loads.remove(key);
+            segment.entries.remove(key);
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+
+    public void invalidateAll() {
+        for (Segment<K, V> segment : segments) {
+            segment.lock.lock();
+            try {
+                segment.loads.clear();
+                segment.entries.clear();
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+    }
+
+    public Stats stats() {
+        int size = 0;
+        long hits = 0;
+        long misses = 0;
+        long evictions = 0;
+        long expirations = 0;
+        for (Segment<K, V> segment : segments) {
+            segment.lock.lock();
+            try {
+                size += segment.entries.size();
+                hits += segment.hits;
+                misses += segment.misses;
+                evictions += segment.evictions;
+                expirations += segment.expirations;
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+        return new Stats(size, maxSize, hits, misses, evictions, expirations);
+    }
+
+    private Segment<K, V> segmentOf(K key) {
+        int hash = key.hashCode();
+        return segments[(hash ^ (hash >>> 16)) & (segments.length - 1)];
+    }
+
+    /**
+     * Counts the lookup and returns the entry if it has not expired, removing it if it has. Must hold the lock of the
+     * segment.
+     */
+    private Entry<V> lookup(Segment<K, V> segment, K key, long now) {
+        Entry<V> entry = segment.entries.get(key);
+        if (entry != null) {
+            if (now - entry.storedAt < ttlNanos) {
+                segment.hits++;
+                return entry;
+            }
+            segment.entries.remove(key);
+            segment.expirations++;
+        }
+        segment.misses++;
+        return null;
+    }
+
+    /**
+     * Unregisters the load and stores the loaded value, unless the key was written since the load was registered.
+     */
+    private void finishLoad(Segment<K, V> segment, K key, Object token, V value) {
+        segment.lock.lock();
+        try {
+            if (segment.loads.remove(key, token) && value != null) {
+                store(segment, key, value);
+            }
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+
+    /**
+     * Must hold the lock of the segment.
+     */
+    private void store(Segment<K, V> segment, K key, V value) {
+        if (segment.maxSize == 0 || ttlNanos == 0) {
+            return;
+        }
+        segment.entries.put(key, new Entry<>(value, nanoClock.getAsLong()));
+
+        Iterator<Map.Entry<K, Entry<V>>> leastRecentlyUsed = segment.entries.entrySet().iterator();
+        while (segment.entries.size() > segment.maxSize) {
+            leastRecentlyUsed.next();
+            leastRecentlyUsed.remove();
+            segment.evictions++;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.mindex.challenge.cache;
+
+import com.mindex.challenge.dao.EmployeeRepository;
+import com.mindex.challenge.data.Employee;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Read-through cache of employees by employeeId in front of the {@link EmployeeRepository}.
+ *
+ * The cache is written through by the employee service on every create and update and warmed with the data loaded by
+ * the bootstrap once the application context has been refreshed. Employees are mutable, so the cache stores and hands
+ * out copies. The cache counters are published as the employee.cache meters.
+ */
+@Component
+public class EmployeeCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(EmployeeCache.class);
+
+    @Value("${employee-cache.max-size}")
+    private int maxSize;
+
+    @Value("${employee-cache.ttl}")
+    private Duration ttl;
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private BoundedCache<String, Employee> cache;
+
+    @PostConstruct
+    public void init() {
+        cache = new BoundedCache<>(maxSize, ttl);
+
+        Gauge.builder("employee.cache.size", cache, boundedCache -> boundedCache.stats().getSize()).register(meterRegistry);
+        FunctionCounter.builder("employee.cache.hits", cache, boundedCache -> boundedCache.stats().getHits()).register(meterRegistry);
+        FunctionCounter.builder("employee.cache.misses", cache, boundedCache -> boundedCache.stats().getMisses()).register(meterRegistry);
+        FunctionCounter.builder("employee.cache.evictions", cache, boundedCache -> boundedCache.stats().getEvictions()).register(meterRegistry);
+        FunctionCounter.builder("employee.cache.expirations", cache, boundedCache -> boundedCache.stats().getExpirations()).register(meterRegistry);
+    }
+
+    /**
+     * Loads up to max size employees, so the first lookups after startup do not all go to the database.
+     */
+    @EventListener(ContextRefreshedEvent.class)
+    public void warm() {
+        long start = System.nanoTime();
+        cache.invalidateAll();
+        try (Stream<Employee> employees = employeeRepository.streamAllBy()) {
+            employees.limit(maxSize).forEach(this::put);
+        }
+
+        LOG.debug("Warmed employee cache with [{}] employees in [{}] ms", cache.stats().getSize(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * @param employeeId The employee to look up.
+     * @return A copy of the employee, or null if it does not exist.
+     */
+    public Employee find(String employeeId) {
+        Employee employee = cache.get(employeeId, employeeRepository::findByEmployeeId);
+        return employee == null ? null : copy(employee);
+    }
+
+    /**
+     * Looks up several employees at once, loading the ones that are not cached with a single query.
+     *
+     * @param employeeIds The employees to look up.
+     * @return Copies of the employees that exist, by employeeId.
+     */
+    public Map<String, Employee> findAll(Collection<String> employeeIds) {
+        Map<String, Employee> employees = cache.getAll(employeeIds, missingIds -> {
+            Map<String, Employee> loaded = new HashMap<>();
+            employeeRepository.findAllById(missingIds).forEach(employee -> loaded.put(employee.getEmployeeId(), employee));
+            return loaded;
+        });
+        employees.replaceAll((employeeId, employee) -> copy(employee));
+        return employees;
+    }
+
+    /**
+     * @param employee The employee as it was saved to the database.
+     */
+    public void put(Employee employee) {
+        cache.put(employee.getEmployeeId(), copy(employee));
+    }
+
+    public BoundedCache.Stats stats() {
+        return cache.stats();
+    }
+
+    private static Employee copy(Employee employee) {
+        Employee copy = new Employee();
+        copy.setEmployeeId(employee.getEmployeeId());
+        copy.setFirstName(employee.getFirstName());
+        copy.setLastName(employee.getLastName());
+        copy.setPosition(employee.getPosition());
+        copy.setDepartment(employee.getDepartment());
+        copy.setVersion(employee.getVersion());
+        if (employee.getDirectReports() != null) {
+            copy.setDirectReports(new ArrayList<>(employee.getDirectReports().size()));
+            for (Employee directReport : employee.getDirectReports()) {
+                copy.getDirectReports().add(directReport == null ? null : copy(directReport));
+            }
+        }
+        return copy;
+    }
+}
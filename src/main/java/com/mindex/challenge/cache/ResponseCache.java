@@ -0,0 +1,185 @@
+package com.mindex.challenge.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cache of the encoded bytes of hot responses, so a response that has not changed is written out without being
+ * serialized again. A response is cached once per media type it is asked for, and encoded with the object mapper of the
+ * Jackson message converter of that media type, JSON first.
+ *
+ * Every response is cached along with its entity tag, and a cached response is only handed out for the same tag. The
+ * tags are built from versions, so a response can never be served stale even when the write that changed it did not
+ * invalidate it, as happens to the reporting structures of the managers above an updated employee. The employee and
+ * compensation services still invalidate the responses of the employees they write, so those are not kept around
+ * until they are evicted. Responses larger than the max entry size are serialized every time. The cache counters are
+ * published as the response.cache meters.
+ */
+@Component
+public class ResponseCache {
+
+    @Value("${response-cache.max-size}")
+    private int maxSize;
+
+    @Value("${response-cache.ttl}")
+    private Duration ttl;
+
+    @Value("${response-cache.max-entry-size}")
+    private DataSize maxEntrySize;
+
+    @Autowired
+    private List<AbstractJackson2HttpMessageConverter> messageConverters;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private BoundedCache<String, Entry> cache;
+
+    private final Map<MediaType, ObjectMapper> objectMappers = new LinkedHashMap<>();
+
+    // Responses found in the cache under an older tag.
+    private Counter staleHits;
+
+    private static class Entry {
+
+        private final String tag;
+
+        // Null when the response is too large to be cached.
+        private final byte[] bytes;
+
+        private Entry(String tag, byte[] bytes) {
+            this.tag = tag;
+            this.bytes = bytes;
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        cache = new BoundedCache<>(maxSize, ttl);
+
+        messageConverters.sort((first, second) -> Boolean.compare(
+                !(first instanceof MappingJackson2HttpMessageConverter), !(second instanceof MappingJackson2HttpMessageConverter)));
+        for (AbstractJackson2HttpMessageConverter messageConverter : messageConverters) {
+            for (MediaType mediaType : messageConverter.getSupportedMediaTypes()) {
+                if (mediaType.isConcrete()) {
+                    objectMappers.putIfAbsent(mediaType, messageConverter.getObjectMapper());
+                }
+            }
+        }
+
+        Gauge.builder("response.cache.size", cache, boundedCache -> boundedCache.stats().getSize()).register(meterRegistry);
+        FunctionCounter.builder("response.cache.hits", cache, boundedCache -> boundedCache.stats().getHits()).register(meterRegistry);
+        FunctionCounter.builder("response.cache.misses", cache, boundedCache -> boundedCache.stats().getMisses()).register(meterRegistry);
+        FunctionCounter.builder("response.cache.evictions", cache, boundedCache -> boundedCache.stats().getEvictions()).register(meterRegistry);
+        FunctionCounter.builder("response.cache.expirations", cache, boundedCache -> boundedCache.stats().getExpirations()).register(meterRegistry);
+        staleHits = meterRegistry.counter("response.cache.stale");
+    }
+
+    public static String employeeKey(String employeeId) {
+        return "employee/" + employeeId;
+    }
+
+    public static String reportingStructureKey(String employeeId) {
+        return "reporting-structure/" + employeeId;
+    }
+
+    public static String compensationKey(String employeeId) {
+        return "compensation/" + employeeId;
+    }
+
+    /**
+     * @return The media types responses can be encoded in, in order of preference.
+     */
+    public List<MediaType> mediaTypes() {
+        return new ArrayList<>(objectMappers.keySet());
+    }
+
+    /**
+     * @param key The response to look up.
+     * @param tag The entity tag of the value, or null to serialize it without caching.
+     * @param value The value of the response, serialized on a miss.
+     * @param mediaType One of the {@link #mediaTypes()} to encode the value in.
+     * @return The encoded value.
+     */
+    public byte[] encode(String key, String tag, Object value, MediaType mediaType) {
+        ObjectMapper objectMapper = objectMappers.get(mediaType);
+        if (objectMapper == null) {
+            throw new IllegalArgumentException("Unsupported media type: " + mediaType);
+        }
+        if (tag == null) {
+            return serialize(objectMapper, value);
+        }
+
+        byte[][] serialized = new byte[1][];
+        String encodedKey = encodedKey(key, mediaType);
+        Entry entry = cache.get(encodedKey, missingKey -> entryOf(tag, serialized[0] = serialize(objectMapper, value)));
+        if (!entry.tag.equals(tag)) {
+            staleHits.increment();
+            entry = entryOf(tag, serialized[0] = serialize(objectMapper, value));
+            cache.put(encodedKey, entry);
+        }
+
+        if (entry.bytes != null) {
+            return entry.bytes;
+        }
+        return serialized[0] != null ? serialized[0] : serialize(objectMapper, value);
+    }
+
+    /**
+     * Drops the cached responses that contain the employee as a whole: the employee itself, its reporting structure and
+     * its compensation.
+     */
+    public void invalidateEmployee(String employeeId) {
+        invalidate(employeeKey(employeeId));
+        invalidate(reportingStructureKey(employeeId));
+        invalidate(compensationKey(employeeId));
+    }
+
+    /**
+     * Drops the cached response in every media type.
+     */
+    public void invalidate(String key) {
+        for (MediaType mediaType : objectMappers.keySet()) {
+            cache.invalidate(encodedKey(key, mediaType));
+        }
+    }
+
+    public BoundedCache.Stats stats() {
+        return cache.stats();
+    }
+
+    private Entry entryOf(String tag, byte[] bytes) {
+        return new Entry(tag, bytes.length <= maxEntrySize.toBytes() ? bytes : null);
+    }
+
+    private static String encodedKey(String key, MediaType mediaType) {
+        return key + " " + mediaType;
+    }
+
+    private static byte[] serialize(ObjectMapper objectMapper, Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+}
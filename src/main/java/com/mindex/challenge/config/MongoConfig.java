@@ -1,19 +1,29 @@
 package com.mindex.challenge.config;
 
 import com.mindex.challenge.dao.EmployeeRepository;
+import com.mindex.challenge.dao.ReactiveEmployeeRepository;
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
 import com.mongodb.client.MongoClient;
 import com.mongodb.client.MongoClients;
 import de.bwaldvogel.mongo.MongoServer;
 import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.mongodb.MongoMetricsCommandListener;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
 import org.springframework.data.mongodb.MongoDbFactory;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
 import org.springframework.data.mongodb.core.SimpleMongoClientDbFactory;
 import org.springframework.data.mongodb.repository.config.EnableMongoRepositories;
+import org.springframework.data.mongodb.repository.config.EnableReactiveMongoRepositories;
 
 @EnableMongoRepositories(basePackageClasses = EmployeeRepository.class)
 @Configuration
+@Profile("!inmemory")
 public class MongoConfig{
     @Bean
     public MongoTemplate mongoTemplate(MongoClient mongoClient) {
@@ -33,8 +43,33 @@ public class MongoConfig{
     }
 
     @Bean(destroyMethod="close")
-    public MongoClient mongoClient() {
-        return MongoClients.create("mongodb:/" + mongoServer().getLocalAddress());
+    public MongoClient mongoClient(MeterRegistry meterRegistry) {
+        return MongoClients.create(MongoClientSettings.builder()
+                .applyConnectionString(new ConnectionString("mongodb:/" + mongoServer().getLocalAddress()))
+                .addCommandListener(new MongoMetricsCommandListener(meterRegistry))
+                .build());
+    }
+
+    /**
+     * The reactive client and repositories, connected to the same embedded server, only when the reactive reporting
+     * structure is enabled. The reactive auto-configuration is excluded, so no reactive client is created otherwise.
+     */
+    @Configuration
+    @ConditionalOnProperty(name = "reporting-structure.reactive.enabled", havingValue = "true")
+    @EnableReactiveMongoRepositories(basePackageClasses = ReactiveEmployeeRepository.class)
+    public static class ReactiveMongoConfig {
+        @Bean
+        public ReactiveMongoTemplate reactiveMongoTemplate(com.mongodb.reactivestreams.client.MongoClient reactiveMongoClient) {
+            return new ReactiveMongoTemplate(reactiveMongoClient, "test");
+        }
+
+        @Bean(destroyMethod="close")
+        public com.mongodb.reactivestreams.client.MongoClient reactiveMongoClient(MongoServer mongoServer, MeterRegistry meterRegistry) {
+            return com.mongodb.reactivestreams.client.MongoClients.create(MongoClientSettings.builder()
+                    .applyConnectionString(new ConnectionString("mongodb:/" + mongoServer.getLocalAddress()))
+                    .addCommandListener(new MongoMetricsCommandListener(meterRegistry))
+                    .build());
+        }
     }
 }
 
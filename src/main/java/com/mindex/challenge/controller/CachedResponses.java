@@ -0,0 +1,76 @@
+package com.mindex.challenge.controller;
+
+import com.mindex.challenge.cache.ResponseCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.HttpMediaTypeNotAcceptableException;
+import org.springframework.web.context.request.NativeWebRequest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Writes responses out of the {@link ResponseCache}, in the media type negotiated from the Accept header the same way
+ * the message converters would.
+ */
+@Component
+class CachedResponses {
+
+    @Autowired
+    private ResponseCache responseCache;
+
+    /**
+     * Answers with a 304 and no body when the If-None-Match header matches the tag of the value in the negotiated media
+     * type. The JSON, Smile and CBOR of the same value are different bytes, so each gets its own strong tag.
+     *
+     * @param request The request to negotiate the media type of.
+     * @param key The response to look up in the cache.
+     * @param tag The entity tag of the value, or null if it has none, in which case the response is not conditional.
+     * @param cached Whether the encoded value is cached for its tag.
+     * @param value The value of the response.
+     * @return The encoded response, or null when the request was answered with a 304.
+     * @throws HttpMediaTypeNotAcceptableException When none of the accepted media types can be encoded, answered with
+     * a 406.
+     */
+    ResponseEntity<byte[]> ok(NativeWebRequest request, String key, String tag, boolean cached, Object value) throws HttpMediaTypeNotAcceptableException {
+        MediaType mediaType = negotiate(request);
+        if (tag != null && request.checkNotModified(tag + "-" + mediaType.getSubtype())) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .contentType(mediaType)
+                .varyBy(HttpHeaders.ACCEPT)
+                .body(responseCache.encode(key, cached ? tag : null, value, mediaType));
+    }
+
+    private MediaType negotiate(NativeWebRequest request) throws HttpMediaTypeNotAcceptableException {
+        String[] accept = request.getHeaderValues(HttpHeaders.ACCEPT);
+        List<MediaType> acceptedMediaTypes = new ArrayList<>();
+        try {
+            if (accept != null) {
+                acceptedMediaTypes.addAll(MediaType.parseMediaTypes(Arrays.asList(accept)));
+            }
+        } catch (InvalidMediaTypeException exception) {
+            throw new HttpMediaTypeNotAcceptableException("Could not parse the Accept header: " + exception.getMessage());
+        }
+        if (acceptedMediaTypes.isEmpty()) {
+            acceptedMediaTypes.add(MediaType.ALL);
+        }
+        MediaType.sortBySpecificityAndQuality(acceptedMediaTypes);
+
+        List<MediaType> mediaTypes = responseCache.mediaTypes();
+        for (MediaType acceptedMediaType : acceptedMediaTypes) {
+            for (MediaType mediaType : mediaTypes) {
+                if (acceptedMediaType.isCompatibleWith(mediaType)) {
+                    return mediaType;
+                }
+            }
+        }
+        throw new HttpMediaTypeNotAcceptableException(mediaTypes);
+    }
+}
@@ -0,0 +1,47 @@
+package com.mindex.challenge.controller;
+
+import com.mindex.challenge.feed.ChangeFeed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+public class ChangeFeedController {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ChangeFeedController.class);
+
+    @Autowired
+    ChangeFeed changeFeed;
+
+    /**
+     * Streams the employee and compensation changes as server-sent events. A reconnecting client resumes after the
+     * Last-Event-ID it sends, which takes precedence over the after parameter. Without either only the changes from
+     * now on are streamed.
+     */
+    @GetMapping(value = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    SseEmitter streamChanges(@RequestParam(required = false) String after,
+                             @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        LOG.debug("Received change feed request after [{}] with Last-Event-ID [{}]", after, lastEventId);
+
+        return changeFeed.subscribe(parseSequence(lastEventId != null ? lastEventId : after));
+    }
+
+    private static Long parseSequence(String sequence) {
+        if (sequence == null) {
+            return null;
+        }
+        try {
+            return Long.valueOf(sequence.trim());
+        } catch (NumberFormatException exception) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid event id: " + sequence);
+        }
+    }
+}
@@ -1,11 +1,28 @@
 package com.mindex.challenge.controller;
 
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mindex.challenge.cache.ResponseCache;
 import com.mindex.challenge.data.Compensation;
+import com.mindex.challenge.data.CompensationBulkResult;
+import com.mindex.challenge.data.CompensationBulkRow;
+import com.mindex.challenge.data.CompensationStatistics;
+import com.mindex.challenge.data.PayrollRollup;
 import com.mindex.challenge.service.CompensationService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.HttpMediaTypeNotAcceptableException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.NativeWebRequest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
 
 @RestController
 public class CompensationController {
@@ -15,11 +32,30 @@ public class CompensationController {
     @Autowired
     CompensationService compensationService;
 
+    @Autowired
+    CachedResponses cachedResponses;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    /**
+     * Answers with a 304 and no body when the If-None-Match header matches the compensation in effect in the media type
+     * of the Accept header. Otherwise the response cached for that compensation is written out as it is, as JSON, Smile
+     * or CBOR.
+     */
     @GetMapping("/compensation/{id}")
-    Compensation retrieveCompensation(@PathVariable String id) {
-        LOG.debug("Received compensation request for employeeId [{}]", id);
+    ResponseEntity<byte[]> retrieveCompensation(@PathVariable String id, @RequestParam(required = false) String asOf, NativeWebRequest request) throws HttpMediaTypeNotAcceptableException {
+        LOG.debug("Received compensation request for employeeId [{}] as of [{}]", id, asOf);
 
-        return compensationService.retrieveCompensation(id);
+        Compensation compensation = asOf == null ? compensationService.retrieveCompensation(id) : compensationService.retrieveCompensation(id, asOf);
+        return cachedResponses.ok(request, ResponseCache.compensationKey(id), EntityTags.of(compensation), true, compensation);
+    }
+
+    @GetMapping("/compensation/{id}/history")
+    List<Compensation> retrieveCompensationHistory(@PathVariable String id) {
+        LOG.debug("Received compensation history request for employeeId [{}]", id);
+
+        return compensationService.retrieveCompensationHistory(id);
     }
 
     @PostMapping("/compensation/{id}")
@@ -29,4 +65,47 @@ public class CompensationController {
         return compensationService.createCompensation(id, compensation);
     }
 
+    /**
+     * Creates many compensations in one request. The body is either a JSON array of rows or newline delimited JSON, and
+     * is parsed one row at a time as the compensations are written, so it is never held in memory as a whole.
+     */
+    @PostMapping(value = "/compensation/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, "application/x-ndjson"})
+    List<CompensationBulkResult> bulkCreateCompensation(InputStream body) throws IOException {
+        LOG.debug("Received compensation bulk request");
+
+        try (MappingIterator<CompensationBulkRow> rows = objectMapper.readerFor(CompensationBulkRow.class).readValues(body)) {
+            return compensationService.bulkCreateCompensation(rows);
+        }
+    }
+
+    /**
+     * Creates many compensations in one request from CSV with a header line, parsed one line at a time as well.
+     */
+    @PostMapping(value = "/compensation/bulk", consumes = "text/csv")
+    List<CompensationBulkResult> bulkCreateCompensationCsv(InputStream body) throws IOException {
+        LOG.debug("Received compensation CSV bulk request");
+
+        try (CompensationCsvReader rows = new CompensationCsvReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            return compensationService.bulkCreateCompensation(rows.iterator());
+        }
+    }
+
+    /**
+     * Salary percentiles of every department and position, or of the positions within one department.
+     */
+    @GetMapping("/compensation/stats")
+    CompensationStatistics retrieveCompensationStatistics(@RequestParam(required = false) String department) {
+        LOG.debug("Received compensation statistics request for department [{}]", department);
+
+        return compensationService.retrieveCompensationStatistics(department);
+    }
+
+    @GetMapping("/compensation/{id}/rollup")
+    PayrollRollup retrievePayrollRollup(@PathVariable String id, @RequestParam(required = false) String asOf,
+                                        @RequestParam(defaultValue = "false") boolean byDepartment) {
+        LOG.debug("Received payroll roll-up request for employeeId [{}] as of [{}]", id, asOf);
+
+        return compensationService.retrievePayrollRollup(id, asOf, byDepartment);
+    }
+
 }
@@ -0,0 +1,155 @@
+package com.mindex.challenge.controller;
+
+import com.mindex.challenge.data.CompensationBulkRow;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads the rows of a compensation upload from CSV one line at a time, as the rows are needed. The first line is a
+ * header naming the employeeId, salary and effectiveDate columns in any order, other columns are ignored. A byte order
+ * mark in front of it, as spreadsheets write, is skipped. Fields may be quoted as in RFC 4180, and blank lines are
+ * skipped. Values are trimmed, and empty or missing values are read as
+ * null so the row fails validation rather than the whole upload.
+ */
+class CompensationCsvReader implements Iterable<CompensationBulkRow>, Closeable {
+
+    private static final char BYTE_ORDER_MARK = '\uFEFF';
+
+    private final Reader reader;
+
+    private final int employeeIdColumn;
+
+    private final int salaryColumn;
+
+    private final int effectiveDateColumn;
+
+    private List<String> nextRecord;
+
+    /**
+     * @throws ResponseStatusException When the header cannot be read or does not name the columns, answered with a 400.
+     */
+    CompensationCsvReader(Reader reader) throws IOException {
+        this.reader = new BufferedReader(reader);
+        this.reader.mark(1);
+        if (this.reader.read() != BYTE_ORDER_MARK) {
+            this.reader.reset();
+        }
+
+        List<String> header;
+        try {
+            header = readRecord();
+        } catch (IllegalArgumentException exception) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unreadable CSV header: " + exception.getMessage());
+        }
+        if (header == null) {
+            header = new ArrayList<>();
+        }
+        for (int i = 0; i < header.size(); i++) {
+            header.set(i, header.get(i).trim());
+        }
+        employeeIdColumn = header.indexOf("employeeId");
+        salaryColumn = header.indexOf("salary");
+        effectiveDateColumn = header.indexOf("effectiveDate");
+        if (employeeIdColumn < 0 || salaryColumn < 0 || effectiveDateColumn < 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "CSV header must name the employeeId, salary and effectiveDate columns: " + header);
+        }
+    }
+
+    @Override
+    public Iterator<CompensationBulkRow> iterator() {
+        return new Iterator<CompensationBulkRow>() {
+
+            @Override
+            public boolean hasNext() {
+                try {
+                    while (nextRecord == null) {
+                        List<String> record = readRecord();
+                        if (record == null) {
+                            return false;
+                        }
+                        if (record.size() > 1 || !record.get(0).trim().isEmpty()) {
+                            nextRecord = record;
+                        }
+                    }
+                    return true;
+                } catch (IOException exception) {
+                    throw new UncheckedIOException(exception);
+                }
+            }
+
+            @Override
+            public CompensationBulkRow next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                List<String> record = nextRecord;
+                nextRecord = null;
+                return CompensationBulkRow.of(value(record, employeeIdColumn), value(record, salaryColumn), value(record, effectiveDateColumn));
+            }
+        };
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private static String value(List<String> record, int column) {
+        if (column >= record.size()) {
+            return null;
+        }
+        String value = record.get(column).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    /**
+     * @return The fields of the next line, or null at the end of the input.
+     */
+    private List<String> readRecord() throws IOException {
+        int c = reader.read();
+        if (c == -1) {
+            return null;
+        }
+
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        while (true) {
+            if (quoted) {
+                if (c == -1) {
+                    throw new IllegalArgumentException("Unterminated quoted field: " + field);
+                }
+                if (c == '"') {
+                    c = reader.read();
+                    if (c != '"') {
+                        // The closing quote, the character after it is read as unquoted.
+                        quoted = false;
+                        continue;
+                    }
+                }
+                field.append((char) c);
+            } else if (c == '"' && field.length() == 0) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n' || c == -1) {
+                fields.add(field.toString());
+                return fields;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+            c = reader.read();
+        }
+    }
+}
@@ -1,11 +1,32 @@
 package com.mindex.challenge.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mindex.challenge.cache.BoundedCache;
+import com.mindex.challenge.cache.ResponseCache;
 import com.mindex.challenge.data.Employee;
+import com.mindex.challenge.data.EmployeeBulkResult;
+import com.mindex.challenge.data.EmployeePage;
+import com.mindex.challenge.data.ReportingStructure;
 import com.mindex.challenge.service.EmployeeService;
+import com.mindex.challenge.service.ReportingStructureService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.HttpMediaTypeNotAcceptableException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.ToIntFunction;
+import java.util.stream.Stream;
 
 @RestController
 public class EmployeeController {
@@ -14,6 +35,15 @@ public class EmployeeController {
     @Autowired
     private EmployeeService employeeService;
 
+    @Autowired
+    private ReportingStructureService reportingStructureService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private CachedResponses cachedResponses;
+
     @PostMapping("/employee")
     public Employee create(@RequestBody Employee employee) {
         LOG.debug("Received employee create request for [{}]", employee);
@@ -21,11 +51,59 @@ public class EmployeeController {
         return employeeService.create(employee);
     }
 
+    /**
+     * Lists the employees in employeeId order, one page at a time. The nextCursor of a page is passed as the cursor to
+     * get the next page.
+     */
+    @GetMapping("/employee")
+    public EmployeePage list(@RequestParam(required = false) String cursor,
+                             @RequestParam(required = false) String department,
+                             @RequestParam(required = false) String position,
+                             @RequestParam(required = false) Integer pageSize) {
+        LOG.debug("Received employee list request after [{}]", cursor);
+
+        return employeeService.list(cursor, department, position, pageSize);
+    }
+
+    /**
+     * Lists the direct reports of the employee that exist, the same way as the employees.
+     */
+    @GetMapping("/employee/{id}/direct-reports")
+    public EmployeePage listDirectReports(@PathVariable String id,
+                                          @RequestParam(required = false) String cursor,
+                                          @RequestParam(required = false) String department,
+                                          @RequestParam(required = false) String position,
+                                          @RequestParam(required = false) Integer pageSize) {
+        LOG.debug("Received direct reports list request for id [{}] after [{}]", id, cursor);
+
+        return employeeService.listDirectReports(id, cursor, department, position, pageSize);
+    }
+
+    /**
+     * Type-ahead search of the employees. Every word of q must be the start of a word of the first or last name, and
+     * the department and position must match exactly, ignoring case.
+     */
+    @GetMapping("/employee/search")
+    public List<Employee> search(@RequestParam(required = false) String q,
+                                 @RequestParam(required = false) String department,
+                                 @RequestParam(required = false) String position,
+                                 @RequestParam(required = false) Integer limit) {
+        LOG.debug("Received employee search request for [{}]", q);
+
+        return employeeService.search(q, department, position, limit);
+    }
+
+    /**
+     * Answers with a 304 and no body when the If-None-Match header matches the version of the employee in the media type
+     * of the Accept header. Otherwise the response cached for that version is written out as it is, as JSON, Smile or
+     * CBOR.
+     */
     @GetMapping("/employee/{id}")
-    public Employee read(@PathVariable String id) {
+    public ResponseEntity<byte[]> read(@PathVariable String id, NativeWebRequest request) throws HttpMediaTypeNotAcceptableException {
         LOG.debug("Received employee create request for id [{}]", id);
 
-        return employeeService.read(id);
+        Employee employee = employeeService.read(id);
+        return cachedResponses.ok(request, ResponseCache.employeeKey(id), EntityTags.of(employee), true, employee);
     }
 
     @PutMapping("/employee/{id}")
@@ -35,4 +113,69 @@ public class EmployeeController {
         employee.setEmployeeId(id);
         return employeeService.update(employee);
     }
+
+    /**
+     * Creates or updates many employees in one request. The body is either a JSON array of employees or newline
+     * delimited JSON, and is parsed one employee at a time as the employees are written, so it is never held in memory
+     * as a whole. Employees without an employeeId are created, the others are updated.
+     */
+    @PostMapping(value = "/employee/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, "application/x-ndjson"})
+    public List<EmployeeBulkResult> bulk(InputStream body) throws IOException {
+        LOG.debug("Received employee bulk request");
+
+        try (MappingIterator<Employee> employees = objectMapper.readerFor(Employee.class).readValues(body)) {
+            return employeeService.bulkSave(employees);
+        }
+    }
+
+    @GetMapping("/employee/cache/stats")
+    public BoundedCache.Stats cacheStats() {
+        LOG.debug("Received employee cache stats request");
+
+        return employeeService.cacheStats();
+    }
+
+    /**
+     * Streams every employee as newline delimited JSON straight from the database cursor to the response, so the heap
+     * use does not depend on the size of the org chart. With report counts, every line is a reporting structure with
+     * the employee as stored and its numberOfReports instead. The counts of all the employees are then taken up front in
+     * one pass over the org chart index and kept for the export in the int arrays of that pass, indexed by node id, so
+     * the export holds a few ints per employee on top of the index rather than any per employee objects. Employees
+     * missing from them, because they were created since or their reports reach the traversal limits, are counted by a
+     * traversal of their own, which may mark them as truncated.
+     */
+    @GetMapping(value = "/employee/export", produces = "application/x-ndjson")
+    public StreamingResponseBody export(@RequestParam(defaultValue = "false") boolean withReportCounts) {
+        LOG.debug("Received employee export request with report counts [{}]", withReportCounts);
+
+        return outputStream -> {
+            ToIntFunction<String> numbersOfReports = withReportCounts ? reportingStructureService.retrieveAllNumbersOfReports() : null;
+            try (Stream<Employee> employees = employeeService.streamAll();
+                 JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                // Lines are separated by newlines instead of the default space between root level values.
+                generator.setRootValueSeparator(null);
+                Iterator<Employee> iterator = employees.iterator();
+                while (iterator.hasNext()) {
+                    Employee employee = iterator.next();
+                    if (withReportCounts) {
+                        ReportingStructure reportingStructure = new ReportingStructure();
+                        reportingStructure.setEmployee(employee);
+                        int numberOfReports = numbersOfReports.applyAsInt(employee.getEmployeeId());
+                        if (numberOfReports < 0) {
+                            ReportingStructure counted = reportingStructureService.retrieveReportingStructure(employee.getEmployeeId(), null,
+                                    ReportingStructure.Fields.COUNT.name());
+                            reportingStructure.setNumberOfReports(counted.getNumberOfReports());
+                            reportingStructure.setTruncated(counted.isTruncated());
+                        } else {
+                            reportingStructure.setNumberOfReports(numberOfReports);
+                        }
+                        generator.writeObject(reportingStructure);
+                    } else {
+                        generator.writeObject(employee);
+                    }
+                    generator.writeRaw('\n');
+                }
+            }
+        };
+    }
 }
@@ -0,0 +1,29 @@
+package com.mindex.challenge.controller;
+
+import com.mindex.challenge.data.Compensation;
+import com.mindex.challenge.data.Employee;
+
+/**
+ * Strong entity tags of the responses built from versions, so a client polling with If-None-Match gets a 304 without
+ * the body being serialized again.
+ */
+final class EntityTags {
+
+    private EntityTags() { }
+
+    static String of(Employee employee) {
+        return String.valueOf(versionOf(employee));
+    }
+
+    /**
+     * The compensation in effect changes with the as of date, so the tag includes the effective date as well as the
+     * versions of the compensation and of the employee in it.
+     */
+    static String of(Compensation compensation) {
+        return compensation.getEffectiveDate() + "." + compensation.getVersion() + "." + versionOf(compensation.getEmployee());
+    }
+
+    private static long versionOf(Employee employee) {
+        return employee.getVersion() == null ? 0 : employee.getVersion();
+    }
+}
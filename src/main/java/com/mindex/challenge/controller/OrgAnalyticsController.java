@@ -0,0 +1,27 @@
+package com.mindex.challenge.controller;
+
+import com.mindex.challenge.data.OrgAnalytics;
+import com.mindex.challenge.service.OrgAnalyticsService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+public class OrgAnalyticsController {
+
+    private static final Logger LOG = LoggerFactory.getLogger(OrgAnalyticsController.class);
+
+    @Autowired
+    private OrgAnalyticsService orgAnalyticsService;
+
+    @GetMapping("/org-analytics")
+    public OrgAnalytics retrieveOrgAnalytics(@RequestParam(defaultValue = "true") boolean withEmployees) {
+        LOG.debug("Received org analytics request with employees [{}]", withEmployees);
+
+        return orgAnalyticsService.retrieveOrgAnalytics(withEmployees);
+    }
+
+}
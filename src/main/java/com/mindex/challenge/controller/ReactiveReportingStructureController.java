@@ -0,0 +1,49 @@
+package com.mindex.challenge.controller;
+
+import com.mindex.challenge.data.ReportingStructure;
+import com.mindex.challenge.service.ReactiveReportingStructureService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Takes the place of {@link ReportingStructureController} when reporting-structure.reactive.enabled is set. The
+ * handlers return as soon as the reporting structure has been requested and the response is written from the thread
+ * that completes it, so the servlet thread is free to serve other requests in the meantime.
+ */
+@RestController
+@ConditionalOnProperty(name = "reporting-structure.reactive.enabled", havingValue = "true")
+public class ReactiveReportingStructureController {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ReactiveReportingStructureController.class);
+
+    @Autowired
+    private ReactiveReportingStructureService reactiveReportingStructureService;
+
+    @GetMapping("/reporting-structure/{id}")
+    public Mono<ReportingStructure> retrieveReportingStructure(@PathVariable String id,
+                                                               @RequestParam(required = false) Integer depth,
+                                                               @RequestParam(required = false) String fields) {
+        LOG.debug("Received reactive employee reporting structure request for id [{}]", id);
+
+        return reactiveReportingStructureService.retrieveReportingStructure(id, depth, fields);
+    }
+
+    @PostMapping("/reporting-structure")
+    public Mono<List<ReportingStructure>> retrieveReportingStructures(@RequestBody List<String> ids) {
+        LOG.debug("Received reactive employee reporting structure request for [{}] ids", ids.size());
+
+        return reactiveReportingStructureService.retrieveReportingStructures(ids).collectList();
+    }
+
+}
@@ -1,15 +1,26 @@
 package com.mindex.challenge.controller;
 
+import com.mindex.challenge.cache.ResponseCache;
 import com.mindex.challenge.data.ReportingStructure;
 import com.mindex.challenge.service.ReportingStructureService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.HttpMediaTypeNotAcceptableException;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.NativeWebRequest;
+
+import java.util.List;
 
 @RestController
+@ConditionalOnProperty(name = "reporting-structure.reactive.enabled", havingValue = "false", matchIfMissing = true)
 public class ReportingStructureController {
 
     private static final Logger LOG = LoggerFactory.getLogger(ReportingStructureController.class);
@@ -17,11 +28,36 @@ public class ReportingStructureController {
     @Autowired
     private ReportingStructureService reportingStructureService;
 
+    @Autowired
+    private CachedResponses cachedResponses;
+
+    /**
+     * Answers with a 304 and no body when the If-None-Match header matches the digest of the versions of everybody in
+     * the reporting structure, in the media type of the Accept header. When the reporting structure is memoized, neither the structure nor the digest is
+     * computed again.
+     *
+     * The depth limits the levels of directReports filled in and fields=ids or fields=count leaves out the other fields
+     * or the directReports altogether. The numberOfReports always counts all the reports. The whole reporting structure is
+     * cached for its digest in the media type of the Accept header and written out as it is, the partial ones are
+     * serialized every time.
+     */
     @GetMapping("/reporting-structure/{id}")
-    public ReportingStructure retrieveReportingStructure(@PathVariable String id) {
-        LOG.debug("Received employee reporting structure request for id [{}]", id);
+    public ResponseEntity<byte[]> retrieveReportingStructure(@PathVariable String id,
+                                                             @RequestParam(required = false) Integer depth,
+                                                             @RequestParam(required = false) String fields,
+                                                             NativeWebRequest request) throws HttpMediaTypeNotAcceptableException {
+        LOG.debug("Received employee reporting structure request for id [{}] to depth [{}] with fields [{}]", id, depth, fields);
+
+        ReportingStructure reportingStructure = reportingStructureService.retrieveReportingStructure(id, depth, fields);
+        boolean whole = depth == null && fields == null;
+        return cachedResponses.ok(request, ResponseCache.reportingStructureKey(id), reportingStructure.getEtag(), whole, reportingStructure);
+    }
+
+    @PostMapping("/reporting-structure")
+    public List<ReportingStructure> retrieveReportingStructures(@RequestBody List<String> ids) {
+        LOG.debug("Received employee reporting structure request for [{}] ids", ids.size());
 
-        return reportingStructureService.retrieveReportingStructure(id);
+        return reportingStructureService.retrieveReportingStructures(ids);
     }
 
 }
@@ -4,9 +4,30 @@ import com.mindex.challenge.data.CompensationDTO;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
 @Repository
-public interface CompensationRepository extends MongoRepository<CompensationDTO, String> {
+public interface CompensationRepository extends MongoRepository<CompensationDTO, String>, CompensationRepositoryCustom {
+
+    /**
+     * Finds the compensation in effect on the given date, i.e. the one with the latest effective date on or before it.
+     */
+    CompensationDTO findFirstByEmployeeIdAndEffectiveDateLessThanEqualOrderByEffectiveDateDesc(String employeeId, LocalDate asOf);
+
+    List<CompensationDTO> findByEmployeeIdOrderByEffectiveDateAsc(String employeeId);
+
+    /**
+     * Finds the timelines of several employees at once, up to and including the given date.
+     */
+    List<CompensationDTO> findByEmployeeIdInAndEffectiveDateLessThanEqual(Collection<String> employeeIds, LocalDate asOf);
 
-    CompensationDTO findByEmployeeId(String employeeId);
+    /**
+     * Streams all the compensations from a database cursor, so the collection is never loaded into memory at once. The
+     * stream must be closed to release the cursor.
+     */
+    Stream<CompensationDTO> streamAllBy();
 
 }
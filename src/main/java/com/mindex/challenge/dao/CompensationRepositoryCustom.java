@@ -0,0 +1,33 @@
+package com.mindex.challenge.dao;
+
+import com.mindex.challenge.data.CompensationDTO;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes to the compensation collection that cannot be derived from method names.
+ */
+public interface CompensationRepositoryCustom {
+
+    /**
+     * Saves the compensation only if it is the next version of the stored one, atomically with the check: the stored
+     * compensation must have the version before the one of the given compensation, and a compensation of version 1 is
+     * inserted if none is stored. This way two writers that read the same version cannot both save the next one.
+     *
+     * @param compensation The compensation to save, with its version already bumped.
+     * @return Whether the compensation was saved, false if the stored one was changed in the meantime.
+     */
+    boolean saveNextVersion(CompensationDTO compensation);
+
+    /**
+     * Saves the compensations by compensationId as the next version of the stored ones, like
+     * {@link #saveNextVersion(CompensationDTO)}, with a single unordered bulk write, so a failing compensation does not
+     * stop the others from being written.
+     *
+     * @param compensations The compensations to write, with distinct compensationIds.
+     * @return The error message of every compensation that failed to be written, by index.
+     */
+    Map<Integer, String> bulkSave(List<CompensationDTO> compensations);
+
+}
@@ -0,0 +1,75 @@
+package com.mindex.challenge.dao;
+
+import com.mindex.challenge.data.CompensationDTO;
+import com.mongodb.BulkWriteError;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * Implementation of {@link CompensationRepositoryCustom}, picked up by Spring Data through the Impl suffix.
+ */
+public class CompensationRepositoryImpl implements CompensationRepositoryCustom {
+
+    private static final int DUPLICATE_KEY_ERROR = 11000;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Override
+    public boolean saveNextVersion(CompensationDTO compensation) {
+        FindAndReplaceOptions options = FindAndReplaceOptions.options().returnNew();
+        if (compensation.getVersion() == 1) {
+            options.upsert();
+        }
+        try {
+            return mongoTemplate.findAndReplace(previousVersionQuery(compensation), compensation, options) != null;
+        } catch (DuplicateKeyException exception) {
+            // The upsert found no compensation, but one was saved in the meantime.
+            return false;
+        }
+    }
+
+    @Override
+    public Map<Integer, String> bulkSave(List<CompensationDTO> compensations) {
+        Map<Integer, String> errors = new HashMap<>();
+        if (compensations.isEmpty()) {
+            return errors;
+        }
+
+        BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, CompensationDTO.class);
+        for (CompensationDTO compensation : compensations) {
+            // A compensation that was changed in the meantime does not match, so the upsert fails with a duplicate key.
+            bulkOperations.replaceOne(previousVersionQuery(compensation), compensation, FindAndReplaceOptions.options().upsert());
+        }
+
+        try {
+            bulkOperations.execute();
+        } catch (BulkOperationException exception) {
+            for (BulkWriteError error : exception.getErrors()) {
+                errors.put(error.getIndex(), error.getCode() == DUPLICATE_KEY_ERROR
+                        ? "Compensation was changed concurrently: " + compensations.get(error.getIndex()).getCompensationId() : error.getMessage());
+            }
+        }
+        return errors;
+    }
+
+    /**
+     * @return The query for the stored compensation the given one is the next version of.
+     */
+    private static Query previousVersionQuery(CompensationDTO compensation) {
+        long version = compensation.getVersion();
+        return query(where("compensationId").is(compensation.getCompensationId()).and("version").is(version == 1 ? null : version - 1));
+    }
+}
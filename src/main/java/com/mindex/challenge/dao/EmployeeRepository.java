@@ -4,7 +4,15 @@ import com.mindex.challenge.data.Employee;
 import org.springframework.stereotype.Repository;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
+import java.util.stream.Stream;
+
 @Repository
-public interface EmployeeRepository extends MongoRepository<Employee, String> {
+public interface EmployeeRepository extends MongoRepository<Employee, String>, EmployeeRepositoryCustom {
     Employee findByEmployeeId(String employeeId);
+
+    /**
+     * Streams all the employees from a database cursor, so the collection is never loaded into memory at once. The
+     * stream must be closed to release the cursor.
+     */
+    Stream<Employee> streamAllBy();
 }
@@ -0,0 +1,62 @@
+package com.mindex.challenge.dao;
+
+import com.mindex.challenge.data.Employee;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Queries on the employee collection that cannot be derived from method names.
+ */
+public interface EmployeeRepositoryCustom {
+
+    /**
+     * Loads the given employees and everybody under them in the org chart. Each level of the org chart is loaded with
+     * a single employeeId $in query, so the number of round trips scales with the depth of the org chart rather than
+     * the headcount. Direct reports that do not exist are left out and every employee is loaded at most once, even if
+     * the direct reports contain overlaps or cycles.
+     *
+     * @param employeeIds The employeeIds at the top of the subtrees.
+     * @return All the employees found in the subtrees, including the top ones.
+     */
+    List<Employee> findSubtrees(Collection<String> employeeIds);
+
+    /**
+     * Saves the employee only if it is the next version of the stored one, atomically with the check: the stored
+     * employee must have the version before the one of the given employee, or no version if that is 1, and an employee
+     * of version 1 is inserted if none is stored. This way two writers that read the same version cannot both save the
+     * next one.
+     *
+     * @param employee The employee to save, with its version already bumped.
+     * @return Whether the employee was saved, false if the stored one was changed in the meantime.
+     */
+    boolean saveNextVersion(Employee employee);
+
+    /**
+     * Writes the employees with a single unordered bulk write, so a failing employee does not stop the others from
+     * being written.
+     *
+     * @param employees The employees to write.
+     * @param inserts The indexes of the employees to insert. The others are saved as the next version of the stored
+     * employee, like {@link #saveNextVersion(Employee)}, and fail if it was changed in the meantime.
+     * @return The error message of every employee that failed to be written, by index.
+     */
+    Map<Integer, String> bulkSave(List<Employee> employees, BitSet inserts);
+
+    /**
+     * Finds the next employees in employeeId order after the given one, with a range query on the employeeId index
+     * instead of skipping the earlier ones, so a deep page costs the same as the first one. The department and position
+     * filters are backed by compound indexes that end with the employeeId, so they are range queries as well.
+     *
+     * @param employeeIds Only look at these employees, or null to look at all of them.
+     * @param after The last employeeId of the previous page, or null to start from the first employee.
+     * @param department Only employees of this department, or null for any.
+     * @param position Only employees with this position, or null for any.
+     * @param limit The maximum number of employees to find.
+     * @return The employees found, in employeeId order.
+     */
+    List<Employee> findPage(Collection<String> employeeIds, String after, String department, String position, int limit);
+
+}
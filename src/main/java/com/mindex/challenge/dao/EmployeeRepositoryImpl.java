@@ -0,0 +1,150 @@
+package com.mindex.challenge.dao;
+
+import com.mindex.challenge.data.Employee;
+import com.mongodb.BulkWriteError;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * Implementation of {@link EmployeeRepositoryCustom}, picked up by Spring Data through the Impl suffix.
+ */
+public class EmployeeRepositoryImpl implements EmployeeRepositoryCustom {
+
+    // Keeps a single $in query well below the maximum BSON document size for wide levels.
+    private static final int MAX_IN_SIZE = 10_000;
+
+    private static final int DUPLICATE_KEY_ERROR = 11000;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Override
+    public List<Employee> findSubtrees(Collection<String> employeeIds) {
+        List<Employee> subtrees = new ArrayList<>();
+        // Every employeeId that has been queried for, so overlaps and cycles are only ever loaded once.
+        Set<String> requested = new HashSet<>(employeeIds);
+        List<String> level = new ArrayList<>(requested);
+
+        while (!level.isEmpty()) {
+            List<String> nextLevel = new ArrayList<>();
+            for (int from = 0; from < level.size(); from += MAX_IN_SIZE) {
+                List<String> batch = level.subList(from, Math.min(level.size(), from + MAX_IN_SIZE));
+                for (Employee employee : mongoTemplate.find(query(where("employeeId").in(batch)), Employee.class)) {
+                    subtrees.add(employee);
+                    if (employee.getDirectReports() != null) {
+                        for (Employee directReport : employee.getDirectReports()) {
+                            if (directReport != null && directReport.getEmployeeId() != null && requested.add(directReport.getEmployeeId())) {
+                                nextLevel.add(directReport.getEmployeeId());
+                            }
+                        }
+                    }
+                }
+            }
+            level = nextLevel;
+        }
+
+        return subtrees;
+    }
+
+    @Override
+    public boolean saveNextVersion(Employee employee) {
+        FindAndReplaceOptions options = FindAndReplaceOptions.options().returnNew();
+        if (employee.getVersion() == 1) {
+            options.upsert();
+        }
+        try {
+            return mongoTemplate.findAndReplace(previousVersionQuery(employee), employee, options) != null;
+        } catch (DuplicateKeyException exception) {
+            // The upsert found no employee without a version, but there is one with a version.
+            return false;
+        }
+    }
+
+    @Override
+    public Map<Integer, String> bulkSave(List<Employee> employees, BitSet inserts) {
+        Map<Integer, String> errors = new HashMap<>();
+        if (employees.isEmpty()) {
+            return errors;
+        }
+
+        BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Employee.class);
+        for (int index = 0; index < employees.size(); index++) {
+            Employee employee = employees.get(index);
+            if (inserts.get(index)) {
+                bulkOperations.insert(employee);
+            } else {
+                // An employee that was changed in the meantime does not match, so the upsert fails with a duplicate key.
+                bulkOperations.replaceOne(previousVersionQuery(employee), employee, FindAndReplaceOptions.options().upsert());
+            }
+        }
+
+        try {
+            bulkOperations.execute();
+        } catch (BulkOperationException exception) {
+            for (BulkWriteError error : exception.getErrors()) {
+                errors.put(error.getIndex(), !inserts.get(error.getIndex()) && error.getCode() == DUPLICATE_KEY_ERROR
+                        ? "Employee was changed concurrently: " + employees.get(error.getIndex()).getEmployeeId() : error.getMessage());
+            }
+        }
+        return errors;
+    }
+
+    @Override
+    public List<Employee> findPage(Collection<String> employeeIds, String after, String department, String position, int limit) {
+        if (employeeIds == null) {
+            return mongoTemplate.find(pageQuery(null, after, department, position, limit), Employee.class);
+        }
+
+        // The employeeIds are queried in order, one $in batch at a time, until the page is full.
+        List<String> sortedIds = new ArrayList<>(new TreeSet<>(employeeIds).tailSet(after == null ? "" : after, after == null));
+        List<Employee> page = new ArrayList<>();
+        for (int from = 0; from < sortedIds.size() && page.size() < limit; from += MAX_IN_SIZE) {
+            List<String> batch = sortedIds.subList(from, Math.min(sortedIds.size(), from + MAX_IN_SIZE));
+            page.addAll(mongoTemplate.find(pageQuery(batch, null, department, position, limit - page.size()), Employee.class));
+        }
+        return page;
+    }
+
+    /**
+     * @return The query for the stored employee the given one is the next version of.
+     */
+    private static Query previousVersionQuery(Employee employee) {
+        long version = employee.getVersion();
+        return query(where("employeeId").is(employee.getEmployeeId()).and("version").is(version == 1 ? null : version - 1));
+    }
+
+    private static Query pageQuery(List<String> employeeIds, String after, String department, String position, int limit) {
+        Query query = new Query();
+        if (employeeIds != null) {
+            query.addCriteria(where("employeeId").in(employeeIds));
+        } else if (after != null) {
+            query.addCriteria(where("employeeId").gt(after));
+        }
+        if (department != null) {
+            query.addCriteria(where("department").is(department));
+        }
+        if (position != null) {
+            query.addCriteria(where("position").is(position));
+        }
+        return query.with(Sort.by("employeeId")).limit(limit);
+    }
+}
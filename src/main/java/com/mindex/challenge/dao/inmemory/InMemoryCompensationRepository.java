@@ -0,0 +1,113 @@
+package com.mindex.challenge.dao.inmemory;
+
+import com.mindex.challenge.dao.CompensationRepository;
+import com.mindex.challenge.data.CompensationDTO;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Stream;
+
+/**
+ * Keeps a timeline of compensations sorted by effective date per employee next to the compensations by id, the
+ * in-memory counterpart of the employeeId and effectiveDate compound index.
+ */
+@Repository
+@Profile("inmemory")
+public class InMemoryCompensationRepository extends InMemoryRepository<CompensationDTO, String> implements CompensationRepository {
+
+    private final ConcurrentHashMap<String, ConcurrentSkipListMap<LocalDate, CompensationDTO>> timelines = new ConcurrentHashMap<>();
+
+    @Override
+    public CompensationDTO findFirstByEmployeeIdAndEffectiveDateLessThanEqualOrderByEffectiveDateDesc(String employeeId, LocalDate asOf) {
+        NavigableMap<LocalDate, CompensationDTO> timeline = timelines.get(employeeId);
+        Map.Entry<LocalDate, CompensationDTO> inEffect = timeline == null ? null : timeline.floorEntry(asOf);
+        return inEffect == null ? null : copy(inEffect.getValue());
+    }
+
+    @Override
+    public List<CompensationDTO> findByEmployeeIdOrderByEffectiveDateAsc(String employeeId) {
+        NavigableMap<LocalDate, CompensationDTO> timeline = timelines.get(employeeId);
+        return timeline == null ? new ArrayList<>() : copies(timeline.values());
+    }
+
+    @Override
+    public List<CompensationDTO> findByEmployeeIdInAndEffectiveDateLessThanEqual(Collection<String> employeeIds, LocalDate asOf) {
+        List<CompensationDTO> found = new ArrayList<>();
+        for (String employeeId : employeeIds) {
+            NavigableMap<LocalDate, CompensationDTO> timeline = timelines.get(employeeId);
+            if (timeline != null) {
+                found.addAll(copies(timeline.headMap(asOf, true).values()));
+            }
+        }
+        return found;
+    }
+
+    @Override
+    public Stream<CompensationDTO> streamAllBy() {
+        return documents.values().stream().map(this::copy);
+    }
+
+    @Override
+    public boolean saveNextVersion(CompensationDTO compensation) {
+        long version = compensation.getVersion();
+        return saveIf(compensation, stored -> stored == null ? version == 1 : stored.getVersion() == version - 1);
+    }
+
+    @Override
+    public Map<Integer, String> bulkSave(List<CompensationDTO> compensations) {
+        Map<Integer, String> errors = new HashMap<>();
+        for (int index = 0; index < compensations.size(); index++) {
+            if (!saveNextVersion(compensations.get(index))) {
+                errors.put(index, "Compensation was changed concurrently: " + compensations.get(index).getCompensationId());
+            }
+        }
+        return errors;
+    }
+
+    @Override
+    protected void reindex(CompensationDTO previous, CompensationDTO current) {
+        if (previous != null) {
+            NavigableMap<LocalDate, CompensationDTO> timeline = timelines.get(previous.getEmployeeId());
+            if (timeline != null) {
+                timeline.remove(previous.getEffectiveDate(), previous);
+            }
+        }
+        if (current != null) {
+            timelines.computeIfAbsent(current.getEmployeeId(), employeeId -> new ConcurrentSkipListMap<>())
+                    .put(current.getEffectiveDate(), current);
+        }
+    }
+
+    @Override
+    protected String idOf(CompensationDTO compensationDTO) {
+        return compensationDTO.getCompensationId();
+    }
+
+    @Override
+    protected CompensationDTO copy(CompensationDTO compensationDTO) {
+        CompensationDTO copy = new CompensationDTO();
+        copy.setCompensationId(compensationDTO.getCompensationId());
+        copy.setEmployeeId(compensationDTO.getEmployeeId());
+        copy.setSalary(compensationDTO.getSalary());
+        copy.setEffectiveDate(compensationDTO.getEffectiveDate());
+        copy.setVersion(compensationDTO.getVersion());
+        return copy;
+    }
+
+    private List<CompensationDTO> copies(Collection<CompensationDTO> compensationDTOs) {
+        List<CompensationDTO> copies = new ArrayList<>(compensationDTOs.size());
+        for (CompensationDTO compensationDTO : compensationDTOs) {
+            copies.add(copy(compensationDTO));
+        }
+        return copies;
+    }
+}
@@ -0,0 +1,185 @@
+package com.mindex.challenge.dao.inmemory;
+
+import com.mindex.challenge.dao.EmployeeRepository;
+import com.mindex.challenge.data.Employee;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.stream.Stream;
+
+/**
+ * Keeps the employeeIds sorted, overall and per department and position, next to the employees by id, the in-memory
+ * counterparts of the employeeId index and the department and position compound indexes.
+ */
+@Repository
+@Profile("inmemory")
+public class InMemoryEmployeeRepository extends InMemoryRepository<Employee, String> implements EmployeeRepository {
+
+    private final ConcurrentSkipListSet<String> employeeIds = new ConcurrentSkipListSet<>();
+
+    private final ConcurrentHashMap<String, ConcurrentSkipListSet<String>> employeeIdsByDepartment = new ConcurrentHashMap<>();
+
+    private final ConcurrentHashMap<String, ConcurrentSkipListSet<String>> employeeIdsByPosition = new ConcurrentHashMap<>();
+
+    @Override
+    public Employee findByEmployeeId(String employeeId) {
+        Employee employee = documents.get(employeeId);
+        return employee == null ? null : copy(employee);
+    }
+
+    @Override
+    public Stream<Employee> streamAllBy() {
+        return documents.values().stream().map(this::copy);
+    }
+
+    /**
+     * Walks the subtrees level by level like the Mongo implementation, with a map lookup per employee instead of a
+     * query per level.
+     */
+    @Override
+    public List<Employee> findSubtrees(Collection<String> employeeIds) {
+        List<Employee> subtrees = new ArrayList<>();
+        Set<String> requested = new HashSet<>(employeeIds);
+        List<String> level = new ArrayList<>(requested);
+
+        while (!level.isEmpty()) {
+            List<String> nextLevel = new ArrayList<>();
+            for (String employeeId : level) {
+                Employee employee = findByEmployeeId(employeeId);
+                if (employee == null) {
+                    continue;
+                }
+                subtrees.add(employee);
+                if (employee.getDirectReports() != null) {
+                    for (Employee directReport : employee.getDirectReports()) {
+                        if (directReport != null && directReport.getEmployeeId() != null && requested.add(directReport.getEmployeeId())) {
+                            nextLevel.add(directReport.getEmployeeId());
+                        }
+                    }
+                }
+            }
+            level = nextLevel;
+        }
+
+        return subtrees;
+    }
+
+    @Override
+    public boolean saveNextVersion(Employee employee) {
+        long version = employee.getVersion();
+        return saveIf(employee, stored -> stored == null || stored.getVersion() == null
+                ? version == 1 : stored.getVersion() == version - 1);
+    }
+
+    @Override
+    public Map<Integer, String> bulkSave(List<Employee> employees, BitSet inserts) {
+        Map<Integer, String> errors = new HashMap<>();
+        for (int index = 0; index < employees.size(); index++) {
+            if (!inserts.get(index)) {
+                if (!saveNextVersion(employees.get(index))) {
+                    errors.put(index, "Employee was changed concurrently: " + employees.get(index).getEmployeeId());
+                }
+                continue;
+            }
+            try {
+                insert(employees.get(index));
+            } catch (DuplicateKeyException exception) {
+                errors.put(index, exception.getMessage());
+            }
+        }
+        return errors;
+    }
+
+    @Override
+    public List<Employee> findPage(Collection<String> employeeIds, String after, String department, String position, int limit) {
+        NavigableSet<String> candidates;
+        if (employeeIds != null) {
+            candidates = new TreeSet<>(employeeIds);
+        } else if (department != null) {
+            candidates = employeeIdsByDepartment.getOrDefault(department, new ConcurrentSkipListSet<>());
+        } else if (position != null) {
+            candidates = employeeIdsByPosition.getOrDefault(position, new ConcurrentSkipListSet<>());
+        } else {
+            candidates = this.employeeIds;
+        }
+
+        List<Employee> page = new ArrayList<>();
+        for (String employeeId : after == null ? candidates : candidates.tailSet(after, false)) {
+            if (page.size() == limit) {
+                break;
+            }
+            Employee employee = documents.get(employeeId);
+            if (employee != null && (department == null || department.equals(employee.getDepartment()))
+                    && (position == null || position.equals(employee.getPosition()))) {
+                page.add(copy(employee));
+            }
+        }
+        return page;
+    }
+
+    @Override
+    protected void reindex(Employee previous, Employee current) {
+        if (previous != null) {
+            unindex(employeeIdsByDepartment, previous.getDepartment(), previous.getEmployeeId());
+            unindex(employeeIdsByPosition, previous.getPosition(), previous.getEmployeeId());
+        }
+        if (current == null) {
+            employeeIds.remove(previous.getEmployeeId());
+            return;
+        }
+        employeeIds.add(current.getEmployeeId());
+        index(employeeIdsByDepartment, current.getDepartment(), current.getEmployeeId());
+        index(employeeIdsByPosition, current.getPosition(), current.getEmployeeId());
+    }
+
+    private static void index(ConcurrentHashMap<String, ConcurrentSkipListSet<String>> index, String value, String employeeId) {
+        if (value != null) {
+            index.computeIfAbsent(value, key -> new ConcurrentSkipListSet<>()).add(employeeId);
+        }
+    }
+
+    private static void unindex(ConcurrentHashMap<String, ConcurrentSkipListSet<String>> index, String value, String employeeId) {
+        if (value != null) {
+            Set<String> employeeIds = index.get(value);
+            if (employeeIds != null) {
+                employeeIds.remove(employeeId);
+            }
+        }
+    }
+
+    @Override
+    protected String idOf(Employee employee) {
+        return employee.getEmployeeId();
+    }
+
+    @Override
+    protected Employee copy(Employee employee) {
+        Employee copy = new Employee();
+        copy.setEmployeeId(employee.getEmployeeId());
+        copy.setFirstName(employee.getFirstName());
+        copy.setLastName(employee.getLastName());
+        copy.setPosition(employee.getPosition());
+        copy.setDepartment(employee.getDepartment());
+        copy.setVersion(employee.getVersion());
+        if (employee.getDirectReports() != null) {
+            copy.setDirectReports(new ArrayList<>(employee.getDirectReports().size()));
+            for (Employee directReport : employee.getDirectReports()) {
+                copy.getDirectReports().add(directReport == null ? null : copy(directReport));
+            }
+        }
+        return copy;
+    }
+}
@@ -0,0 +1,239 @@
+package com.mindex.challenge.dao.inmemory;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+
+/**
+ * Base of the repositories of the inmemory profile, which keep the documents in a concurrent hash map by id inside the
+ * application instead of sending them to a database.
+ *
+ * Documents are mutable, so copies are stored and handed out, just like a database would. Subclasses keep their
+ * secondary indexes up to date in {@link #reindex}, which is called atomically with every change of a document. Query by
+ * example and sorting are not supported, since nothing in the application uses them.
+ */
+public abstract class InMemoryRepository<T, ID> implements MongoRepository<T, ID> {
+
+    protected final ConcurrentHashMap<ID, T> documents = new ConcurrentHashMap<>();
+
+    /**
+     * @return The id of the document, which must be set.
+     */
+    protected abstract ID idOf(T document);
+
+    protected abstract T copy(T document);
+
+    /**
+     * Called while the document with the id is locked, whenever it is stored, replaced or removed.
+     *
+     * @param previous The document before the change, or null if it did not exist.
+     * @param current The document after the change, or null if it was removed.
+     */
+    protected void reindex(T previous, T current) {
+    }
+
+    @Override
+    public <S extends T> S save(S document) {
+        ID id = requireId(document);
+        T stored = copy(document);
+        documents.compute(id, (key, previous) -> {
+            reindex(previous, stored);
+            return stored;
+        });
+        return document;
+    }
+
+    /**
+     * Saves the document only if the stored one passes the condition, atomically with the check, like a conditional
+     * write to a database.
+     *
+     * @param condition Checks the stored document, or null if there is none.
+     * @return Whether the document was saved.
+     */
+    protected boolean saveIf(T document, Predicate<T> condition) {
+        ID id = requireId(document);
+        T stored = copy(document);
+        AtomicBoolean saved = new AtomicBoolean();
+        documents.compute(id, (key, previous) -> {
+            if (!condition.test(previous)) {
+                return previous;
+            }
+            reindex(previous, stored);
+            saved.set(true);
+            return stored;
+        });
+        return saved.get();
+    }
+
+    @Override
+    public <S extends T> List<S> saveAll(Iterable<S> documents) {
+        List<S> saved = new ArrayList<>();
+        for (S document : documents) {
+            saved.add(save(document));
+        }
+        return saved;
+    }
+
+    @Override
+    public <S extends T> S insert(S document) {
+        ID id = requireId(document);
+        T stored = copy(document);
+        documents.compute(id, (key, previous) -> {
+            if (previous != null) {
+                throw new DuplicateKeyException("Duplicate key: " + id);
+            }
+            reindex(null, stored);
+            return stored;
+        });
+        return document;
+    }
+
+    /**
+     * Inserts the documents in order and stops at the first one that fails, like an ordered insert.
+     */
+    @Override
+    public <S extends T> List<S> insert(Iterable<S> documents) {
+        List<S> inserted = new ArrayList<>();
+        for (S document : documents) {
+            inserted.add(insert(document));
+        }
+        return inserted;
+    }
+
+    @Override
+    public Optional<T> findById(ID id) {
+        return Optional.ofNullable(documents.get(id)).map(this::copy);
+    }
+
+    @Override
+    public boolean existsById(ID id) {
+        return documents.containsKey(id);
+    }
+
+    @Override
+    public List<T> findAll() {
+        List<T> all = new ArrayList<>(documents.size());
+        for (T document : documents.values()) {
+            all.add(copy(document));
+        }
+        return all;
+    }
+
+    @Override
+    public Iterable<T> findAllById(Iterable<ID> ids) {
+        List<T> found = new ArrayList<>();
+        for (ID id : ids) {
+            findById(id).ifPresent(found::add);
+        }
+        return found;
+    }
+
+    @Override
+    public long count() {
+        return documents.size();
+    }
+
+    @Override
+    public void deleteById(ID id) {
+        documents.computeIfPresent(id, (key, previous) -> {
+            reindex(previous, null);
+            return null;
+        });
+    }
+
+    @Override
+    public void delete(T document) {
+        deleteById(requireId(document));
+    }
+
+    @Override
+    public void deleteAll(Iterable<? extends T> documents) {
+        for (T document : documents) {
+            delete(document);
+        }
+    }
+
+    @Override
+    public void deleteAll() {
+        for (ID id : documents.keySet()) {
+            deleteById(id);
+        }
+    }
+
+    @Override
+    public List<T> findAll(Sort sort) {
+        requireUnsorted(sort);
+        return findAll();
+    }
+
+    @Override
+    public Page<T> findAll(Pageable pageable) {
+        requireUnsorted(pageable.getSort());
+        List<T> all = findAll();
+        if (pageable.isUnpaged()) {
+            return new PageImpl<>(all, pageable, all.size());
+        }
+        int from = (int) Math.min(all.size(), pageable.getOffset());
+        int to = Math.min(all.size(), from + pageable.getPageSize());
+        return new PageImpl<>(all.subList(from, to), pageable, all.size());
+    }
+
+    @Override
+    public <S extends T> Optional<S> findOne(Example<S> example) {
+        throw queryByExampleNotSupported();
+    }
+
+    @Override
+    public <S extends T> List<S> findAll(Example<S> example) {
+        throw queryByExampleNotSupported();
+    }
+
+    @Override
+    public <S extends T> List<S> findAll(Example<S> example, Sort sort) {
+        throw queryByExampleNotSupported();
+    }
+
+    @Override
+    public <S extends T> Page<S> findAll(Example<S> example, Pageable pageable) {
+        throw queryByExampleNotSupported();
+    }
+
+    @Override
+    public <S extends T> long count(Example<S> example) {
+        throw queryByExampleNotSupported();
+    }
+
+    @Override
+    public <S extends T> boolean exists(Example<S> example) {
+        throw queryByExampleNotSupported();
+    }
+
+    private ID requireId(T document) {
+        ID id = idOf(document);
+        if (id == null) {
+            throw new IllegalArgumentException("Documents stored in memory must have an id: " + document);
+        }
+        return id;
+    }
+
+    private static void requireUnsorted(Sort sort) {
+        if (sort.isSorted()) {
+            throw new UnsupportedOperationException("Sorting is not supported by the in-memory repositories: " + sort);
+        }
+    }
+
+    private static UnsupportedOperationException queryByExampleNotSupported() {
+        return new UnsupportedOperationException("Query by example is not supported by the in-memory repositories");
+    }
+}
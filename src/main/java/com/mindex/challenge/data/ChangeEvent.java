@@ -0,0 +1,119 @@
+package com.mindex.challenge.data;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+/**
+ * A create or update of an employee or a compensation, as published on the change feed.
+ */
+public class ChangeEvent {
+
+    public enum Entity {
+        EMPLOYEE, COMPENSATION
+    }
+
+    private long sequence;
+
+    private Entity entity;
+
+    private String id;
+
+    private String employeeId;
+
+    private String effectiveDate;
+
+    private long version;
+
+    private List<String> changedFields;
+
+    public ChangeEvent() { }
+
+    public static ChangeEvent of(Entity entity, String id, String employeeId, String effectiveDate, long version, List<String> changedFields) {
+        ChangeEvent event = new ChangeEvent();
+        event.setEntity(entity);
+        event.setId(id);
+        event.setEmployeeId(employeeId);
+        event.setEffectiveDate(effectiveDate);
+        event.setVersion(version);
+        event.setChangedFields(changedFields);
+        return event;
+    }
+
+    /**
+     * @return The position of the event in the change feed. The positions of a run of the application start from the
+     * time it started in microseconds, so they are larger than those of any earlier run.
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
+    public Entity getEntity() {
+        return entity;
+    }
+
+    public void setEntity(Entity entity) {
+        this.entity = entity;
+    }
+
+    /**
+     * @return The employeeId of the employee, or the compensationId of the compensation, which is unique per employee
+     * and effective date since every effective date of an employee has its own versions.
+     */
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    /**
+     * @return The employeeId of the employee, or of the employee the compensation belongs to.
+     */
+    public String getEmployeeId() {
+        return employeeId;
+    }
+
+    public void setEmployeeId(String employeeId) {
+        this.employeeId = employeeId;
+    }
+
+    /**
+     * @return The effective date of the compensation, as YYYY-MM-DD. Left out of the events of employees.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public String getEffectiveDate() {
+        return effectiveDate;
+    }
+
+    public void setEffectiveDate(String effectiveDate) {
+        this.effectiveDate = effectiveDate;
+    }
+
+    /**
+     * @return The version of the employee or of the compensation for its effective date after the change.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    /**
+     * @return The fields that were set by a create or differ from before an update.
+     */
+    public List<String> getChangedFields() {
+        return changedFields;
+    }
+
+    public void setChangedFields(List<String> changedFields) {
+        this.changedFields = changedFields;
+    }
+}
@@ -11,6 +11,8 @@ public class Compensation {
 
     private String effectiveDate;
 
+    private Long version;
+
     public Compensation() { }
 
     public Employee getEmployee() {
@@ -37,4 +39,15 @@ public class Compensation {
         this.effectiveDate = effectiveDate;
     }
 
+    /**
+     * @return The version of the saved compensation. Ignored on requests.
+     */
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
 }
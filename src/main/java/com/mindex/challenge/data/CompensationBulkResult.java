@@ -0,0 +1,89 @@
+package com.mindex.challenge.data;
+
+/**
+ * The outcome of a single row in a bulk compensation upload.
+ */
+public class CompensationBulkResult {
+
+    public enum Status {
+        CREATED, UPDATED, FAILED
+    }
+
+    private int index;
+
+    private String employeeId;
+
+    private Status status;
+
+    private Long version;
+
+    private String error;
+
+    public CompensationBulkResult() { }
+
+    public static CompensationBulkResult of(int index, String employeeId, Status status, Long version, String error) {
+        CompensationBulkResult result = new CompensationBulkResult();
+        result.setIndex(index);
+        result.setEmployeeId(employeeId);
+        result.setStatus(status);
+        result.setVersion(version);
+        result.setError(error);
+        return result;
+    }
+
+    /**
+     * @return The position of the row in the upload, starting at 0 and not counting the CSV header.
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    /**
+     * @return The employeeId of the row, or null if the row could not be read.
+     */
+    public String getEmployeeId() {
+        return employeeId;
+    }
+
+    public void setEmployeeId(String employeeId) {
+        this.employeeId = employeeId;
+    }
+
+    /**
+     * @return CREATED for a new effective date, UPDATED when the compensation with the same effective date was
+     * replaced, FAILED otherwise.
+     */
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    /**
+     * @return The version of the saved compensation, or null if the row failed.
+     */
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    /**
+     * @return Why the row failed, or null if it did not.
+     */
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
@@ -0,0 +1,48 @@
+package com.mindex.challenge.data;
+
+/**
+ * A single compensation in a bulk upload, as read from a JSON object or a CSV line. The values are validated like the
+ * ones of a single compensation.
+ */
+public class CompensationBulkRow {
+
+    private String employeeId;
+
+    private String salary;
+
+    private String effectiveDate;
+
+    public CompensationBulkRow() { }
+
+    public static CompensationBulkRow of(String employeeId, String salary, String effectiveDate) {
+        CompensationBulkRow row = new CompensationBulkRow();
+        row.setEmployeeId(employeeId);
+        row.setSalary(salary);
+        row.setEffectiveDate(effectiveDate);
+        return row;
+    }
+
+    public String getEmployeeId() {
+        return employeeId;
+    }
+
+    public void setEmployeeId(String employeeId) {
+        this.employeeId = employeeId;
+    }
+
+    public String getSalary() {
+        return salary;
+    }
+
+    public void setSalary(String salary) {
+        this.salary = salary;
+    }
+
+    public String getEffectiveDate() {
+        return effectiveDate;
+    }
+
+    public void setEffectiveDate(String effectiveDate) {
+        this.effectiveDate = effectiveDate;
+    }
+}
@@ -1,24 +1,50 @@
 package com.mindex.challenge.data;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 
 /**
- * Data transfer object to save compensation info for an employee.
+ * Data transfer object to save compensation info for an employee. Every employee has a timeline of compensations, one
+ * per effective date. The compound index, created because the class is annotated as a document, serves the one in
+ * effect on a given date, the history of an employee and the payroll lookups by employeeId from the index in effective
+ * date order, without scanning or sorting the collection.
  */
+@Document
+@CompoundIndex(name = "employeeId_effectiveDate", def = "{'employeeId': 1, 'effectiveDate': -1}")
 public class CompensationDTO {
 
+    /**
+     * The employeeId and effective date, so saving a compensation with the same effective date replaces it.
+     */
     @Id
+    private String compensationId;
+
     private String employeeId;
 
     private BigDecimal salary;
 
     private LocalDate effectiveDate;
 
+    private long version;
+
     public CompensationDTO() { }
 
+    public static String compensationId(String employeeId, LocalDate effectiveDate) {
+        return employeeId + "_" + effectiveDate;
+    }
+
+    public String getCompensationId() {
+        return compensationId;
+    }
+
+    public void setCompensationId(String compensationId) {
+        this.compensationId = compensationId;
+    }
+
     public String getEmployeeId() {
         return employeeId;
     }
@@ -43,4 +69,16 @@ public class CompensationDTO {
         this.effectiveDate = effectiveDate;
     }
 
+    /**
+     * @return The number of times the compensation has been written. Saving a compensation with the same effective date
+     * bumps it.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
 }
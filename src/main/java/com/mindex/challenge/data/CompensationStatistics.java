@@ -0,0 +1,86 @@
+package com.mindex.challenge.data;
+
+import java.util.Map;
+
+/**
+ * The distributions of the salaries in effect on a date, overall and by department and position. When the statistics
+ * are of a single department, the positions are the positions within that department.
+ */
+public class CompensationStatistics {
+
+    private String asOf;
+
+    private String department;
+
+    private double relativeAccuracy;
+
+    private SalaryDistribution total;
+
+    private Map<String, SalaryDistribution> departments;
+
+    private Map<String, SalaryDistribution> positions;
+
+    public CompensationStatistics() { }
+
+    public String getAsOf() {
+        return asOf;
+    }
+
+    public void setAsOf(String asOf) {
+        this.asOf = asOf;
+    }
+
+    /**
+     * @return The department the statistics are limited to, or null if they are of every department.
+     */
+    public String getDepartment() {
+        return department;
+    }
+
+    public void setDepartment(String department) {
+        this.department = department;
+    }
+
+    /**
+     * @return The largest relative error of the estimated salaries.
+     */
+    public double getRelativeAccuracy() {
+        return relativeAccuracy;
+    }
+
+    public void setRelativeAccuracy(double relativeAccuracy) {
+        this.relativeAccuracy = relativeAccuracy;
+    }
+
+    public SalaryDistribution getTotal() {
+        return total;
+    }
+
+    public void setTotal(SalaryDistribution total) {
+        this.total = total;
+    }
+
+    /**
+     * @return The distributions by department, in department order, with the employees without a department under
+     * {@link Employee#UNASSIGNED}.
+     */
+    public Map<String, SalaryDistribution> getDepartments() {
+        return departments;
+    }
+
+    public void setDepartments(Map<String, SalaryDistribution> departments) {
+        this.departments = departments;
+    }
+
+    /**
+     * @return The distributions by position, in position order, with the employees without a position under
+     * {@link Employee#UNASSIGNED}.
+     */
+    public Map<String, SalaryDistribution> getPositions() {
+        return positions;
+    }
+
+    public void setPositions(Map<String, SalaryDistribution> positions) {
+        this.positions = positions;
+    }
+}
@@ -1,10 +1,28 @@
 package com.mindex.challenge.data;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.util.List;
 
+/**
+ * The compound indexes back the department and position filters of the employee listing, which pages in employeeId
+ * order. They are only created for a class annotated as a document.
+ */
+@Document
+@CompoundIndexes({
+        @CompoundIndex(name = "department_employeeId", def = "{'department': 1, '_id': 1}"),
+        @CompoundIndex(name = "position_employeeId", def = "{'position': 1, '_id': 1}")
+})
 public class Employee {
+    /**
+     * The group that employees without a department or position are counted in by the payroll roll-up and the salary
+     * statistics.
+     */
+    public static final String UNASSIGNED = "(unassigned)";
+
     @Id
     private String employeeId;
     private String firstName;
@@ -12,6 +30,7 @@ public class Employee {
     private String position;
     private String department;
     private List<Employee> directReports;
+    private Long version;
 
     public Employee() {
     }
@@ -63,4 +82,16 @@ public class Employee {
     public void setDirectReports(List<Employee> directReports) {
         this.directReports = directReports;
     }
+
+    /**
+     * @return The number of times the employee has been written, or null if it has only been loaded from the seed data.
+     * Bumped by the employee service on every create and update.
+     */
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
@@ -0,0 +1,81 @@
+package com.mindex.challenge.data;
+
+/**
+ * The position of one employee in the org chart, as computed by the whole org analytics pass.
+ */
+public class EmployeeAnalytics {
+
+    private String employeeId;
+
+    private int level;
+
+    private int directReports;
+
+    private int numberOfReports;
+
+    private int subtreeDepth;
+
+    public EmployeeAnalytics() { }
+
+    public EmployeeAnalytics(String employeeId, int level, int directReports, int numberOfReports, int subtreeDepth) {
+        this.employeeId = employeeId;
+        this.level = level;
+        this.directReports = directReports;
+        this.numberOfReports = numberOfReports;
+        this.subtreeDepth = subtreeDepth;
+    }
+
+    public String getEmployeeId() {
+        return employeeId;
+    }
+
+    public void setEmployeeId(String employeeId) {
+        this.employeeId = employeeId;
+    }
+
+    /**
+     * @return The number of managers above the employee along the shortest chain, 0 for employees without a manager,
+     * or -1 if the employee can only be reached through a cycle.
+     */
+    public int getLevel() {
+        return level;
+    }
+
+    public void setLevel(int level) {
+        this.level = level;
+    }
+
+    /**
+     * @return The span of control, the number of direct reports that exist.
+     */
+    public int getDirectReports() {
+        return directReports;
+    }
+
+    public void setDirectReports(int directReports) {
+        this.directReports = directReports;
+    }
+
+    /**
+     * @return The headcount below the employee, the number of unique direct or indirect reports.
+     */
+    public int getNumberOfReports() {
+        return numberOfReports;
+    }
+
+    public void setNumberOfReports(int numberOfReports) {
+        this.numberOfReports = numberOfReports;
+    }
+
+    /**
+     * @return The number of levels of reports below the employee.
+     */
+    public int getSubtreeDepth() {
+        return subtreeDepth;
+    }
+
+    public void setSubtreeDepth(int subtreeDepth) {
+        this.subtreeDepth = subtreeDepth;
+    }
+
+}
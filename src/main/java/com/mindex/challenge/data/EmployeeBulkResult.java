@@ -0,0 +1,71 @@
+package com.mindex.challenge.data;
+
+/**
+ * The outcome of a single employee in a bulk create or update request.
+ */
+public class EmployeeBulkResult {
+
+    public enum Status {
+        CREATED, UPDATED, FAILED
+    }
+
+    private int index;
+
+    private String employeeId;
+
+    private Status status;
+
+    private String error;
+
+    public EmployeeBulkResult() { }
+
+    public static EmployeeBulkResult of(int index, String employeeId, Status status, String error) {
+        EmployeeBulkResult result = new EmployeeBulkResult();
+        result.setIndex(index);
+        result.setEmployeeId(employeeId);
+        result.setStatus(status);
+        result.setError(error);
+        return result;
+    }
+
+    /**
+     * @return The position of the employee in the request, starting at 0.
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    /**
+     * @return The assigned employeeId for created employees, or null if the employee could not be read.
+     */
+    public String getEmployeeId() {
+        return employeeId;
+    }
+
+    public void setEmployeeId(String employeeId) {
+        this.employeeId = employeeId;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    /**
+     * @return Why the employee failed, or null if it did not.
+     */
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
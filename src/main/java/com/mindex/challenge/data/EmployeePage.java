@@ -0,0 +1,40 @@
+package com.mindex.challenge.data;
+
+import java.util.List;
+
+/**
+ * One page of an employee listing, in employeeId order.
+ */
+public class EmployeePage {
+
+    private List<Employee> employees;
+
+    private String nextCursor;
+
+    public EmployeePage() { }
+
+    public EmployeePage(List<Employee> employees, String nextCursor) {
+        this.employees = employees;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<Employee> getEmployees() {
+        return employees;
+    }
+
+    public void setEmployees(List<Employee> employees) {
+        this.employees = employees;
+    }
+
+    /**
+     * @return The cursor to request the next page with, or null if this is the last page.
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+}
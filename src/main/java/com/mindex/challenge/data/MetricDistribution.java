@@ -0,0 +1,115 @@
+package com.mindex.challenge.data;
+
+import java.util.Arrays;
+
+/**
+ * Summary of the values of one metric over a group of employees. Percentiles use the nearest rank of the sorted values.
+ */
+public class MetricDistribution {
+
+    private int count;
+
+    private int min;
+
+    private int max;
+
+    private double mean;
+
+    private int p50;
+
+    private int p90;
+
+    private int p99;
+
+    public MetricDistribution() { }
+
+    /**
+     * @param values The values of the group, which are sorted in place.
+     * @return The distribution of the values, or an empty distribution if there are none.
+     */
+    public static MetricDistribution of(int[] values) {
+        MetricDistribution distribution = new MetricDistribution();
+        distribution.setCount(values.length);
+        if (values.length == 0) {
+            return distribution;
+        }
+
+        Arrays.sort(values);
+        long total = 0;
+        for (int value : values) {
+            total += value;
+        }
+        distribution.setMin(values[0]);
+        distribution.setMax(values[values.length - 1]);
+        distribution.setMean((double) total / values.length);
+        distribution.setP50(percentile(values, 50));
+        distribution.setP90(percentile(values, 90));
+        distribution.setP99(percentile(values, 99));
+        return distribution;
+    }
+
+    private static int percentile(int[] sorted, int percentile) {
+        int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+        return sorted[Math.max(rank, 1) - 1];
+    }
+
+    /**
+     * @return The number of employees in the group.
+     */
+    public int getCount() {
+        return count;
+    }
+
+    public void setCount(int count) {
+        this.count = count;
+    }
+
+    public int getMin() {
+        return min;
+    }
+
+    public void setMin(int min) {
+        this.min = min;
+    }
+
+    public int getMax() {
+        return max;
+    }
+
+    public void setMax(int max) {
+        this.max = max;
+    }
+
+    public double getMean() {
+        return mean;
+    }
+
+    public void setMean(double mean) {
+        this.mean = mean;
+    }
+
+    public int getP50() {
+        return p50;
+    }
+
+    public void setP50(int p50) {
+        this.p50 = p50;
+    }
+
+    public int getP90() {
+        return p90;
+    }
+
+    public void setP90(int p90) {
+        this.p90 = p90;
+    }
+
+    public int getP99() {
+        return p99;
+    }
+
+    public void setP99(int p99) {
+        this.p99 = p99;
+    }
+
+}
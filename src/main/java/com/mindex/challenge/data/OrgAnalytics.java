@@ -0,0 +1,86 @@
+package com.mindex.challenge.data;
+
+import java.util.List;
+
+/**
+ * Metrics of the whole org chart. The distributions of span of control, headcount and depth are over managers, the
+ * employees with at least one direct report, and the distribution of levels is over all employees.
+ */
+public class OrgAnalytics {
+
+    private int numberOfEmployees;
+
+    private int numberOfManagers;
+
+    private MetricDistribution span;
+
+    private MetricDistribution numberOfReports;
+
+    private MetricDistribution subtreeDepth;
+
+    private MetricDistribution level;
+
+    private List<EmployeeAnalytics> employees;
+
+    public OrgAnalytics() { }
+
+    public int getNumberOfEmployees() {
+        return numberOfEmployees;
+    }
+
+    public void setNumberOfEmployees(int numberOfEmployees) {
+        this.numberOfEmployees = numberOfEmployees;
+    }
+
+    public int getNumberOfManagers() {
+        return numberOfManagers;
+    }
+
+    public void setNumberOfManagers(int numberOfManagers) {
+        this.numberOfManagers = numberOfManagers;
+    }
+
+    public MetricDistribution getSpan() {
+        return span;
+    }
+
+    public void setSpan(MetricDistribution span) {
+        this.span = span;
+    }
+
+    public MetricDistribution getNumberOfReports() {
+        return numberOfReports;
+    }
+
+    public void setNumberOfReports(MetricDistribution numberOfReports) {
+        this.numberOfReports = numberOfReports;
+    }
+
+    public MetricDistribution getSubtreeDepth() {
+        return subtreeDepth;
+    }
+
+    public void setSubtreeDepth(MetricDistribution subtreeDepth) {
+        this.subtreeDepth = subtreeDepth;
+    }
+
+    public MetricDistribution getLevel() {
+        return level;
+    }
+
+    public void setLevel(MetricDistribution level) {
+        this.level = level;
+    }
+
+    /**
+     * @return The metrics of every employee, or null if they were not requested.
+     */
+    public List<EmployeeAnalytics> getEmployees() {
+        return employees;
+    }
+
+    public void setEmployees(List<EmployeeAnalytics> employees) {
+        this.employees = employees;
+    }
+
+}
@@ -0,0 +1,82 @@
+package com.mindex.challenge.data;
+
+import java.util.Map;
+
+/**
+ * The response object for the payroll roll-up of everybody reporting to an employee, directly or indirectly.
+ */
+public class PayrollRollup {
+
+    private String employeeId;
+
+    private String asOf;
+
+    private int numberOfReports;
+
+    private int reportsWithoutCompensation;
+
+    private PayrollSummary payroll;
+
+    private Map<String, PayrollSummary> departments;
+
+    public PayrollRollup() { }
+
+    public String getEmployeeId() {
+        return employeeId;
+    }
+
+    public void setEmployeeId(String employeeId) {
+        this.employeeId = employeeId;
+    }
+
+    /**
+     * @return The date the compensations were in effect on.
+     */
+    public String getAsOf() {
+        return asOf;
+    }
+
+    public void setAsOf(String asOf) {
+        this.asOf = asOf;
+    }
+
+    public int getNumberOfReports() {
+        return numberOfReports;
+    }
+
+    public void setNumberOfReports(int numberOfReports) {
+        this.numberOfReports = numberOfReports;
+    }
+
+    /**
+     * @return The number of reports that did not have a compensation in effect, which are left out of the payroll.
+     */
+    public int getReportsWithoutCompensation() {
+        return reportsWithoutCompensation;
+    }
+
+    public void setReportsWithoutCompensation(int reportsWithoutCompensation) {
+        this.reportsWithoutCompensation = reportsWithoutCompensation;
+    }
+
+    public PayrollSummary getPayroll() {
+        return payroll;
+    }
+
+    public void setPayroll(PayrollSummary payroll) {
+        this.payroll = payroll;
+    }
+
+    /**
+     * @return The payroll per department of the reports, with the reports without a department under
+     * {@link Employee#UNASSIGNED}, or null if it was not requested.
+     */
+    public Map<String, PayrollSummary> getDepartments() {
+        return departments;
+    }
+
+    public void setDepartments(Map<String, PayrollSummary> departments) {
+        this.departments = departments;
+    }
+
+}
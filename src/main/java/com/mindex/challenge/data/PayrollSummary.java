@@ -0,0 +1,81 @@
+package com.mindex.challenge.data;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Aggregated salaries of a group of employees. Salaries are formatted as strings, the same as in {@link Compensation}.
+ */
+public class PayrollSummary {
+
+    private int count;
+
+    private String totalSalary;
+
+    private String averageSalary;
+
+    private String minSalary;
+
+    private String maxSalary;
+
+    public PayrollSummary() { }
+
+    /**
+     * @return The summary of the given running totals, or an empty summary if count is 0.
+     */
+    public static PayrollSummary of(int count, BigDecimal total, BigDecimal min, BigDecimal max) {
+        PayrollSummary summary = new PayrollSummary();
+        summary.setCount(count);
+        summary.setTotalSalary(total.toString());
+        if (count > 0) {
+            summary.setAverageSalary(total.divide(BigDecimal.valueOf(count), 2, RoundingMode.HALF_UP).toString());
+            summary.setMinSalary(min.toString());
+            summary.setMaxSalary(max.toString());
+        }
+        return summary;
+    }
+
+    /**
+     * @return The number of employees with a compensation in the group.
+     */
+    public int getCount() {
+        return count;
+    }
+
+    public void setCount(int count) {
+        this.count = count;
+    }
+
+    public String getTotalSalary() {
+        return totalSalary;
+    }
+
+    public void setTotalSalary(String totalSalary) {
+        this.totalSalary = totalSalary;
+    }
+
+    public String getAverageSalary() {
+        return averageSalary;
+    }
+
+    public void setAverageSalary(String averageSalary) {
+        this.averageSalary = averageSalary;
+    }
+
+    public String getMinSalary() {
+        return minSalary;
+    }
+
+    public void setMinSalary(String minSalary) {
+        this.minSalary = minSalary;
+    }
+
+    public String getMaxSalary() {
+        return maxSalary;
+    }
+
+    public void setMaxSalary(String maxSalary) {
+        this.maxSalary = maxSalary;
+    }
+
+}
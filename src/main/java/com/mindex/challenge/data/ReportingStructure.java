@@ -1,13 +1,52 @@
 package com.mindex.challenge.data;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 public class ReportingStructure {
 
     private Employee employee;
 
     private int numberOfReports;
 
+    private boolean truncated;
+
+    private String etag;
+
+    private String error;
+
+    /**
+     * How much of each employee in the tree is included in the response.
+     */
+    public enum Fields {
+        /**
+         * Every field of every employee.
+         */
+        ALL,
+        /**
+         * Only the employeeId and directReports of every employee.
+         */
+        IDS,
+        /**
+         * Only the employee itself, without any directReports, and the numberOfReports.
+         */
+        COUNT
+    }
+
     public ReportingStructure() { }
 
+    /**
+     * @return The entry of a batch for an employeeId that does not exist, with only the employeeId and the error.
+     */
+    public static ReportingStructure notFound(String employeeId) {
+        Employee employee = new Employee();
+        employee.setEmployeeId(employeeId);
+        ReportingStructure reportingStructure = new ReportingStructure();
+        reportingStructure.setEmployee(employee);
+        reportingStructure.setError("Invalid employeeId: " + employeeId);
+        return reportingStructure;
+    }
+
     public Employee getEmployee() {
         return employee;
     }
@@ -24,4 +63,40 @@ public class ReportingStructure {
         this.numberOfReports = numberOfReports;
     }
 
+    /**
+     * @return Whether the traversal limits were hit, in which case numberOfReports and the directReports are partial.
+     */
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    public void setTruncated(boolean truncated) {
+        this.truncated = truncated;
+    }
+
+    /**
+     * @return The strong entity tag of the reporting structure, derived from the employeeIds and versions of everybody
+     * in it, or null if it is truncated. Not part of the body.
+     */
+    @JsonIgnore
+    public String getEtag() {
+        return etag;
+    }
+
+    public void setEtag(String etag) {
+        this.etag = etag;
+    }
+
+    /**
+     * @return Why the entry of a batch has no reporting structure, or null if it has one. Left out of the body when null.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
 }
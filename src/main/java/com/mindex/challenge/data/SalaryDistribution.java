@@ -0,0 +1,84 @@
+package com.mindex.challenge.data;
+
+/**
+ * Summary of the salaries in effect of a group of employees. Salaries are formatted as strings, the same as in
+ * {@link Compensation}. The mean, min and max are computed from the salaries themselves, the percentiles are estimated
+ * within the relative accuracy of the compensation statistics.
+ */
+public class SalaryDistribution {
+
+    private long count;
+
+    private String mean;
+
+    private String min;
+
+    private String max;
+
+    private String p50;
+
+    private String p90;
+
+    private String p99;
+
+    public SalaryDistribution() { }
+
+    /**
+     * @return The number of employees with a salary in effect in the group.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    public String getMean() {
+        return mean;
+    }
+
+    public void setMean(String mean) {
+        this.mean = mean;
+    }
+
+    public String getMin() {
+        return min;
+    }
+
+    public void setMin(String min) {
+        this.min = min;
+    }
+
+    public String getMax() {
+        return max;
+    }
+
+    public void setMax(String max) {
+        this.max = max;
+    }
+
+    public String getP50() {
+        return p50;
+    }
+
+    public void setP50(String p50) {
+        this.p50 = p50;
+    }
+
+    public String getP90() {
+        return p90;
+    }
+
+    public void setP90(String p90) {
+        this.p90 = p90;
+    }
+
+    public String getP99() {
+        return p99;
+    }
+
+    public void setP99(String p99) {
+        this.p99 = p99;
+    }
+}
@@ -0,0 +1,332 @@
+package com.mindex.challenge.feed;
+
+import com.mindex.challenge.data.ChangeEvent;
+import com.mindex.challenge.data.CompensationDTO;
+import com.mindex.challenge.data.Employee;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * Server-sent events stream of the creates and updates of employees and compensations, so downstream caches can be
+ * invalidated as things change instead of polling.
+ *
+ * The employee and compensation services publish an event for every write. The events are kept in a {@link ChangeLog}
+ * of the latest change-feed.capacity events, and every subscriber is sent the log from the last event it was sent on
+ * a pool of change-feed.delivery-threads threads, so writes never wait for a subscriber. A subscriber that resumes
+ * from an event that is no longer held, or falls so far behind that the events it was not sent yet are overwritten, is
+ * sent a reset event instead. It has to drop everything it cached and carries on from the oldest event held. The
+ * sequence numbers start from the time the application started in microseconds, so the numbers of an earlier run are
+ * always older than the events held and resuming from them resets as well.
+ *
+ * Every change-feed.heartbeat-interval an idle subscriber is sent a comment, so proxies do not close the stream and
+ * subscribers that disconnected are noticed. A subscriber that stopped reading, so a send to it has been stalled for
+ * longer than change-feed.send-timeout, is dropped when the next heartbeat is due. No more events are scheduled for it
+ * and its stream is completed once the stalled send returns or fails, which the container bounds with its write
+ * timeout. The subscriber reconnects and resumes from its Last-Event-ID.
+ */
+@Component
+public class ChangeFeed {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ChangeFeed.class);
+
+    public static final String CHANGE_EVENT = "change";
+
+    public static final String RESET_EVENT = "reset";
+
+    public static final String HEARTBEAT_COMMENT = "heartbeat";
+
+    // The most events read from the log at once for a subscriber.
+    private static final int DELIVERY_BATCH_SIZE = 100;
+
+    private static final Map<String, Function<Employee, Object>> EMPLOYEE_FIELDS = new LinkedHashMap<>();
+
+    private static final Map<String, Function<CompensationDTO, Object>> COMPENSATION_FIELDS = new LinkedHashMap<>();
+
+    static {
+        EMPLOYEE_FIELDS.put("firstName", Employee::getFirstName);
+        EMPLOYEE_FIELDS.put("lastName", Employee::getLastName);
+        EMPLOYEE_FIELDS.put("position", Employee::getPosition);
+        EMPLOYEE_FIELDS.put("department", Employee::getDepartment);
+        EMPLOYEE_FIELDS.put("directReports", ChangeFeed::directReportIds);
+
+        COMPENSATION_FIELDS.put("salary", compensation -> compensation.getSalary() == null ? null : compensation.getSalary().stripTrailingZeros());
+        COMPENSATION_FIELDS.put("effectiveDate", CompensationDTO::getEffectiveDate);
+    }
+
+    @Value("${change-feed.capacity}")
+    private int capacity;
+
+    @Value("${change-feed.delivery-threads}")
+    private int deliveryThreads;
+
+    @Value("${change-feed.heartbeat-interval}")
+    private Duration heartbeatInterval;
+
+    @Value("${change-feed.send-timeout}")
+    private Duration sendTimeout;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private ChangeLog changeLog;
+
+    private ExecutorService deliveryExecutor;
+
+    private ScheduledExecutorService heartbeatExecutor;
+
+    private Counter droppedSubscribers;
+
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+
+    private static class Subscriber {
+
+        private final SseEmitter emitter;
+
+        // Set while a delivery to the subscriber is scheduled or running, so there is at most one at a time.
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        private volatile long lastSequence;
+
+        // When the send in progress started in nanoseconds, or 0 while nothing is being sent.
+        private volatile long sendStarted;
+
+        private volatile boolean heartbeatDue;
+
+        private volatile boolean dropped;
+
+        private Subscriber(SseEmitter emitter, long lastSequence) {
+            this.emitter = emitter;
+            this.lastSequence = lastSequence;
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        changeLog = new ChangeLog(capacity, TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis()));
+
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("change-feed-");
+        threadFactory.setDaemon(true);
+        deliveryExecutor = Executors.newFixedThreadPool(deliveryThreads, threadFactory);
+
+        CustomizableThreadFactory heartbeatThreadFactory = new CustomizableThreadFactory("change-feed-heartbeat-");
+        heartbeatThreadFactory.setDaemon(true);
+        heartbeatExecutor = Executors.newSingleThreadScheduledExecutor(heartbeatThreadFactory);
+        long interval = heartbeatInterval.toMillis();
+        heartbeatExecutor.scheduleWithFixedDelay(this::heartbeat, interval, interval, TimeUnit.MILLISECONDS);
+
+        Gauge.builder("change.feed.subscribers", subscribers, List::size).register(meterRegistry);
+        droppedSubscribers = meterRegistry.counter("change.feed.dropped");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        heartbeatExecutor.shutdownNow();
+        deliveryExecutor.shutdownNow();
+        completeAll();
+    }
+
+    /**
+     * Completes the streams of all the subscribers, which reconnect and resume from their Last-Event-ID.
+     */
+    public void completeAll() {
+        for (Subscriber subscriber : subscribers) {
+            subscribers.remove(subscriber);
+            subscriber.emitter.complete();
+        }
+    }
+
+    /**
+     * @param before The employee before it was saved, or null if it was created.
+     * @param after The employee as it was saved.
+     */
+    public void publishEmployee(Employee before, Employee after) {
+        long version = after.getVersion() == null ? 0 : after.getVersion();
+        publish(ChangeEvent.of(ChangeEvent.Entity.EMPLOYEE, after.getEmployeeId(), after.getEmployeeId(), null, version,
+                changedFields(EMPLOYEE_FIELDS, before, after)));
+    }
+
+    /**
+     * @param before The compensation that was replaced, or null if it was created.
+     * @param after The compensation as it was saved.
+     */
+    public void publishCompensation(CompensationDTO before, CompensationDTO after) {
+        publish(ChangeEvent.of(ChangeEvent.Entity.COMPENSATION, after.getCompensationId(), after.getEmployeeId(),
+                after.getEffectiveDate().toString(), after.getVersion(), changedFields(COMPENSATION_FIELDS, before, after)));
+    }
+
+    /**
+     * Streams the events after the given sequence number, followed by the events published from then on.
+     *
+     * @param after The sequence number of the last event already seen, or null to only stream the events to come.
+     * @return The emitter the events are sent to.
+     */
+    public SseEmitter subscribe(Long after) {
+        SseEmitter emitter = new SseEmitter();
+        Subscriber subscriber = new Subscriber(emitter, after == null ? changeLog.lastSequence() : after);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(exception -> subscribers.remove(subscriber));
+
+        subscribers.add(subscriber);
+        schedule(subscriber);
+        return emitter;
+    }
+
+    public long lastSequence() {
+        return changeLog.lastSequence();
+    }
+
+    private void publish(ChangeEvent event) {
+        changeLog.append(event);
+        for (Subscriber subscriber : subscribers) {
+            schedule(subscriber);
+        }
+    }
+
+    /**
+     * Drops the subscribers stalled in a send for longer than the send timeout, and schedules a heartbeat for the
+     * others.
+     */
+    private void heartbeat() {
+        long now = System.nanoTime();
+        for (Subscriber subscriber : subscribers) {
+            long sendStarted = subscriber.sendStarted;
+            if (sendStarted != 0 && now - sendStarted > sendTimeout.toNanos()) {
+                LOG.debug("Dropping change feed subscriber stalled for [{}] ms", TimeUnit.NANOSECONDS.toMillis(now - sendStarted));
+                // The emitter cannot be completed while the send holds it, so the delivery completes it afterwards.
+                subscriber.dropped = true;
+                subscribers.remove(subscriber);
+                droppedSubscribers.increment();
+            } else {
+                subscriber.heartbeatDue = true;
+                schedule(subscriber);
+            }
+        }
+    }
+
+    private void schedule(Subscriber subscriber) {
+        if (subscriber.scheduled.compareAndSet(false, true)) {
+            try {
+                deliveryExecutor.execute(() -> deliver(subscriber));
+            } catch (RejectedExecutionException exception) {
+                subscriber.scheduled.set(false);
+            }
+        }
+    }
+
+    /**
+     * Sends the subscriber the events after the last one it was sent until it has been sent all of them.
+     */
+    private void deliver(Subscriber subscriber) {
+        try {
+            while (true) {
+                if (subscriber.dropped) {
+                    subscriber.emitter.complete();
+                    return;
+                }
+
+                List<ChangeEvent> events = changeLog.after(subscriber.lastSequence, DELIVERY_BATCH_SIZE);
+                if (events == null) {
+                    long resetSequence = changeLog.firstSequence() - 1;
+                    send(subscriber, SseEmitter.event().id(String.valueOf(resetSequence)).name(RESET_EVENT).data(resetSequence));
+                    subscriber.lastSequence = resetSequence;
+                    continue;
+                }
+
+                if (events.isEmpty()) {
+                    if (subscriber.heartbeatDue) {
+                        subscriber.heartbeatDue = false;
+                        send(subscriber, SseEmitter.event().comment(HEARTBEAT_COMMENT));
+                        continue;
+                    }
+                    subscriber.scheduled.set(false);
+                    // An event published after the log was read and before the flag was cleared did not schedule a
+                    // delivery, so it is sent by this one unless another one has been scheduled since.
+                    if (changeLog.lastSequence() == subscriber.lastSequence || !subscriber.scheduled.compareAndSet(false, true)) {
+                        return;
+                    }
+                    continue;
+                }
+
+                for (ChangeEvent event : events) {
+                    send(subscriber, SseEmitter.event().id(String.valueOf(event.getSequence())).name(CHANGE_EVENT)
+                            .data(event, MediaType.APPLICATION_JSON));
+                    subscriber.lastSequence = event.getSequence();
+                }
+                subscriber.heartbeatDue = false;
+            }
+        } catch (IOException exception) {
+            LOG.debug("Dropping change feed subscriber: {}", exception.getMessage());
+            subscribers.remove(subscriber);
+            subscriber.emitter.completeWithError(exception);
+        } catch (IllegalStateException exception) {
+            // The emitter was completed, which removed the subscriber.
+            subscribers.remove(subscriber);
+        }
+    }
+
+    /**
+     * Sends the event, recording when the send started so a subscriber that stops reading can be told apart.
+     */
+    private static void send(Subscriber subscriber, SseEmitter.SseEventBuilder event) throws IOException {
+        long now = System.nanoTime();
+        subscriber.sendStarted = now == 0 ? 1 : now;
+        try {
+            subscriber.emitter.send(event);
+        } finally {
+            subscriber.sendStarted = 0;
+        }
+    }
+
+    /**
+     * @return The fields set on the created value, or the fields that differ from before.
+     */
+    private static <T> List<String> changedFields(Map<String, Function<T, Object>> fields, T before, T after) {
+        List<String> changedFields = new ArrayList<>();
+        for (Map.Entry<String, Function<T, Object>> field : fields.entrySet()) {
+            Object value = field.getValue().apply(after);
+            if (before == null ? value != null : !Objects.equals(field.getValue().apply(before), value)) {
+                changedFields.add(field.getKey());
+            }
+        }
+        return changedFields;
+    }
+
+    private static List<String> directReportIds(Employee employee) {
+        if (employee.getDirectReports() == null) {
+            return null;
+        }
+        List<String> directReportIds = new ArrayList<>(employee.getDirectReports().size());
+        for (Employee directReport : employee.getDirectReports()) {
+            directReportIds.add(directReport == null ? null : directReport.getEmployeeId());
+        }
+        return directReportIds;
+    }
+}
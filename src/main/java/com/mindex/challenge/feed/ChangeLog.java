@@ -0,0 +1,96 @@
+package com.mindex.challenge.feed;
+
+import com.mindex.challenge.data.ChangeEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded in-memory log of the latest change events. Every appended event is assigned the next sequence number,
+ * starting at the start sequence number, and overwrites the oldest one once {@code capacity} events are held.
+ */
+public class ChangeLog {
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final ChangeEvent[] events;
+
+    private final long startSequence;
+
+    // The sequence number of the last appended event, one less than the start sequence before the first one.
+    private long lastSequence;
+
+    public ChangeLog(int capacity, long startSequence) {
+        if (capacity < 1 || startSequence < 1) {
+            throw new IllegalArgumentException("Change log capacity and start sequence must be positive: capacity=" + capacity
+                    + ", startSequence=" + startSequence);
+        }
+        this.events = new ChangeEvent[capacity];
+        this.startSequence = startSequence;
+        this.lastSequence = startSequence - 1;
+    }
+
+    /**
+     * @param event The event to append, its sequence number is set.
+     * @return The sequence number of the event.
+     */
+    public long append(ChangeEvent event) {
+        lock.lock();
+        try {
+            event.setSequence(++lastSequence);
+            events[slotOf(lastSequence)] = event;
+            return lastSequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @param sequence The sequence number of the last event already seen.
+     * @param max The most events to return.
+     * @return The events after the sequence number, oldest first, or null when some of them have been overwritten
+     * already or the sequence number was never assigned by this log.
+     */
+    public List<ChangeEvent> after(long sequence, int max) {
+        lock.lock();
+        try {
+            if (sequence < firstSequence() - 1 || sequence > lastSequence) {
+                return null;
+            }
+            List<ChangeEvent> after = new ArrayList<>((int) Math.min(max, Math.max(0, lastSequence - sequence)));
+            for (long next = sequence + 1; next <= lastSequence && after.size() < max; next++) {
+                after.add(events[slotOf(next)]);
+            }
+            return after;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return The sequence number of the oldest event still held, or the start sequence number when nothing has been
+     * appended yet.
+     */
+    public long firstSequence() {
+        lock.lock();
+        try {
+            return Math.max(startSequence, lastSequence - events.length + 1);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long lastSequence() {
+        lock.lock();
+        try {
+            return lastSequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int slotOf(long sequence) {
+        return (int) ((sequence - startSequence) % events.length);
+    }
+}
@@ -0,0 +1,158 @@
+package com.mindex.challenge.index;
+
+import com.mindex.challenge.dao.CompensationRepository;
+import com.mindex.challenge.dao.EmployeeRepository;
+import com.mindex.challenge.data.CompensationDTO;
+import com.mindex.challenge.data.CompensationStatistics;
+import com.mindex.challenge.data.Employee;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * In-memory salary statistics by department and position, so percentiles of the salaries in effect are answered from
+ * quantile sketches instead of loading and sorting every compensation and employee.
+ *
+ * Like the {@link OrgChartIndex}, the statistics are built from the database once the application context has been
+ * refreshed and are kept up to date by the employee and compensation services on every write. The percentiles are
+ * estimated within compensation-stats.relative-accuracy of the actual salaries, the mean, min and max are exact. Reads share a read lock, except for
+ * the first read after a future compensation has taken effect, which applies it first.
+ */
+@Component
+public class CompensationStatsIndex {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CompensationStatsIndex.class);
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    @Value("${compensation-stats.relative-accuracy}")
+    private double relativeAccuracy;
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private CompensationRepository compensationRepository;
+
+    private CompensationStatsStorage storage;
+
+    @PostConstruct
+    public void init() {
+        // Fails on an invalid accuracy at startup rather than on the first compensation.
+        new QuantileSketch(relativeAccuracy);
+        storage = new CompensationStatsStorage(relativeAccuracy);
+    }
+
+    /**
+     * Rebuilds the statistics from the database. Only the compensation in effect and the future ones of every employee
+     * are held while the employees are streamed to find their departments and positions.
+     */
+    @EventListener(ContextRefreshedEvent.class)
+    public void rebuild() {
+        long start = System.nanoTime();
+        long today = LocalDate.now().toEpochDay();
+
+        Map<String, List<CompensationDTO>> inEffectOrLater = new HashMap<>();
+        try (Stream<CompensationDTO> compensations = compensationRepository.streamAllBy()) {
+            compensations.forEach(compensation -> {
+                List<CompensationDTO> timeline = inEffectOrLater.computeIfAbsent(compensation.getEmployeeId(), employeeId -> new ArrayList<>(1));
+                if (compensation.getEffectiveDate().toEpochDay() <= today) {
+                    // Only the latest compensation in effect is kept, at the head of the list.
+                    if (timeline.isEmpty() || timeline.get(0).getEffectiveDate().toEpochDay() > today) {
+                        timeline.add(0, compensation);
+                    } else if (compensation.getEffectiveDate().isAfter(timeline.get(0).getEffectiveDate())) {
+                        timeline.set(0, compensation);
+                    }
+                } else {
+                    timeline.add(compensation);
+                }
+            });
+        }
+
+        CompensationStatsStorage rebuilt = new CompensationStatsStorage(relativeAccuracy);
+        try (Stream<Employee> employees = employeeRepository.streamAllBy()) {
+            employees.forEach(employee -> {
+                List<CompensationDTO> timeline = inEffectOrLater.get(employee.getEmployeeId());
+                if (timeline != null) {
+                    for (CompensationDTO compensation : timeline) {
+                        rebuilt.putCompensation(employee.getEmployeeId(), employee.getDepartment(), employee.getPosition(),
+                                compensation.getEffectiveDate().toEpochDay(), compensation.getSalary(), today);
+                    }
+                }
+            });
+        }
+
+        lock.writeLock().lock();
+        try {
+            storage = rebuilt;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        LOG.debug("Built compensation statistics of [{}] employees in [{}] ms", rebuilt.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Moves the salary of the employee to its department and position as they were saved.
+     */
+    public void put(Employee employee) {
+        lock.writeLock().lock();
+        try {
+            storage.putEmployee(employee.getEmployeeId(), employee.getDepartment(), employee.getPosition());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @param compensation The compensation as it was saved to the database.
+     * @param employee The employee the compensation belongs to.
+     */
+    public void put(CompensationDTO compensation, Employee employee) {
+        long today = LocalDate.now().toEpochDay();
+        lock.writeLock().lock();
+        try {
+            storage.putCompensation(employee.getEmployeeId(), employee.getDepartment(), employee.getPosition(),
+                    compensation.getEffectiveDate().toEpochDay(), compensation.getSalary(), today);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @param department The department to limit the statistics to, or null for every department.
+     * @return The statistics of the salaries in effect today, or null if nobody in the department has one.
+     */
+    public CompensationStatistics statistics(String department) {
+        long today = LocalDate.now().toEpochDay();
+        lock.readLock().lock();
+        try {
+            if (!storage.hasDue(today)) {
+                return storage.statistics(department, today);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        lock.writeLock().lock();
+        try {
+            storage.advance(today);
+            return storage.statistics(department, today);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package com.mindex.challenge.index;
+
+import com.mindex.challenge.data.CompensationStatistics;
+import com.mindex.challenge.data.Employee;
+import com.mindex.challenge.data.SalaryDistribution;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+
+/**
+ * The storage behind the {@link CompensationStatsIndex}: the salary in effect of every employee with a compensation,
+ * and a {@link SalaryGroup} of those salaries per department, per position and per position within a department.
+ *
+ * The salary, effective date and groups of an employee are kept in parallel arrays indexed by a slot per employee. A
+ * compensation that takes effect replaces the salary in the groups of the employee, and an employee that changes
+ * department or position moves its salary to the new groups, so every write updates three groups and reads never look
+ * at the employees. Compensations that take effect in the future wait in a queue until
+ * they are due. Employees without a department or position are grouped under {@link Employee#UNASSIGNED}, like in the
+ * payroll roll-up. Not thread safe, the index guards it with a lock.
+ */
+class CompensationStatsStorage {
+
+    private static final long NO_COMPENSATION = Long.MIN_VALUE;
+
+    private final double relativeAccuracy;
+
+    private final Map<String, Integer> slots = new HashMap<>();
+
+    private String[] departmentOf = new String[16];
+
+    private String[] positionOf = new String[16];
+
+    private BigDecimal[] salaryOf = new BigDecimal[16];
+
+    // The epoch day of the effective date of the salary in effect.
+    private long[] effectiveDayOf = new long[16];
+
+    private final TreeMap<String, SalaryGroup> departments = new TreeMap<>();
+
+    private final TreeMap<String, SalaryGroup> positions = new TreeMap<>();
+
+    // By department, then position.
+    private final Map<String, TreeMap<String, SalaryGroup>> cells = new HashMap<>();
+
+    private final PriorityQueue<Pending> pending = new PriorityQueue<>(
+            Comparator.comparingLong((Pending future) -> future.effectiveDay).thenComparingLong(future -> future.order));
+
+    private long pendingOrder;
+
+    private static class Pending {
+
+        private final int slot;
+
+        private final long effectiveDay;
+
+        private final BigDecimal salary;
+
+        // Breaks ties between compensations with the same effective date, so the latest one saved is applied last.
+        private final long order;
+
+        private Pending(int slot, long effectiveDay, BigDecimal salary, long order) {
+            this.slot = slot;
+            this.effectiveDay = effectiveDay;
+            this.salary = salary;
+            this.order = order;
+        }
+    }
+
+    CompensationStatsStorage(double relativeAccuracy) {
+        this.relativeAccuracy = relativeAccuracy;
+    }
+
+    /**
+     * Moves the salary of the employee to its current department and position. Employees without a compensation are
+     * not stored, their groups are taken from their first compensation.
+     */
+    void putEmployee(String employeeId, String department, String position) {
+        Integer slot = slots.get(employeeId);
+        if (slot == null) {
+            return;
+        }
+        String departmentKey = groupOf(department);
+        String positionKey = groupOf(position);
+        if (departmentKey.equals(departmentOf[slot]) && positionKey.equals(positionOf[slot])) {
+            return;
+        }
+
+        boolean inEffect = effectiveDayOf[slot] != NO_COMPENSATION;
+        if (inEffect) {
+            removeSalary(slot);
+        }
+        departmentOf[slot] = departmentKey;
+        positionOf[slot] = positionKey;
+        if (inEffect) {
+            addSalary(slot);
+        }
+    }
+
+    /**
+     * Takes the compensation into account if it is the one in effect today, or queues it if it takes effect later.
+     * Compensations older than the one in effect are ignored.
+     *
+     * @param department The current department of the employee.
+     * @param position The current position of the employee.
+     */
+    void putCompensation(String employeeId, String department, String position, long effectiveDay, BigDecimal salary, long today) {
+        Integer slot = slots.get(employeeId);
+        if (slot == null) {
+            slot = slots.size();
+            ensureCapacity(slot + 1);
+            slots.put(employeeId, slot);
+            departmentOf[slot] = groupOf(department);
+            positionOf[slot] = groupOf(position);
+            effectiveDayOf[slot] = NO_COMPENSATION;
+        }
+
+        if (effectiveDay > today) {
+            pending.add(new Pending(slot, effectiveDay, salary, pendingOrder++));
+        } else {
+            takeEffect(slot, effectiveDay, salary);
+        }
+    }
+
+    /**
+     * @return Whether any queued compensation takes effect on or before the day.
+     */
+    boolean hasDue(long today) {
+        return !pending.isEmpty() && pending.peek().effectiveDay <= today;
+    }
+
+    /**
+     * Applies the queued compensations that take effect on or before the day.
+     */
+    void advance(long today) {
+        while (hasDue(today)) {
+            Pending due = pending.poll();
+            takeEffect(due.slot, due.effectiveDay, due.salary);
+        }
+    }
+
+    /**
+     * Reads the groups, merging the sketches of the departments and taking the sum, min and max over them for the
+     * total, so the cost depends on the number of groups and buckets but not on the number of employees. Expects the due compensations to have been applied.
+     *
+     * @param department The department to limit the statistics to, or null for every department.
+     * @return The statistics, or null if nobody in the department has a compensation in effect.
+     */
+    CompensationStatistics statistics(String department, long today) {
+        CompensationStatistics statistics = new CompensationStatistics();
+        statistics.setAsOf(LocalDate.ofEpochDay(today).toString());
+        statistics.setDepartment(department);
+        statistics.setRelativeAccuracy(relativeAccuracy);
+
+        if (department == null) {
+            QuantileSketch total = new QuantileSketch(relativeAccuracy);
+            BigDecimal sum = BigDecimal.ZERO;
+            BigDecimal min = null;
+            BigDecimal max = null;
+            for (SalaryGroup group : departments.values()) {
+                if (group.count() == 0) {
+                    continue;
+                }
+                total.merge(group.sketch());
+                sum = sum.add(group.sum());
+                min = min == null || group.min().compareTo(min) < 0 ? group.min() : min;
+                max = max == null || group.max().compareTo(max) > 0 ? group.max() : max;
+            }
+            statistics.setTotal(distributionOf(total, sum, min, max));
+            statistics.setDepartments(distributionsOf(departments));
+            statistics.setPositions(distributionsOf(positions));
+            return statistics;
+        }
+
+        SalaryGroup group = departments.get(department);
+        if (group == null || group.count() == 0) {
+            return null;
+        }
+        SalaryDistribution total = distributionOf(group);
+        Map<String, SalaryDistribution> departmentDistributions = new LinkedHashMap<>();
+        departmentDistributions.put(department, total);
+        statistics.setTotal(total);
+        statistics.setDepartments(departmentDistributions);
+        statistics.setPositions(distributionsOf(cells.get(department)));
+        return statistics;
+    }
+
+    /**
+     * @return The number of employees with a compensation, in effect or not yet.
+     */
+    int size() {
+        return slots.size();
+    }
+
+    private void takeEffect(int slot, long effectiveDay, BigDecimal salary) {
+        if (effectiveDay < effectiveDayOf[slot]) {
+            return;
+        }
+        if (effectiveDayOf[slot] != NO_COMPENSATION) {
+            removeSalary(slot);
+        }
+        effectiveDayOf[slot] = effectiveDay;
+        salaryOf[slot] = salary;
+        addSalary(slot);
+    }
+
+    private void addSalary(int slot) {
+        BigDecimal salary = salaryOf[slot];
+        departments.computeIfAbsent(departmentOf[slot], key -> new SalaryGroup(relativeAccuracy)).add(salary);
+        positions.computeIfAbsent(positionOf[slot], key -> new SalaryGroup(relativeAccuracy)).add(salary);
+        cells.computeIfAbsent(departmentOf[slot], key -> new TreeMap<>())
+                .computeIfAbsent(positionOf[slot], key -> new SalaryGroup(relativeAccuracy)).add(salary);
+    }
+
+    private void removeSalary(int slot) {
+        BigDecimal salary = salaryOf[slot];
+        departments.get(departmentOf[slot]).remove(salary);
+        positions.get(positionOf[slot]).remove(salary);
+        cells.get(departmentOf[slot]).get(positionOf[slot]).remove(salary);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= salaryOf.length) {
+            return;
+        }
+        int grown = Math.max(capacity, salaryOf.length * 2);
+        departmentOf = Arrays.copyOf(departmentOf, grown);
+        positionOf = Arrays.copyOf(positionOf, grown);
+        salaryOf = Arrays.copyOf(salaryOf, grown);
+        effectiveDayOf = Arrays.copyOf(effectiveDayOf, grown);
+    }
+
+    private static String groupOf(String value) {
+        return value == null ? Employee.UNASSIGNED : value;
+    }
+
+    private static Map<String, SalaryDistribution> distributionsOf(TreeMap<String, SalaryGroup> groups) {
+        Map<String, SalaryDistribution> distributions = new LinkedHashMap<>();
+        groups.forEach((name, group) -> {
+            if (group.count() > 0) {
+                distributions.put(name, distributionOf(group));
+            }
+        });
+        return distributions;
+    }
+
+    private static SalaryDistribution distributionOf(SalaryGroup group) {
+        return distributionOf(group.sketch(), group.sum(), group.min(), group.max());
+    }
+
+    private static SalaryDistribution distributionOf(QuantileSketch sketch, BigDecimal sum, BigDecimal min, BigDecimal max) {
+        SalaryDistribution distribution = new SalaryDistribution();
+        distribution.setCount(sketch.count());
+        if (sketch.count() == 0) {
+            return distribution;
+        }
+        distribution.setMean(sum.divide(BigDecimal.valueOf(sketch.count()), 2, RoundingMode.HALF_UP).toPlainString());
+        distribution.setMin(format(min));
+        distribution.setMax(format(max));
+        distribution.setP50(format(BigDecimal.valueOf(sketch.quantile(0.5))));
+        distribution.setP90(format(BigDecimal.valueOf(sketch.quantile(0.9))));
+        distribution.setP99(format(BigDecimal.valueOf(sketch.quantile(0.99))));
+        return distribution;
+    }
+
+    private static String format(BigDecimal salary) {
+        return salary.setScale(2, RoundingMode.HALF_UP).toPlainString();
+    }
+}
@@ -0,0 +1,91 @@
+package com.mindex.challenge.index;
+
+import com.mindex.challenge.dao.EmployeeRepository;
+import com.mindex.challenge.data.Employee;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * In-memory search index of the employees by name prefix, department and position, so that type-ahead searches never
+ * go to the database.
+ *
+ * Like the {@link OrgChartIndex}, the index is built from the {@link EmployeeRepository} once the application context
+ * has been refreshed and is kept up to date by the employee service on every create and update. Searches share a read
+ * lock and hand out copies, so they run concurrently with each other and never see a half indexed employee.
+ */
+@Component
+public class EmployeeSearchIndex {
+
+    private static final Logger LOG = LoggerFactory.getLogger(EmployeeSearchIndex.class);
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private SearchStorage storage = new SearchStorage();
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    /**
+     * Rebuilds the whole index from the database, streaming the employees so they are never all held at once besides
+     * the index itself.
+     */
+    @EventListener(ContextRefreshedEvent.class)
+    public void rebuild() {
+        long start = System.nanoTime();
+        SearchStorage rebuilt = new SearchStorage();
+        try (Stream<Employee> employees = employeeRepository.streamAllBy()) {
+            employees.forEach(rebuilt::put);
+        }
+
+        lock.writeLock().lock();
+        try {
+            storage = rebuilt;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        LOG.debug("Built employee search index with [{}] employees in [{}] ms", rebuilt.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Adds the employee to the index or replaces the indexed copy with the given one.
+     *
+     * @param employee The employee as it was saved to the database.
+     */
+    public void put(Employee employee) {
+        lock.writeLock().lock();
+        try {
+            storage.put(employee);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the employees with a first or last name word starting with every word of the query, in the given department
+     * and position. Everything is matched case-insensitively. With a query, the employees are ordered by the first of
+     * their name words that matches the longest query word, otherwise in the order they were first indexed.
+     *
+     * @param query The name prefixes to look for, or null to filter by department and position only.
+     * @param department The department to filter by, or null.
+     * @param position The position to filter by, or null.
+     * @param limit The most employees to return.
+     * @return Copies of the matching employees without their direct reports.
+     */
+    public List<Employee> search(String query, String department, String position, int limit) {
+        lock.readLock().lock();
+        try {
+            return storage.search(query, department, position, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
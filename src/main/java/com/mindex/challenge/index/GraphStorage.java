@@ -0,0 +1,163 @@
+package com.mindex.challenge.index;
+
+import com.mindex.challenge.data.Employee;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Growable node storage shared by the {@link OrgGraph} implementations. Assigns compact node ids in the order the
+ * employeeIds are first seen and keeps the direct reports of every node as a primitive array. Optionally keeps the
+ * reverse edges as well, so the managers of a node can be found without a scan. Not thread safe.
+ */
+class GraphStorage {
+
+    private static final int[] NO_CHILDREN = new int[0];
+
+    private final Map<String, Integer> nodeIds;
+
+    private String[] employeeIds;
+
+    private Employee[] employees;
+
+    private int[][] children;
+
+    // The managers of every node, or null when the reverse edges are not tracked. A manager that lists the same direct
+    // report twice shows up twice.
+    private int[][] parents;
+
+    private int size;
+
+    GraphStorage(int expectedSize) {
+        this(expectedSize, false);
+    }
+
+    GraphStorage(int expectedSize, boolean trackParents) {
+        int capacity = Math.max(16, expectedSize);
+        nodeIds = new HashMap<>(capacity * 4 / 3 + 1);
+        employeeIds = new String[capacity];
+        employees = new Employee[capacity];
+        children = new int[capacity][];
+        parents = trackParents ? new int[capacity][] : null;
+    }
+
+    /**
+     * Adds the employee or replaces the stored copy with the given one, including its direct reports.
+     *
+     * @param employee The employee to store.
+     * @return The node id of the employee.
+     */
+    int put(Employee employee) {
+        int node = intern(employee.getEmployeeId());
+
+        List<Employee> directReports = employee.getDirectReports();
+        int[] directReportNodes = NO_CHILDREN;
+        if (directReports != null && !directReports.isEmpty()) {
+            directReportNodes = new int[directReports.size()];
+            int count = 0;
+            for (Employee directReport : directReports) {
+                // Stored employees may still hold direct reports without an employeeId, which are left out.
+                if (directReport != null && directReport.getEmployeeId() != null) {
+                    directReportNodes[count++] = intern(directReport.getEmployeeId());
+                }
+            }
+            directReportNodes = count == 0 ? NO_CHILDREN : Arrays.copyOf(directReportNodes, count);
+        }
+
+        if (parents != null) {
+            for (int oldDirectReportNode : children[node]) {
+                parents[oldDirectReportNode] = remove(parents[oldDirectReportNode], node);
+            }
+            for (int directReportNode : directReportNodes) {
+                parents[directReportNode] = add(parents[directReportNode], node);
+            }
+        }
+
+        employees[node] = OrgChartIndex.copyWithoutDirectReports(employee);
+        children[node] = directReportNodes;
+        return node;
+    }
+
+    int nodeOf(String employeeId) {
+        Integer node = nodeIds.get(employeeId);
+        return node == null ? -1 : node;
+    }
+
+    int[] children(int node) {
+        return children[node];
+    }
+
+    /**
+     * @param node The node id.
+     * @return The node ids of the managers that list the node as a direct report. Only available when the reverse
+     * edges are tracked.
+     */
+    int[] parents(int node) {
+        return parents[node];
+    }
+
+    Employee employee(int node) {
+        return employees[node];
+    }
+
+    String employeeId(int node) {
+        return employeeIds[node];
+    }
+
+    int size() {
+        return size;
+    }
+
+    private int intern(String employeeId) {
+        Integer existing = nodeIds.get(employeeId);
+        if (existing != null) {
+            return existing;
+        }
+
+        if (size == employeeIds.length) {
+            int capacity = size * 2;
+            employeeIds = Arrays.copyOf(employeeIds, capacity);
+            employees = Arrays.copyOf(employees, capacity);
+            children = Arrays.copyOf(children, capacity);
+            if (parents != null) {
+                parents = Arrays.copyOf(parents, capacity);
+            }
+        }
+
+        int node = size++;
+        nodeIds.put(employeeId, node);
+        employeeIds[node] = employeeId;
+        children[node] = NO_CHILDREN;
+        if (parents != null) {
+            parents[node] = NO_CHILDREN;
+        }
+        return node;
+    }
+
+    /**
+     * @return The capacity of the node arrays, which is at least the size.
+     */
+    int capacity() {
+        return employeeIds.length;
+    }
+
+    private static int[] add(int[] nodes, int node) {
+        int[] added = Arrays.copyOf(nodes, nodes.length + 1);
+        added[nodes.length] = node;
+        return added;
+    }
+
+    private static int[] remove(int[] nodes, int node) {
+        for (int i = 0; i < nodes.length; i++) {
+            if (nodes[i] == node) {
+                int[] removed = new int[nodes.length - 1];
+                System.arraycopy(nodes, 0, removed, 0, i);
+                System.arraycopy(nodes, i + 1, removed, i, nodes.length - i - 1);
+                return removed;
+            }
+        }
+        return nodes;
+    }
+}
@@ -0,0 +1,333 @@
+package com.mindex.challenge.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.stream.IntStream;
+
+/**
+ * Computes the span of control, the number of unique reports and the depth of the org below every employee of an
+ * {@link OrgGraph} at once, plus the level of every employee below the top of the org chart.
+ *
+ * The per employee metrics are computed in a single post-order pass, where every employee is finished from the
+ * results of its direct reports. The top levels of the org chart are split into subtrees that are walked in parallel
+ * on a fork/join pool. An employee whose reports do not form a tree, because one of them has several managers or is
+ * part of a cycle, cannot add up the counts of its direct reports, so its unique reports are counted by a separate walk
+ * that skips the tree shaped subtrees below it. Employees that are shared between parallel subtrees may be finished by
+ * several tasks, which all compute the same results.
+ *
+ * The graph must not change during the analysis.
+ */
+public class OrgAnalyzer {
+
+    // The number of levels below the top-level employees whose direct reports are walked as separate tasks.
+    private static final int SPLIT_LEVELS = 3;
+
+    private final OrgGraph graph;
+
+    private final int[] directReports;
+
+    private final int[] numberOfReports;
+
+    private final int[] subtreeDepths;
+
+    private final boolean[] treeShaped;
+
+    private final boolean[] finished;
+
+    /**
+     * The metrics of every node, by node id. Nodes without an employee have no metrics.
+     */
+    public static class Result {
+
+        private final int[] levels;
+
+        private final int[] directReports;
+
+        private final int[] numberOfReports;
+
+        private final int[] subtreeDepths;
+
+        private final boolean[] analyzed;
+
+        private Result(int[] levels, int[] directReports, int[] numberOfReports, int[] subtreeDepths, boolean[] analyzed) {
+            this.levels = levels;
+            this.directReports = directReports;
+            this.numberOfReports = numberOfReports;
+            this.subtreeDepths = subtreeDepths;
+            this.analyzed = analyzed;
+        }
+
+        /**
+         * @return The number of nodes the graph had when it was analyzed.
+         */
+        public int size() {
+            return analyzed.length;
+        }
+
+        /**
+         * @return Whether the node was an employee when the graph was analyzed, so it has metrics.
+         */
+        public boolean isAnalyzed(int node) {
+            return analyzed[node];
+        }
+
+        /**
+         * @return The number of managers between the node and the top of the org chart along the shortest chain, 0
+         * for employees without a manager, or -1 if the node can only be reached through a cycle.
+         */
+        public int level(int node) {
+            return levels[node];
+        }
+
+        /**
+         * @return The number of direct reports that exist.
+         */
+        public int directReports(int node) {
+            return directReports[node];
+        }
+
+        /**
+         * @return The number of unique reports, direct or indirect.
+         */
+        public int numberOfReports(int node) {
+            return numberOfReports[node];
+        }
+
+        /**
+         * @return The number of levels of reports below the node, 0 for employees without reports.
+         */
+        public int subtreeDepth(int node) {
+            return subtreeDepths[node];
+        }
+    }
+
+    private OrgAnalyzer(OrgGraph graph) {
+        this.graph = graph;
+        int size = graph.size();
+        this.directReports = new int[size];
+        this.numberOfReports = new int[size];
+        this.subtreeDepths = new int[size];
+        this.treeShaped = new boolean[size];
+        this.finished = new boolean[size];
+    }
+
+    /**
+     * @param graph The org chart to analyze.
+     * @param pool The pool to walk the subtrees on.
+     * @return The metrics of every employee in the graph.
+     */
+    public static Result analyze(OrgGraph graph, ForkJoinPool pool) {
+        OrgAnalyzer analyzer = new OrgAnalyzer(graph);
+        int size = graph.size();
+
+        List<SubtreeTask> topLevel = new ArrayList<>();
+        for (int node = 0; node < size; node++) {
+            if (graph.employee(node) != null && graph.numberOfManagers(node) == 0) {
+                topLevel.add(analyzer.new SubtreeTask(node, new int[0]));
+            }
+        }
+        pool.submit(() -> ForkJoinTask.invokeAll(topLevel)).join();
+
+        // Employees that can only be reached through a cycle are not below any top-level employee.
+        for (int node = 0; node < size; node++) {
+            if (graph.employee(node) != null && !analyzer.finished[node]) {
+                analyzer.walk(node, new int[0]);
+            }
+        }
+
+        int[] notTreeShaped = IntStream.range(0, size)
+                .filter(node -> graph.employee(node) != null && !analyzer.treeShaped[node])
+                .toArray();
+        pool.submit(() -> IntStream.of(notTreeShaped).parallel()
+                .forEach(node -> analyzer.numberOfReports[node] = analyzer.countReports(node))).join();
+
+        return new Result(analyzer.levels(), analyzer.directReports, analyzer.numberOfReports, analyzer.subtreeDepths, analyzer.finished);
+    }
+
+    /**
+     * Walks the direct reports of the node as separate tasks while within the top levels, then finishes the node.
+     */
+    private class SubtreeTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int node;
+
+        // The managers above the node along the chain that led to it.
+        private final int[] path;
+
+        private SubtreeTask(int node, int[] path) {
+            this.node = node;
+            this.path = path;
+        }
+
+        @Override
+        protected void compute() {
+            int[] children = graph.children(node);
+            if (path.length == SPLIT_LEVELS || children.length < 2) {
+                walk(node, path);
+                return;
+            }
+
+            int[] childPath = Arrays.copyOf(path, path.length + 1);
+            childPath[path.length] = node;
+            BitSet onPath = new BitSet();
+            for (int manager : childPath) {
+                onPath.set(manager);
+            }
+
+            List<SubtreeTask> tasks = new ArrayList<>();
+            for (int child : children) {
+                if (graph.employee(child) != null && !onPath.get(child)) {
+                    tasks.add(new SubtreeTask(child, childPath));
+                }
+            }
+            invokeAll(tasks);
+            finish(node, onPath);
+        }
+    }
+
+    /**
+     * Finishes every node under the start node in post-order, without following the chain of managers that led to it.
+     */
+    private void walk(int start, int[] path) {
+        BitSet visited = new BitSet();
+        BitSet onPath = new BitSet();
+        for (int manager : path) {
+            onPath.set(manager);
+        }
+
+        int[] stack = new int[64];
+        int[] nextChild = new int[64];
+        int top = 0;
+        stack[0] = start;
+        visited.set(start);
+        onPath.set(start);
+
+        while (top >= 0) {
+            int node = stack[top];
+            int[] children = graph.children(node);
+
+            if (nextChild[top] == children.length) {
+                finish(node, onPath);
+                onPath.clear(node);
+                top--;
+                continue;
+            }
+
+            int child = children[nextChild[top]++];
+            if (graph.employee(child) == null || visited.get(child)) {
+                continue;
+            }
+            visited.set(child);
+            onPath.set(child);
+            top++;
+            if (top == stack.length) {
+                stack = Arrays.copyOf(stack, top * 2);
+                nextChild = Arrays.copyOf(nextChild, top * 2);
+            }
+            stack[top] = child;
+            nextChild[top] = 0;
+        }
+    }
+
+    /**
+     * Computes the metrics of the node from the ones of its direct reports, which must all be finished unless they are
+     * on the chain of managers that led to the node.
+     */
+    private void finish(int node, BitSet onPath) {
+        int direct = 0;
+        int count = 0;
+        int depth = 0;
+        boolean tree = true;
+        for (int child : graph.children(node)) {
+            if (graph.employee(child) == null) {
+                continue;
+            }
+            direct++;
+            if (onPath.get(child)) {
+                tree = false;
+                continue;
+            }
+            depth = Math.max(depth, subtreeDepths[child] + 1);
+            if (graph.numberOfManagers(child) == 1 && treeShaped[child]) {
+                count += numberOfReports[child] + 1;
+            } else {
+                tree = false;
+            }
+        }
+
+        directReports[node] = direct;
+        numberOfReports[node] = tree ? count : -1;
+        subtreeDepths[node] = depth;
+        treeShaped[node] = tree;
+        finished[node] = true;
+    }
+
+    /**
+     * Counts the unique reports of a node whose reports do not form a tree, skipping the tree shaped subtrees below it
+     * since their reports can only be reached through them.
+     */
+    private int countReports(int root) {
+        BitSet visited = new BitSet();
+        int[] stack = new int[64];
+        int top = 0;
+        stack[0] = root;
+        visited.set(root);
+        int count = 0;
+
+        while (top >= 0) {
+            int node = stack[top--];
+            for (int child : graph.children(node)) {
+                if (graph.employee(child) == null || visited.get(child)) {
+                    continue;
+                }
+                visited.set(child);
+                count++;
+                if (graph.numberOfManagers(child) == 1 && treeShaped[child]) {
+                    count += numberOfReports[child];
+                    continue;
+                }
+                if (++top == stack.length) {
+                    stack = Arrays.copyOf(stack, top * 2);
+                }
+                stack[top] = child;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Breadth first from the top-level employees, so every employee gets the level of its shortest chain of managers.
+     */
+    private int[] levels() {
+        int size = graph.size();
+        int[] levels = new int[size];
+        Arrays.fill(levels, -1);
+        int[] queue = new int[size];
+        int head = 0;
+        int tail = 0;
+        for (int node = 0; node < size; node++) {
+            if (graph.employee(node) != null && graph.numberOfManagers(node) == 0) {
+                levels[node] = 0;
+                queue[tail++] = node;
+            }
+        }
+
+        while (head < tail) {
+            int node = queue[head++];
+            for (int child : graph.children(node)) {
+                if (graph.employee(child) != null && levels[child] < 0) {
+                    levels[child] = levels[node] + 1;
+                    queue[tail++] = child;
+                }
+            }
+        }
+        return levels;
+    }
+}
@@ -0,0 +1,277 @@
+package com.mindex.challenge.index;
+
+import com.mindex.challenge.dao.EmployeeRepository;
+import com.mindex.challenge.data.Employee;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * In-memory adjacency index of the org chart.
+ *
+ * Every employeeId seen, either as an employee or as somebody's direct report, is assigned a compact int node id.
+ * The direct reports of each node are stored as a primitive array of node ids so that the reporting structure can be
+ * walked entirely in memory. Ids that are only known as a direct report (the employee does not exist in the database)
+ * keep a node without an employee so they can be skipped during traversal and filled in if the employee is created
+ * later on.
+ *
+ * The index is built from the {@link EmployeeRepository} once the application context has been refreshed and is kept
+ * up to date by the employee service on every create and update.
+ *
+ * The index also memoizes the results of reporting structure traversals per node: the number of unique reports and the
+ * employee with its directReports filled in, along with its {@link TreeDigest}. Putting an employee only invalidates the memoized results of that node and
+ * of everybody above it, since those are the only subtrees that contain the change. When the number of managers of a
+ * direct report changes, everybody above the direct report is invalidated as well, since whether their reports form a
+ * tree may have changed. The memo accessors must be called from inside a query.
+ */
+@Component
+public class OrgChartIndex implements OrgGraph, ReportingMemo {
+
+    private static final Logger LOG = LoggerFactory.getLogger(OrgChartIndex.class);
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private GraphStorage storage = new GraphStorage(0, true);
+
+    // The memoized number of reports per node, shifted left by one with the tree shaped flag in the lowest bit and
+    // offset by one, so that the default of 0 means unknown.
+    private AtomicIntegerArray reportCounts = new AtomicIntegerArray(0);
+
+    private AtomicReferenceArray<Employee> reportingTrees = new AtomicReferenceArray<>(0);
+
+    private AtomicLongArray treeDigests = new AtomicLongArray(0);
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    /**
+     * Rebuilds the whole index from the database. This runs after all the singletons have been initialized, so the
+     * data loaded by the bootstrap is included, and before the web server starts accepting requests.
+     */
+    @EventListener(ContextRefreshedEvent.class)
+    public void rebuild() {
+        long start = System.nanoTime();
+        List<Employee> allEmployees = employeeRepository.findAll();
+
+        GraphStorage rebuilt = new GraphStorage(allEmployees.size(), true);
+        for (Employee employee : allEmployees) {
+            rebuilt.put(employee);
+        }
+
+        lock.writeLock().lock();
+        try {
+            storage = rebuilt;
+            reportCounts = new AtomicIntegerArray(rebuilt.capacity());
+            reportingTrees = new AtomicReferenceArray<>(rebuilt.capacity());
+            treeDigests = new AtomicLongArray(rebuilt.capacity());
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        LOG.debug("Built org chart index with [{}] nodes in [{}] ms", rebuilt.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Adds the employee to the index or replaces the indexed copy with the given one, including its direct reports.
+     *
+     * @param employee The employee as it was saved to the database.
+     */
+    public void put(Employee employee) {
+        lock.writeLock().lock();
+        try {
+            int existingNode = storage.nodeOf(employee.getEmployeeId());
+            int[] oldDirectReportNodes = existingNode < 0 ? new int[0] : storage.children(existingNode);
+
+            int node = storage.put(employee);
+            growMemo();
+
+            BitSet invalidated = new BitSet();
+            invalidate(node, invalidated);
+            for (int directReportNode : changedNodes(oldDirectReportNodes, storage.children(node))) {
+                for (int manager : storage.parents(directReportNode)) {
+                    invalidate(manager, invalidated);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Runs the query while holding the read lock of the index. The {@link OrgGraph} accessors are only consistent with
+     * each other when they are called from inside a query.
+     *
+     * @param query The query to run against the index.
+     * @return The result of the query.
+     */
+    public <T> T query(Supplier<T> query) {
+        lock.readLock().lock();
+        try {
+            return query.get();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int nodeOf(String employeeId) {
+        return storage.nodeOf(employeeId);
+    }
+
+    @Override
+    public int[] children(int node) {
+        return storage.children(node);
+    }
+
+    @Override
+    public int numberOfManagers(int node) {
+        return storage.parents(node).length;
+    }
+
+    @Override
+    public Employee employee(int node) {
+        return storage.employee(node);
+    }
+
+    @Override
+    public String employeeId(int node) {
+        return storage.employeeId(node);
+    }
+
+    @Override
+    public int size() {
+        return storage.size();
+    }
+
+    @Override
+    public int cachedNumberOfReports(int node) {
+        return (reportCounts.get(node) >> 1) - 1;
+    }
+
+    @Override
+    public boolean isCachedTreeShaped(int node) {
+        return (reportCounts.get(node) & 1) == 1;
+    }
+
+    @Override
+    public void cacheNumberOfReports(int node, int numberOfReports, boolean treeShaped) {
+        reportCounts.set(node, ((numberOfReports + 1) << 1) | (treeShaped ? 1 : 0));
+    }
+
+    @Override
+    public Employee cachedReportingTree(int node) {
+        return reportingTrees.get(node);
+    }
+
+    @Override
+    public long cachedTreeDigest(int node) {
+        return treeDigests.get(node);
+    }
+
+    @Override
+    public void cacheReportingTree(int node, Employee reportingTree, long treeDigest) {
+        // The digest is set first, so it is in place by the time the tree can be seen.
+        treeDigests.set(node, treeDigest);
+        reportingTrees.set(node, reportingTree);
+    }
+
+    private void growMemo() {
+        if (storage.capacity() > reportCounts.length()) {
+            AtomicIntegerArray grownReportCounts = new AtomicIntegerArray(storage.capacity());
+            AtomicReferenceArray<Employee> grownReportingTrees = new AtomicReferenceArray<>(storage.capacity());
+            AtomicLongArray grownTreeDigests = new AtomicLongArray(storage.capacity());
+            for (int node = 0; node < reportCounts.length(); node++) {
+                grownReportCounts.set(node, reportCounts.get(node));
+                grownReportingTrees.set(node, reportingTrees.get(node));
+                grownTreeDigests.set(node, treeDigests.get(node));
+            }
+            reportCounts = grownReportCounts;
+            reportingTrees = grownReportingTrees;
+            treeDigests = grownTreeDigests;
+        }
+    }
+
+    /**
+     * Clears the memoized results of the node and of all its managers, all the way up.
+     *
+     * @param node The node id.
+     * @param invalidated The nodes already invalidated, which are skipped.
+     */
+    private void invalidate(int node, BitSet invalidated) {
+        if (invalidated.get(node)) {
+            return;
+        }
+        Deque<Integer> pending = new ArrayDeque<>();
+        invalidated.set(node);
+        pending.push(node);
+
+        while (!pending.isEmpty()) {
+            int current = pending.pop();
+            reportCounts.set(current, 0);
+            reportingTrees.set(current, null);
+            for (int parent : storage.parents(current)) {
+                if (!invalidated.get(parent)) {
+                    invalidated.set(parent);
+                    pending.push(parent);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return The nodes that occur a different number of times in the two arrays.
+     */
+    private static int[] changedNodes(int[] before, int[] after) {
+        int[] sortedBefore = before.clone();
+        int[] sortedAfter = after.clone();
+        Arrays.sort(sortedBefore);
+        Arrays.sort(sortedAfter);
+
+        int[] changed = new int[sortedBefore.length + sortedAfter.length];
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        while (i < sortedBefore.length || j < sortedAfter.length) {
+            if (j == sortedAfter.length || (i < sortedBefore.length && sortedBefore[i] < sortedAfter[j])) {
+                changed[size++] = sortedBefore[i++];
+            } else if (i == sortedBefore.length || sortedAfter[j] < sortedBefore[i]) {
+                changed[size++] = sortedAfter[j++];
+            } else {
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(changed, size);
+    }
+
+    /**
+     * Indexed employees are shared between queries, so callers that fill in direct reports must work on a copy.
+     *
+     * @param employee The employee to copy.
+     * @return A copy of the employee without its direct reports.
+     */
+    public static Employee copyWithoutDirectReports(Employee employee) {
+        Employee copy = new Employee();
+        copy.setEmployeeId(employee.getEmployeeId());
+        copy.setFirstName(employee.getFirstName());
+        copy.setLastName(employee.getLastName());
+        copy.setPosition(employee.getPosition());
+        copy.setDepartment(employee.getDepartment());
+        copy.setVersion(employee.getVersion());
+        return copy;
+    }
+}
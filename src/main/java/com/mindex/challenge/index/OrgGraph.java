@@ -0,0 +1,46 @@
+package com.mindex.challenge.index;
+
+import com.mindex.challenge.data.Employee;
+
+/**
+ * Read-only view of (part of) the org chart where every employeeId has a compact int node id and the direct reports of
+ * a node are a primitive array of node ids.
+ */
+public interface OrgGraph {
+
+    /**
+     * @param employeeId The employeeId to look up.
+     * @return The node id of the employeeId, or -1 if the id is not part of the graph.
+     */
+    int nodeOf(String employeeId);
+
+    /**
+     * @param node The node id.
+     * @return The node ids of the direct reports of the node.
+     */
+    int[] children(int node);
+
+    /**
+     * @param node The node id.
+     * @return The number of managers in the graph that list the node as a direct report.
+     */
+    int numberOfManagers(int node);
+
+    /**
+     * @param node The node id.
+     * @return The employee without its direct reports, or null if the employee does not exist.
+     */
+    Employee employee(int node);
+
+    /**
+     * @param node The node id.
+     * @return The employeeId of the node.
+     */
+    String employeeId(int node);
+
+    /**
+     * @return The number of nodes in the graph, including direct reports that do not exist as employees.
+     */
+    int size();
+
+}
@@ -0,0 +1,222 @@
+package com.mindex.challenge.index;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Non-recursive depth first traversal of the reports under an employee in an {@link OrgGraph}.
+ *
+ * The traversal keeps an explicit stack of node ids instead of recursing, so deep org charts cannot overflow the
+ * stack of the request thread. Visited nodes are tracked by their compact node ids. A direct report that is already on
+ * the path from the root is a cycle in the org chart and is skipped, while a direct report that has been visited
+ * through another manager is only counted once. The traversal stops expanding below {@code maxDepth} and stops
+ * altogether once {@code maxNodes} reports have been walked, in which case the result is marked as truncated.
+ *
+ * The visitor may skip the reports under a node when it already knows how many unique reports there are and none of
+ * them can be reached other than through that node.
+ */
+public class OrgTraversal {
+
+    private static final Logger LOG = LoggerFactory.getLogger(OrgTraversal.class);
+
+    public static final int UNLIMITED = Integer.MAX_VALUE;
+
+    /**
+     * Returned by {@link Visitor#visit} to walk the reports under the node.
+     */
+    public static final int DESCEND = -1;
+
+    private final int maxDepth;
+
+    private final int maxNodes;
+
+    /**
+     * Called for the nodes reached during a traversal, in depth first order.
+     */
+    public interface Visitor {
+
+        /**
+         * Called the first time a node is reached.
+         *
+         * @param node The node id.
+         * @param parent The node id of the manager it was reached through, or -1 for the root.
+         * @param depth The number of levels below the root, 0 for the root.
+         * @return {@link #DESCEND} to walk the reports under the node, or the number of unique reports under the node
+         * to skip them. Reports may only be skipped when none of them can be reached other than through the node.
+         */
+        int visit(int node, int parent, int depth);
+
+        /**
+         * Called when a node that has already been visited through another manager is reached again. The node and
+         * everything under it have been visited at that point.
+         *
+         * @param node The node id.
+         * @param parent The node id of the manager it was reached through this time.
+         * @param depth The number of levels below the root through this manager.
+         */
+        default void revisit(int node, int parent, int depth) {
+        }
+
+        /**
+         * Called once all the reports under a node that was walked have been visited, i.e. in post-order.
+         *
+         * @param node The node id.
+         */
+        default void leave(int node) {
+        }
+
+    }
+
+    /**
+     * Summary of a single traversal.
+     */
+    public static class Result {
+
+        private int numberOfReports;
+
+        private int walkedReports;
+
+        private int maxDepth;
+
+        private int danglingReports;
+
+        private int cycles;
+
+        private boolean truncated;
+
+        /**
+         * @return The number of unique reports visited, not including the root.
+         */
+        public int getNumberOfReports() {
+            return numberOfReports;
+        }
+
+        /**
+         * @return The number of unique reports actually walked, not including the ones skipped by the visitor.
+         */
+        public int getWalkedReports() {
+            return walkedReports;
+        }
+
+        /**
+         * @return The deepest level walked below the root.
+         */
+        public int getMaxDepth() {
+            return maxDepth;
+        }
+
+        /**
+         * @return The number of direct reports skipped because the employee does not exist.
+         */
+        public int getDanglingReports() {
+            return danglingReports;
+        }
+
+        /**
+         * @return The number of direct reports skipped because they lead back to a manager on the current path.
+         */
+        public int getCycles() {
+            return cycles;
+        }
+
+        /**
+         * @return Whether the depth or node limit was hit, in which case the number of reports is a lower bound.
+         */
+        public boolean isTruncated() {
+            return truncated;
+        }
+    }
+
+    public OrgTraversal(int maxDepth, int maxNodes) {
+        if (maxDepth < 0 || maxNodes < 0) {
+            throw new IllegalArgumentException("Traversal limits cannot be negative: maxDepth=" + maxDepth + ", maxNodes=" + maxNodes);
+        }
+        this.maxDepth = maxDepth;
+        this.maxNodes = maxNodes;
+    }
+
+    /**
+     * Visits the root and all the unique reports under it.
+     *
+     * @param graph The org chart to walk.
+     * @param root The node id to start from. The employee of the root must exist.
+     * @param visitor Notified of every node reached.
+     * @return The summary of the traversal.
+     */
+    public Result traverse(OrgGraph graph, int root, Visitor visitor) {
+        Result result = new Result();
+        BitSet visited = new BitSet();
+        BitSet onPath = new BitSet();
+
+        // The stack holds the path from the root to the current node; the depth of a node is its position in the
+        // stack and nextChild is the index of the next direct report to look at for that node.
+        int[] stack = new int[64];
+        int[] nextChild = new int[64];
+        int top = 0;
+        stack[0] = root;
+        visited.set(root);
+        onPath.set(root);
+        int known = visitor.visit(root, -1, 0);
+        if (known != DESCEND) {
+            result.numberOfReports = known;
+            return result;
+        }
+
+        while (top >= 0) {
+            int node = stack[top];
+            int[] children = graph.children(node);
+            int childIndex = nextChild[top];
+
+            if (childIndex == children.length || top == maxDepth) {
+                if (top == maxDepth && children.length > 0) {
+                    result.truncated = true;
+                }
+                onPath.clear(node);
+                top--;
+                visitor.leave(node);
+                continue;
+            }
+            nextChild[top]++;
+
+            int child = children[childIndex];
+            if (graph.employee(child) == null) {
+                result.danglingReports++;
+                LOG.warn("The direct report under employee did not exist in the database. Skipping employee. "
+                        + "parentEmployeeId=[{}], directReportEmployeeId=[{}]", graph.employeeId(node), graph.employeeId(child));
+            } else if (onPath.get(child)) {
+                result.cycles++;
+                LOG.warn("The direct report under employee is also one of their managers. Skipping employee. "
+                        + "parentEmployeeId=[{}], directReportEmployeeId=[{}]", graph.employeeId(node), graph.employeeId(child));
+            } else if (visited.get(child)) {
+                visitor.revisit(child, node, top + 1);
+            } else if (result.walkedReports == maxNodes) {
+                result.truncated = true;
+                break;
+            } else {
+                visited.set(child);
+                result.numberOfReports++;
+                result.walkedReports++;
+                known = visitor.visit(child, node, top + 1);
+                if (known != DESCEND) {
+                    result.numberOfReports += known;
+                    continue;
+                }
+
+                onPath.set(child);
+                top++;
+                if (top == stack.length) {
+                    stack = Arrays.copyOf(stack, top * 2);
+                    nextChild = Arrays.copyOf(nextChild, top * 2);
+                }
+                stack[top] = child;
+                nextChild[top] = 0;
+                result.maxDepth = Math.max(result.maxDepth, top);
+            }
+        }
+
+        return result;
+    }
+}
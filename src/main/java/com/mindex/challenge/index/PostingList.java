@@ -0,0 +1,63 @@
+package com.mindex.challenge.index;
+
+import java.util.Arrays;
+
+/**
+ * Sorted set of document ids backed by a primitive array. Documents are numbered in the order they are first indexed,
+ * so adding a new document is an append and only re-indexing an existing one shifts the array. Not thread safe.
+ */
+class PostingList {
+
+    private int[] docs = new int[4];
+
+    private int size;
+
+    /**
+     * @return Whether the document was added, false if it was already in the list.
+     */
+    boolean add(int doc) {
+        if (size == 0 || docs[size - 1] < doc) {
+            ensureCapacity();
+            docs[size++] = doc;
+            return true;
+        }
+
+        int index = Arrays.binarySearch(docs, 0, size, doc);
+        if (index >= 0) {
+            return false;
+        }
+        int insertion = -index - 1;
+        ensureCapacity();
+        System.arraycopy(docs, insertion, docs, insertion + 1, size - insertion);
+        docs[insertion] = doc;
+        size++;
+        return true;
+    }
+
+    /**
+     * @return Whether the document was removed, false if it was not in the list.
+     */
+    boolean remove(int doc) {
+        int index = Arrays.binarySearch(docs, 0, size, doc);
+        if (index < 0) {
+            return false;
+        }
+        System.arraycopy(docs, index + 1, docs, index, size - index - 1);
+        size--;
+        return true;
+    }
+
+    int get(int index) {
+        return docs[index];
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void ensureCapacity() {
+        if (size == docs.length) {
+            docs = Arrays.copyOf(docs, docs.length * 2);
+        }
+    }
+}
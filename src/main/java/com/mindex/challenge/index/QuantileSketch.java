@@ -0,0 +1,147 @@
+package com.mindex.challenge.index;
+
+import java.util.Arrays;
+
+/**
+ * Quantile sketch of positive values with relative accuracy, in the style of DDSketch. Values are counted in
+ * logarithmic buckets, where bucket i holds the values in (gamma^(i-1), gamma^i] with gamma = (1 + a) / (1 - a) for
+ * relative accuracy a, and every value is read back as the one value per bucket that is within a of all of them. The
+ * counts are a long array over the range of buckets seen so far, so the size of a sketch depends on the spread of the
+ * values rather than their number: salaries from 10 000 to 10 000 000 take about 350 buckets at 1% accuracy.
+ *
+ * Unlike sampling or compressing sketches, values can be removed again, so a sketch can follow a salary that changes,
+ * and sketches of the same accuracy merge exactly, so the sketch of a group is the merge of the sketches of its parts.
+ * Values at or below {@link #MIN_VALUE} are counted as {@link #MIN_VALUE}. Not thread safe.
+ */
+class QuantileSketch {
+
+    static final double MIN_VALUE = 1e-2;
+
+    private final double relativeAccuracy;
+
+    private final double gamma;
+
+    private final double logGamma;
+
+    // counts[i] is the number of values in bucket offset + i.
+    private long[] counts = new long[0];
+
+    private int offset;
+
+    private long count;
+
+    QuantileSketch(double relativeAccuracy) {
+        if (!(relativeAccuracy > 0 && relativeAccuracy < 1)) {
+            throw new IllegalArgumentException("Relative accuracy must be between 0 and 1: " + relativeAccuracy);
+        }
+        this.relativeAccuracy = relativeAccuracy;
+        this.gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+        this.logGamma = Math.log(gamma);
+    }
+
+    void add(double value) {
+        int bucket = bucketOf(value);
+        ensureBucket(bucket);
+        counts[bucket - offset]++;
+        count++;
+    }
+
+    /**
+     * Removes a value that was added before.
+     */
+    void remove(double value) {
+        int bucket = bucketOf(value);
+        if (bucket < offset || bucket >= offset + counts.length || counts[bucket - offset] == 0) {
+            throw new IllegalStateException("Value was never added: " + value);
+        }
+        counts[bucket - offset]--;
+        count--;
+    }
+
+    /**
+     * Adds all the values of the other sketch, which must have the same relative accuracy.
+     */
+    void merge(QuantileSketch other) {
+        if (other.relativeAccuracy != relativeAccuracy) {
+            throw new IllegalArgumentException("Cannot merge sketches of different accuracies: " + relativeAccuracy + " and " + other.relativeAccuracy);
+        }
+        if (other.count == 0) {
+            return;
+        }
+        int first = other.firstBucket();
+        int last = other.lastBucket();
+        ensureBucket(first);
+        ensureBucket(last);
+        for (int bucket = first; bucket <= last; bucket++) {
+            counts[bucket - offset] += other.counts[bucket - other.offset];
+        }
+        count += other.count;
+    }
+
+    long count() {
+        return count;
+    }
+
+    /**
+     * @param quantile Between 0 and 1.
+     * @return The value of the nearest rank for the quantile, within the relative accuracy, or NaN if the sketch is
+     * empty.
+     */
+    double quantile(double quantile) {
+        if (count == 0) {
+            return Double.NaN;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * count));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return valueOf(offset + i);
+            }
+        }
+        return valueOf(lastBucket());
+    }
+
+    private int bucketOf(double value) {
+        return (int) Math.ceil(Math.log(Math.max(value, MIN_VALUE)) / logGamma);
+    }
+
+    private double valueOf(int bucket) {
+        return 2 * Math.pow(gamma, bucket) / (gamma + 1);
+    }
+
+    private int firstBucket() {
+        int i = 0;
+        while (counts[i] == 0) {
+            i++;
+        }
+        return offset + i;
+    }
+
+    private int lastBucket() {
+        int i = counts.length - 1;
+        while (counts[i] == 0) {
+            i--;
+        }
+        return offset + i;
+    }
+
+    /**
+     * Grows the counts to cover the bucket, with room for a few more on the side it grows, so a range of values
+     * spreading out one bucket at a time does not copy the counts every time.
+     */
+    private void ensureBucket(int bucket) {
+        if (counts.length == 0) {
+            counts = new long[1];
+            offset = bucket;
+        } else if (bucket < offset) {
+            int grown = Math.max(offset - bucket, counts.length / 2);
+            long[] moved = new long[counts.length + grown];
+            System.arraycopy(counts, 0, moved, grown, counts.length);
+            counts = moved;
+            offset -= grown;
+        } else if (bucket >= offset + counts.length) {
+            counts = Arrays.copyOf(counts, Math.max(bucket - offset + 1, counts.length + counts.length / 2));
+        }
+    }
+}
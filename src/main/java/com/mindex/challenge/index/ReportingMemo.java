@@ -0,0 +1,54 @@
+package com.mindex.challenge.index;
+
+import com.mindex.challenge.data.Employee;
+
+/**
+ * Results of reporting structure traversals memoized per node of an {@link OrgGraph}.
+ *
+ * Only results of complete traversals without cycles may be memoized, since those are the same no matter which
+ * manager the node is reached from. The number of reports of a node may be memoized on its own, but its tree is only
+ * memoized along with its number of reports and the trees of all the reports in it, and before them.
+ */
+public interface ReportingMemo {
+
+    /**
+     * @param node The node id.
+     * @return The memoized number of unique reports under the node, or -1 if it is not known.
+     */
+    int cachedNumberOfReports(int node);
+
+    /**
+     * @param node The node id.
+     * @return Whether every report under the node has a single manager, so that the reports under the node cannot be
+     * reached other than through it. Only meaningful when the number of reports is known.
+     */
+    boolean isCachedTreeShaped(int node);
+
+    /**
+     * @param node The node id.
+     * @param numberOfReports The number of unique reports under the node.
+     * @param treeShaped Whether every report under the node has a single manager.
+     */
+    void cacheNumberOfReports(int node, int numberOfReports, boolean treeShaped);
+
+    /**
+     * @param node The node id.
+     * @return The memoized employee with its directReports filled in all the way down, or null if it is not known.
+     * The employee is shared and must not be modified.
+     */
+    Employee cachedReportingTree(int node);
+
+    /**
+     * @param node The node id.
+     * @return The digest of the memoized tree of the node. Only meaningful when the tree is known.
+     */
+    long cachedTreeDigest(int node);
+
+    /**
+     * @param node The node id.
+     * @param reportingTree The employee with its directReports filled in all the way down.
+     * @param treeDigest The digest of the employeeIds and versions in the tree, see {@link TreeDigest}.
+     */
+    void cacheReportingTree(int node, Employee reportingTree, long treeDigest);
+
+}
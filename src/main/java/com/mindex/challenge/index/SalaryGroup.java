@@ -0,0 +1,72 @@
+package com.mindex.challenge.index;
+
+import java.math.BigDecimal;
+import java.util.TreeMap;
+
+/**
+ * The salaries in effect of a department, a position or a position within a department. The percentiles are estimated
+ * from a {@link QuantileSketch}, while the sum, min and max are exact. The sum is a {@link BigDecimal}, so adding and
+ * removing salaries over and over does not drift. The min and max come from the distinct salaries of the group and how
+ * many employees have each, since removing the lowest or highest salary needs the next one. Not thread safe.
+ */
+class SalaryGroup {
+
+    private final QuantileSketch sketch;
+
+    private final TreeMap<BigDecimal, Integer> salaryCounts = new TreeMap<>();
+
+    private BigDecimal sum = BigDecimal.ZERO;
+
+    SalaryGroup(double relativeAccuracy) {
+        this.sketch = new QuantileSketch(relativeAccuracy);
+    }
+
+    void add(BigDecimal salary) {
+        sketch.add(salary.doubleValue());
+        salaryCounts.merge(salary, 1, Integer::sum);
+        sum = sum.add(salary);
+    }
+
+    /**
+     * Removes a salary that was added before.
+     */
+    void remove(BigDecimal salary) {
+        Integer count = salaryCounts.get(salary);
+        if (count == null) {
+            throw new IllegalStateException("Salary was never added: " + salary);
+        }
+        sketch.remove(salary.doubleValue());
+        if (count == 1) {
+            salaryCounts.remove(salary);
+        } else {
+            salaryCounts.put(salary, count - 1);
+        }
+        sum = sum.subtract(salary);
+    }
+
+    QuantileSketch sketch() {
+        return sketch;
+    }
+
+    long count() {
+        return sketch.count();
+    }
+
+    BigDecimal sum() {
+        return sum;
+    }
+
+    /**
+     * @return The lowest salary, or null if the group is empty.
+     */
+    BigDecimal min() {
+        return salaryCounts.isEmpty() ? null : salaryCounts.firstKey();
+    }
+
+    /**
+     * @return The highest salary, or null if the group is empty.
+     */
+    BigDecimal max() {
+        return salaryCounts.isEmpty() ? null : salaryCounts.lastKey();
+    }
+}
@@ -0,0 +1,301 @@
+package com.mindex.challenge.index;
+
+import com.mindex.challenge.data.Employee;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Term storage behind the {@link EmployeeSearchIndex}. Every employee is assigned a compact document id in the order it
+ * is first seen. The words of the first and last names are kept in a sorted map from term to the documents that
+ * contain it, so a prefix is answered by walking the terms from the prefix on, and the departments and positions have
+ * a posting list each. Terms, departments and positions are matched case-insensitively. Not thread safe.
+ */
+class SearchStorage {
+
+    private static final Comparator<Match> MATCH_ORDER = Comparator.comparing((Match match) -> match.term).thenComparingInt(match -> match.doc);
+
+    private final Map<String, Integer> docIds = new HashMap<>();
+
+    private final TreeMap<String, PostingList> nameTerms = new TreeMap<>();
+
+    private final Map<String, PostingList> departmentPostings = new HashMap<>();
+
+    private final Map<String, PostingList> positionPostings = new HashMap<>();
+
+    private Employee[] employees = new Employee[16];
+
+    // The name terms of every document, sharing the strings of the keys of the name terms.
+    private String[][] terms = new String[16][];
+
+    private String[] departments = new String[16];
+
+    private String[] positions = new String[16];
+
+    /**
+     * Adds the employee or replaces the indexed copy with the given one.
+     *
+     * @param employee The employee to index.
+     */
+    void put(Employee employee) {
+        Integer existingDoc = docIds.get(employee.getEmployeeId());
+        int doc;
+        if (existingDoc == null) {
+            doc = docIds.size();
+            grow(doc + 1);
+            docIds.put(employee.getEmployeeId(), doc);
+        } else {
+            doc = existingDoc;
+            unindex(doc);
+        }
+
+        employees[doc] = OrgChartIndex.copyWithoutDirectReports(employee);
+        departments[doc] = normalize(employee.getDepartment());
+        positions[doc] = normalize(employee.getPosition());
+
+        List<String> docTerms = terms(employee.getFirstName());
+        docTerms.addAll(terms(employee.getLastName()));
+        terms[doc] = new String[docTerms.size()];
+        for (int i = 0; i < terms[doc].length; i++) {
+            String term = docTerms.get(i);
+            String existingTerm = nameTerms.floorKey(term);
+            terms[doc][i] = term.equals(existingTerm) ? existingTerm : term;
+            nameTerms.computeIfAbsent(terms[doc][i], key -> new PostingList()).add(doc);
+        }
+        if (departments[doc] != null) {
+            departmentPostings.computeIfAbsent(departments[doc], key -> new PostingList()).add(doc);
+        }
+        if (positions[doc] != null) {
+            positionPostings.computeIfAbsent(positions[doc], key -> new PostingList()).add(doc);
+        }
+    }
+
+    /**
+     * Finds the employees with a first or last name word starting with every word of the query, in the given department
+     * and position. With a query, the employees are ordered by the first of their name words that starts with the
+     * longest query word, otherwise in the order they were first indexed.
+     *
+     * @param query The name prefixes to look for, or null to match every name.
+     * @param department The department to filter by, or null.
+     * @param position The position to filter by, or null.
+     * @param limit The most employees to return.
+     * @return Copies of the matching employees without their direct reports.
+     */
+    List<Employee> search(String query, String department, String position, int limit) {
+        List<String> words = terms(query);
+        String departmentKey = normalize(department);
+        String positionKey = normalize(position);
+
+        PostingList smallestFilter = null;
+        if (departmentKey != null) {
+            smallestFilter = departmentPostings.get(departmentKey);
+            if (smallestFilter == null) {
+                return Collections.emptyList();
+            }
+        }
+        if (positionKey != null) {
+            PostingList positionFilter = positionPostings.get(positionKey);
+            if (positionFilter == null) {
+                return Collections.emptyList();
+            }
+            if (smallestFilter == null || positionFilter.size() < smallestFilter.size()) {
+                smallestFilter = positionFilter;
+            }
+        }
+
+        if (words.isEmpty()) {
+            return smallestFilter == null ? Collections.emptyList() : scanFilter(smallestFilter, departmentKey, positionKey, limit);
+        }
+
+        String prefix = words.get(0);
+        for (String word : words) {
+            if (word.length() > prefix.length()) {
+                prefix = word;
+            }
+        }
+        if (smallestFilter != null && scansFilter(smallestFilter.size(), limit)) {
+            return scanFilter(smallestFilter, words, prefix, departmentKey, positionKey, limit);
+        }
+        return scanNames(words, prefix, departmentKey, positionKey, limit);
+    }
+
+    /**
+     * Scanning the filter checks all of its employees, while walking the names checks about size / filter size employees
+     * for each one that passes the filter, assuming the filter has nothing to do with the names. So the filter is
+     * scanned when it holds fewer employees than the square root of limit * size, about 4500 for 20 employees out of a
+     * million.
+     */
+    private boolean scansFilter(int filterSize, int limit) {
+        return (long) filterSize * filterSize <= (long) limit * size();
+    }
+
+    int size() {
+        return docIds.size();
+    }
+
+    /**
+     * Walks the name terms from the prefix on. An employee shows up under every one of its name words that starts
+     * with the prefix, so it is only taken the first time.
+     */
+    private List<Employee> scanNames(List<String> words, String prefix, String departmentKey, String positionKey, int limit) {
+        List<Employee> results = new ArrayList<>();
+        Set<Integer> found = new HashSet<>();
+        for (Map.Entry<String, PostingList> entry : nameTerms.tailMap(prefix).entrySet()) {
+            if (!entry.getKey().startsWith(prefix)) {
+                break;
+            }
+            PostingList postings = entry.getValue();
+            for (int i = 0; i < postings.size(); i++) {
+                int doc = postings.get(i);
+                if (matchesFilters(doc, departmentKey, positionKey)
+                        && (words.size() == 1 || matchedTerm(doc, words, prefix) != null)
+                        && found.add(doc)) {
+                    results.add(OrgChartIndex.copyWithoutDirectReports(employees[doc]));
+                    if (results.size() == limit) {
+                        return results;
+                    }
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Checks every employee of the filter against the query and sorts the matches the same way the name walk finds
+     * them.
+     */
+    private List<Employee> scanFilter(PostingList filter, List<String> words, String prefix, String departmentKey, String positionKey, int limit) {
+        List<Match> matches = new ArrayList<>();
+        for (int i = 0; i < filter.size(); i++) {
+            int doc = filter.get(i);
+            if (matchesFilters(doc, departmentKey, positionKey)) {
+                String term = matchedTerm(doc, words, prefix);
+                if (term != null) {
+                    matches.add(new Match(term, doc));
+                }
+            }
+        }
+        matches.sort(MATCH_ORDER);
+
+        List<Employee> results = new ArrayList<>(Math.min(limit, matches.size()));
+        for (int i = 0; i < matches.size() && results.size() < limit; i++) {
+            results.add(OrgChartIndex.copyWithoutDirectReports(employees[matches.get(i).doc]));
+        }
+        return results;
+    }
+
+    private List<Employee> scanFilter(PostingList filter, String departmentKey, String positionKey, int limit) {
+        List<Employee> results = new ArrayList<>();
+        for (int i = 0; i < filter.size() && results.size() < limit; i++) {
+            int doc = filter.get(i);
+            if (matchesFilters(doc, departmentKey, positionKey)) {
+                results.add(OrgChartIndex.copyWithoutDirectReports(employees[doc]));
+            }
+        }
+        return results;
+    }
+
+    private boolean matchesFilters(int doc, String departmentKey, String positionKey) {
+        return (departmentKey == null || departmentKey.equals(departments[doc]))
+                && (positionKey == null || positionKey.equals(positions[doc]));
+    }
+
+    /**
+     * @return The first name word of the employee that starts with the prefix, or null when a query word is not the
+     * start of any of its name words.
+     */
+    private String matchedTerm(int doc, List<String> words, String prefix) {
+        for (String word : words) {
+            boolean matched = false;
+            for (String term : terms[doc]) {
+                if (term.startsWith(word)) {
+                    matched = true;
+                    break;
+                }
+            }
+            if (!matched) {
+                return null;
+            }
+        }
+
+        String first = null;
+        for (String term : terms[doc]) {
+            if (term.startsWith(prefix) && (first == null || term.compareTo(first) < 0)) {
+                first = term;
+            }
+        }
+        return first;
+    }
+
+    private void unindex(int doc) {
+        for (String term : terms[doc]) {
+            removePosting(nameTerms, term, doc);
+        }
+        if (departments[doc] != null) {
+            removePosting(departmentPostings, departments[doc], doc);
+        }
+        if (positions[doc] != null) {
+            removePosting(positionPostings, positions[doc], doc);
+        }
+    }
+
+    private static void removePosting(Map<String, PostingList> postings, String key, int doc) {
+        PostingList postingList = postings.get(key);
+        if (postingList != null && postingList.remove(doc) && postingList.size() == 0) {
+            postings.remove(key);
+        }
+    }
+
+    private void grow(int capacity) {
+        if (capacity > employees.length) {
+            int newCapacity = Math.max(capacity, employees.length * 2);
+            employees = Arrays.copyOf(employees, newCapacity);
+            terms = Arrays.copyOf(terms, newCapacity);
+            departments = Arrays.copyOf(departments, newCapacity);
+            positions = Arrays.copyOf(positions, newCapacity);
+        }
+    }
+
+    /**
+     * @return The lower case words of the text, split on whitespace.
+     */
+    static List<String> terms(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null) {
+            return terms;
+        }
+        for (String word : text.toLowerCase(Locale.ROOT).split("\\s+")) {
+            if (!word.isEmpty()) {
+                terms.add(word);
+            }
+        }
+        return terms;
+    }
+
+    private static String normalize(String value) {
+        if (value == null) {
+            return null;
+        }
+        String normalized = value.trim().toLowerCase(Locale.ROOT);
+        return normalized.isEmpty() ? null : normalized;
+    }
+
+    private static final class Match {
+        private final String term;
+        private final int doc;
+
+        private Match(String term, int doc) {
+            this.term = term;
+            this.doc = doc;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.mindex.challenge.index;
+
+import com.mindex.challenge.data.Employee;
+
+import java.util.Collection;
+
+/**
+ * An {@link OrgGraph} over a set of employees loaded from the database for a single request, e.g. the subtree under a
+ * manager. Direct reports that are not part of the loaded employees are treated as employees that do not exist.
+ *
+ * The graph memoizes traversal results for the duration of the request, so overlapping subtrees of several requested
+ * employees are only walked once. Not thread safe.
+ */
+public class SubtreeGraph implements OrgGraph, ReportingMemo {
+
+    private final GraphStorage storage;
+
+    // The memoized number of reports per node, shifted left by one with the tree shaped flag in the lowest bit and
+    // offset by one, so that the default of 0 means unknown.
+    private final int[] reportCounts;
+
+    private final Employee[] reportingTrees;
+
+    private final long[] treeDigests;
+
+    private SubtreeGraph(GraphStorage storage) {
+        this.storage = storage;
+        this.reportCounts = new int[storage.size()];
+        this.reportingTrees = new Employee[storage.size()];
+        this.treeDigests = new long[storage.size()];
+    }
+
+    /**
+     * @param employees The loaded employees, including their direct reports.
+     * @return The graph over the given employees.
+     */
+    public static SubtreeGraph of(Collection<Employee> employees) {
+        GraphStorage storage = new GraphStorage(employees.size(), true);
+        for (Employee employee : employees) {
+            storage.put(employee);
+        }
+        return new SubtreeGraph(storage);
+    }
+
+    @Override
+    public int nodeOf(String employeeId) {
+        return storage.nodeOf(employeeId);
+    }
+
+    @Override
+    public int[] children(int node) {
+        return storage.children(node);
+    }
+
+    @Override
+    public int numberOfManagers(int node) {
+        return storage.parents(node).length;
+    }
+
+    @Override
+    public Employee employee(int node) {
+        return storage.employee(node);
+    }
+
+    @Override
+    public String employeeId(int node) {
+        return storage.employeeId(node);
+    }
+
+    @Override
+    public int size() {
+        return storage.size();
+    }
+
+    @Override
+    public int cachedNumberOfReports(int node) {
+        return (reportCounts[node] >> 1) - 1;
+    }
+
+    @Override
+    public boolean isCachedTreeShaped(int node) {
+        return (reportCounts[node] & 1) == 1;
+    }
+
+    @Override
+    public void cacheNumberOfReports(int node, int numberOfReports, boolean treeShaped) {
+        reportCounts[node] = ((numberOfReports + 1) << 1) | (treeShaped ? 1 : 0);
+    }
+
+    @Override
+    public Employee cachedReportingTree(int node) {
+        return reportingTrees[node];
+    }
+
+    @Override
+    public long cachedTreeDigest(int node) {
+        return treeDigests[node];
+    }
+
+    @Override
+    public void cacheReportingTree(int node, Employee reportingTree, long treeDigest) {
+        treeDigests[node] = treeDigest;
+        reportingTrees[node] = reportingTree;
+    }
+}
@@ -0,0 +1,50 @@
+package com.mindex.challenge.index;
+
+import com.mindex.challenge.data.Employee;
+
+/**
+ * 64 bit digest of a reporting tree, folded from the employeeId and version of every employee in it. The digest of an
+ * employee starts from its own employeeId and version and adds the digests of its direct reports in order, so it
+ * changes whenever an employee in the tree is written or the shape of the tree changes.
+ */
+public final class TreeDigest {
+
+    private TreeDigest() { }
+
+    /**
+     * @param employee The employee at the top of the tree.
+     * @return The digest of the employee without any direct reports.
+     */
+    public static long of(Employee employee) {
+        long hash = 1125899906842597L;
+        String employeeId = employee.getEmployeeId();
+        for (int i = 0; i < employeeId.length(); i++) {
+            hash = 31 * hash + employeeId.charAt(i);
+        }
+        long version = employee.getVersion() == null ? 0 : employee.getVersion();
+        return mix(mix(hash) + version);
+    }
+
+    /**
+     * @param digest The digest of the employee so far.
+     * @param directReportDigest The digest of the tree of the next direct report.
+     * @return The digest of the employee with the direct report added.
+     */
+    public static long add(long digest, long directReportDigest) {
+        return mix(31 * digest + directReportDigest);
+    }
+
+    /**
+     * @return The digest as a fixed width hex string, as used for entity tags.
+     */
+    public static String toString(long digest) {
+        return String.format("%016x", digest);
+    }
+
+    // The finalizer of SplitMix64, so that every input bit affects every output bit.
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,77 @@
+package com.mindex.challenge.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Counts the repository calls made while handling each request and records them as the repository.calls distribution,
+ * tagged with the request uri pattern like the http.server.requests timer.
+ *
+ * The calls are counted at the repository boundary by the {@link RepositoryCallInterceptor}, whichever the storage, on
+ * the thread that handles the request. When a handler goes asynchronous, the count is set aside on the request until
+ * the result is dispatched back, so calls made from other threads, such as the ones of streaming responses and server
+ * sent events, are not counted, and the thread does not keep the count of a request it is no longer handling.
+ */
+@Component
+public class RepositoryCallCounter implements AsyncHandlerInterceptor {
+
+    private static final ThreadLocal<int[]> CALLS = new ThreadLocal<>();
+
+    private static final String CALLS_ATTRIBUTE = RepositoryCallCounter.class.getName() + ".calls";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * Counts a call made by the current thread, if it is handling a request.
+     */
+    static void countCall() {
+        int[] calls = CALLS.get();
+        if (calls != null) {
+            calls[0]++;
+        }
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // The dispatch of an asynchronous result carries on with the count of the request.
+        int[] calls = (int[]) request.getAttribute(CALLS_ATTRIBUTE);
+        CALLS.set(calls == null ? new int[1] : calls);
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        int[] calls = CALLS.get();
+        CALLS.remove();
+        if (calls != null) {
+            request.setAttribute(CALLS_ATTRIBUTE, calls);
+        }
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception exception) {
+        int[] calls = CALLS.get();
+        if (calls == null) {
+            return;
+        }
+        CALLS.remove();
+        request.removeAttribute(CALLS_ATTRIBUTE);
+
+        Object uri = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        DistributionSummary.builder("repository.calls")
+                .description("Repository calls made per request")
+                .tag("uri", uri == null ? "UNKNOWN" : uri.toString())
+                .tag("method", request.getMethod())
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(calls[0]);
+    }
+}
@@ -0,0 +1,47 @@
+package com.mindex.challenge.metrics;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.framework.Advised;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.data.repository.Repository;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Proxy;
+
+/**
+ * Counts each call to a repository bean for the {@link RepositoryCallCounter}, whether the repository is backed by
+ * Mongo or held in memory. The advice is added to the proxy Spring Data creates for a repository interface, and any
+ * other repository is proxied by class, so it can still be injected and checked as its own type.
+ */
+@Component
+public class RepositoryCallInterceptor implements BeanPostProcessor, MethodInterceptor {
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!(bean instanceof Repository)) {
+            return bean;
+        }
+        if (bean instanceof Advised && !((Advised) bean).isFrozen()) {
+            ((Advised) bean).addAdvice(this);
+            return bean;
+        }
+        ProxyFactory proxyFactory = new ProxyFactory(bean);
+        if (!Proxy.isProxyClass(bean.getClass())) {
+            proxyFactory.setProxyTargetClass(true);
+        }
+        proxyFactory.addAdvice(this);
+        return proxyFactory.getProxy(bean.getClass().getClassLoader());
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        if (!AopUtils.isEqualsMethod(invocation.getMethod()) && !AopUtils.isHashCodeMethod(invocation.getMethod())
+                && !AopUtils.isToStringMethod(invocation.getMethod())) {
+            RepositoryCallCounter.countCall();
+        }
+        return invocation.proceed();
+    }
+}
@@ -1,13 +1,28 @@
 package com.mindex.challenge.service;
 
 import com.mindex.challenge.data.Compensation;
+import com.mindex.challenge.data.CompensationBulkResult;
+import com.mindex.challenge.data.CompensationBulkRow;
+import com.mindex.challenge.data.CompensationStatistics;
+import com.mindex.challenge.data.PayrollRollup;
 
+import java.util.Iterator;
 import java.util.List;
 
 public interface CompensationService {
 
     Compensation retrieveCompensation(String employeeId);
 
+    Compensation retrieveCompensation(String employeeId, String asOf);
+
+    List<Compensation> retrieveCompensationHistory(String employeeId);
+
     Compensation createCompensation(String employeeId, Compensation compensation);
 
+    List<CompensationBulkResult> bulkCreateCompensation(Iterator<CompensationBulkRow> rows);
+
+    CompensationStatistics retrieveCompensationStatistics(String department);
+
+    PayrollRollup retrievePayrollRollup(String employeeId, String asOf, boolean byDepartment);
+
 }
@@ -1,9 +1,22 @@
 package com.mindex.challenge.service;
 
+import com.mindex.challenge.cache.BoundedCache;
 import com.mindex.challenge.data.Employee;
+import com.mindex.challenge.data.EmployeeBulkResult;
+import com.mindex.challenge.data.EmployeePage;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
 
 public interface EmployeeService {
     Employee create(Employee employee);
     Employee read(String id);
     Employee update(Employee employee);
+    List<EmployeeBulkResult> bulkSave(Iterator<Employee> employees);
+    Stream<Employee> streamAll();
+    EmployeePage list(String cursor, String department, String position, Integer pageSize);
+    EmployeePage listDirectReports(String id, String cursor, String department, String position, Integer pageSize);
+    List<Employee> search(String query, String department, String position, Integer limit);
+    BoundedCache.Stats cacheStats();
 }
@@ -0,0 +1,9 @@
+package com.mindex.challenge.service;
+
+import com.mindex.challenge.data.OrgAnalytics;
+
+public interface OrgAnalyticsService {
+
+    OrgAnalytics retrieveOrgAnalytics(boolean withEmployees);
+
+}
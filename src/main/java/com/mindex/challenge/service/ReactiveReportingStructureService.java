@@ -0,0 +1,15 @@
+package com.mindex.challenge.service;
+
+import com.mindex.challenge.data.ReportingStructure;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+public interface ReactiveReportingStructureService {
+    Mono<ReportingStructure> retrieveReportingStructure(String id);
+
+    Mono<ReportingStructure> retrieveReportingStructure(String id, Integer depth, String fields);
+
+    Flux<ReportingStructure> retrieveReportingStructures(List<String> ids);
+}
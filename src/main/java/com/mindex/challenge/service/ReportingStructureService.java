@@ -1,9 +1,21 @@
 package com.mindex.challenge.service;
 
+import com.mindex.challenge.data.Employee;
 import com.mindex.challenge.data.ReportingStructure;
 
+import java.util.List;
+import java.util.function.ToIntFunction;
+
 public interface ReportingStructureService {
 
     ReportingStructure retrieveReportingStructure(String id);
 
+    ReportingStructure retrieveReportingStructure(String id, Integer depth, String fields);
+
+    List<ReportingStructure> retrieveReportingStructures(List<String> ids);
+
+    ToIntFunction<String> retrieveAllNumbersOfReports();
+
+    List<Employee> retrieveAllReports(String id);
+
 }
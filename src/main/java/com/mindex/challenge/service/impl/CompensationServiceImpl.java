@@ -1,14 +1,24 @@
 package com.mindex.challenge.service.impl;
 
+import com.mindex.challenge.cache.EmployeeCache;
+import com.mindex.challenge.cache.ResponseCache;
 import com.mindex.challenge.dao.CompensationRepository;
-import com.mindex.challenge.dao.EmployeeRepository;
 import com.mindex.challenge.data.Compensation;
+import com.mindex.challenge.data.CompensationBulkResult;
+import com.mindex.challenge.data.CompensationBulkRow;
 import com.mindex.challenge.data.CompensationDTO;
+import com.mindex.challenge.data.CompensationStatistics;
 import com.mindex.challenge.data.Employee;
+import com.mindex.challenge.data.PayrollRollup;
+import com.mindex.challenge.data.PayrollSummary;
+import com.mindex.challenge.feed.ChangeFeed;
+import com.mindex.challenge.index.CompensationStatsIndex;
 import com.mindex.challenge.service.CompensationService;
+import com.mindex.challenge.service.ReportingStructureService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
@@ -17,66 +27,420 @@ import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
 
 @Service
 public class CompensationServiceImpl implements CompensationService {
 
     private static final Logger LOG = LoggerFactory.getLogger(CompensationServiceImpl.class);
 
+    // The number of employees whose compensations are loaded with a single query for the payroll roll-up.
+    private static final int ROLLUP_BATCH_SIZE = 1000;
+
+    // The attempts of a save to write the next version of a compensation that keeps being changed concurrently.
+    private static final int MAX_WRITE_ATTEMPTS = 3;
+
     @Autowired
-    EmployeeRepository employeeRepository;
+    EmployeeCache employeeCache;
 
     @Autowired
     CompensationRepository compensationRepository;
 
+    @Autowired
+    ResponseCache responseCache;
+
+    @Autowired
+    ChangeFeed changeFeed;
+
+    @Autowired
+    CompensationStatsIndex compensationStatsIndex;
+
+    @Autowired
+    ReportingStructureService reportingStructureService;
+
+    @Value("${compensation-bulk.batch-size}")
+    int bulkBatchSize;
+
     @Override
     public Compensation retrieveCompensation(String employeeId) {
-        LOG.debug("Retrieving compensation info for employee with id [{}]", employeeId);
-        Employee employee = employeeRepository.findByEmployeeId(employeeId);
+        return retrieveCompensation(employeeId, LocalDate.now());
+    }
+
+    @Override
+    public Compensation retrieveCompensation(String employeeId, String asOf) {
+        return retrieveCompensation(employeeId, parseAsOf(asOf));
+    }
+
+    private Compensation retrieveCompensation(String employeeId, LocalDate asOf) {
+        LOG.debug("Retrieving compensation info for employee with id [{}] as of [{}]", employeeId, asOf);
+        Employee employee = employeeCache.find(employeeId);
 
         if (employee == null) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Invalid employee id " + employeeId);
         }
 
-        Compensation compensation = new Compensation();
-        compensation.setEmployee(employee);
-
-        CompensationDTO compensationDTO = compensationRepository.findByEmployeeId(compensation.getEmployee().getEmployeeId());
+        CompensationDTO compensationDTO = compensationRepository
+                .findFirstByEmployeeIdAndEffectiveDateLessThanEqualOrderByEffectiveDateDesc(employee.getEmployeeId(), asOf);
         if (compensationDTO == null) {
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No compensation info found for employee id " + employeeId);
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No compensation info found for employee id " + employeeId + " as of " + asOf);
         }
-        compensation.setSalary(compensationDTO.getSalary().toString());
-        compensation.setEffectiveDate(compensationDTO.getEffectiveDate().format(DateTimeFormatter.ISO_DATE));
 
-        return compensation;
+        return toCompensation(employee, compensationDTO);
+    }
+
+    @Override
+    public List<Compensation> retrieveCompensationHistory(String employeeId) {
+        LOG.debug("Retrieving compensation history for employee with id [{}]", employeeId);
+        Employee employee = employeeCache.find(employeeId);
+
+        if (employee == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Invalid employee id " + employeeId);
+        }
+
+        List<Compensation> history = new ArrayList<>();
+        for (CompensationDTO compensationDTO : compensationRepository.findByEmployeeIdOrderByEffectiveDateAsc(employee.getEmployeeId())) {
+            history.add(toCompensation(employee, compensationDTO));
+        }
+        return history;
     }
 
     @Override
     public Compensation createCompensation(String employeeId, Compensation compensation) {
         LOG.debug("Creating compensation info for employee with id [{}]", employeeId);
 
-        Employee employee = employeeRepository.findByEmployeeId(employeeId);
+        Employee employee = employeeCache.find(employeeId);
 
         if (employee == null) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Invalid employee id " + employeeId);
         }
         compensation.setEmployee(employee);
+        CompensationDTO compensationDTO = toCompensationDTO(employee.getEmployeeId(), compensation.getSalary(), compensation.getEffectiveDate());
+
+        // Saving a compensation with the same effective date replaces it, so the version carries on from that one. The
+        // version is bumped with a conditional write, so of two saves that read the same version only one saves the next
+        // one and the other one reads the compensation again and retries.
+        CompensationDTO existing;
+        for (int attempt = 1; ; attempt++) {
+            existing = compensationRepository.findById(compensationDTO.getCompensationId()).orElse(null);
+            compensationDTO.setVersion(existing == null ? 1L : existing.getVersion() + 1);
+            if (compensationRepository.saveNextVersion(compensationDTO)) {
+                break;
+            }
+            if (attempt == MAX_WRITE_ATTEMPTS) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT, "Compensation was changed concurrently: " + compensationDTO.getCompensationId());
+            }
+            LOG.debug("Retrying save of compensation with id [{}] changed concurrently", compensationDTO.getCompensationId());
+        }
+        compensationStatsIndex.put(compensationDTO, employee);
+        responseCache.invalidate(ResponseCache.compensationKey(employee.getEmployeeId()));
+        changeFeed.publishCompensation(existing, compensationDTO);
+        compensation.setVersion(compensationDTO.getVersion());
+
+        return compensation;
+    }
+
+    /**
+     * Validates the rows as a single compensation is validated and upserts them in batches of
+     * compensation-bulk.batch-size, with one lookup of the employees, one lookup of the compensations they replace and
+     * one bulk write per batch. The rows are pulled from the iterator one batch at a time, so the iterator can parse them
+     * from the request body as they are needed. A row that fails is reported and the others are still saved. If the
+     * iterator throws, the row it was reading is reported as failed and the rest of the rows are not read, since the
+     * body cannot be read past that point.
+     */
+    @Override
+    public List<CompensationBulkResult> bulkCreateCompensation(Iterator<CompensationBulkRow> rows) {
+        LOG.debug("Creating compensation info in bulk");
+
+        List<CompensationBulkResult> results = new ArrayList<>();
+        List<BulkRow> batch = new ArrayList<>(bulkBatchSize);
+        // The compensationIds in the batch. Upserts of the same compensation in a single unordered bulk write could be
+        // applied in any order, so a repeated one starts a new batch.
+        Set<String> batchCompensationIds = new HashSet<>();
+
+        while (true) {
+            int index = results.size() + batch.size();
+            CompensationBulkRow row;
+            try {
+                if (!rows.hasNext()) {
+                    break;
+                }
+                row = rows.next();
+            } catch (RuntimeException exception) {
+                saveBatch(batch, results);
+                results.add(CompensationBulkResult.of(index, null, CompensationBulkResult.Status.FAILED, null, "Unreadable row: " + exception.getMessage()));
+                return results;
+            }
+
+            BulkRow bulkRow = new BulkRow(row == null ? null : row.getEmployeeId());
+            if (row == null) {
+                bulkRow.error = "Empty row";
+            } else if (row.getEmployeeId() == null) {
+                bulkRow.error = "Missing employee id";
+            } else {
+                try {
+                    bulkRow.compensationDTO = toCompensationDTO(row.getEmployeeId(), row.getSalary(), row.getEffectiveDate());
+                } catch (ResponseStatusException exception) {
+                    bulkRow.error = exception.getReason();
+                }
+            }
+
+            if (bulkRow.compensationDTO != null && !batchCompensationIds.add(bulkRow.compensationDTO.getCompensationId())) {
+                saveBatch(batch, results);
+                batchCompensationIds.clear();
+                batchCompensationIds.add(bulkRow.compensationDTO.getCompensationId());
+            }
+            batch.add(bulkRow);
+
+            if (batch.size() >= bulkBatchSize) {
+                saveBatch(batch, results);
+                batchCompensationIds.clear();
+            }
+        }
+
+        saveBatch(batch, results);
+        return results;
+    }
+
+    private void saveBatch(List<BulkRow> batch, List<CompensationBulkResult> results) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        Set<String> employeeIds = new HashSet<>();
+        for (BulkRow row : batch) {
+            if (row.compensationDTO != null) {
+                employeeIds.add(row.employeeId);
+            }
+        }
+        Map<String, Employee> employees = employeeCache.findAll(employeeIds);
+
+        List<String> compensationIds = new ArrayList<>();
+        for (BulkRow row : batch) {
+            if (row.compensationDTO == null) {
+                continue;
+            }
+            if (!employees.containsKey(row.employeeId)) {
+                row.error = "Invalid employee id " + row.employeeId;
+                row.compensationDTO = null;
+                continue;
+            }
+            compensationIds.add(row.compensationDTO.getCompensationId());
+        }
+        Map<String, CompensationDTO> existing = new HashMap<>();
+        if (!compensationIds.isEmpty()) {
+            compensationRepository.findAllById(compensationIds).forEach(compensationDTO -> existing.put(compensationDTO.getCompensationId(), compensationDTO));
+        }
+
+        List<CompensationDTO> writes = new ArrayList<>(compensationIds.size());
+        for (BulkRow row : batch) {
+            if (row.compensationDTO != null) {
+                CompensationDTO replaced = existing.get(row.compensationDTO.getCompensationId());
+                row.compensationDTO.setVersion(replaced == null ? 1L : replaced.getVersion() + 1);
+                writes.add(row.compensationDTO);
+            }
+        }
+        Map<Integer, String> errors = compensationRepository.bulkSave(writes);
+
+        int firstIndex = results.size();
+        int write = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            BulkRow row = batch.get(i);
+            if (row.compensationDTO == null) {
+                results.add(CompensationBulkResult.of(firstIndex + i, row.employeeId, CompensationBulkResult.Status.FAILED, null, row.error));
+                continue;
+            }
+            String error = errors.get(write++);
+            if (error != null) {
+                results.add(CompensationBulkResult.of(firstIndex + i, row.employeeId, CompensationBulkResult.Status.FAILED, null, error));
+                continue;
+            }
+
+            CompensationDTO replaced = existing.get(row.compensationDTO.getCompensationId());
+            compensationStatsIndex.put(row.compensationDTO, employees.get(row.employeeId));
+            responseCache.invalidate(ResponseCache.compensationKey(row.employeeId));
+            changeFeed.publishCompensation(replaced, row.compensationDTO);
+            results.add(CompensationBulkResult.of(firstIndex + i, row.employeeId,
+                    replaced == null ? CompensationBulkResult.Status.CREATED : CompensationBulkResult.Status.UPDATED,
+                    row.compensationDTO.getVersion(), null));
+        }
+
+        LOG.debug("Saved batch of [{}] compensations with [{}] failures", writes.size(), errors.size());
+        batch.clear();
+    }
+
+    /**
+     * Answers from the {@link CompensationStatsIndex}, so the statistics never read the database.
+     */
+    @Override
+    public CompensationStatistics retrieveCompensationStatistics(String department) {
+        LOG.debug("Retrieving compensation statistics for department [{}]", department);
+
+        if (department != null && department.trim().isEmpty()) {
+            department = null;
+        }
+        CompensationStatistics statistics = compensationStatsIndex.statistics(department);
+        if (statistics == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No compensation info found for department " + department);
+        }
+        return statistics;
+    }
+
+    @Override
+    public PayrollRollup retrievePayrollRollup(String employeeId, String asOf, boolean byDepartment) {
+        LOG.debug("Retrieving payroll roll-up for employee with id [{}] as of [{}]", employeeId, asOf);
+
+        LocalDate asOfDate = asOf == null ? LocalDate.now() : parseAsOf(asOf);
+        List<Employee> reports = reportingStructureService.retrieveAllReports(employeeId);
+
+        PayrollAccumulator payroll = new PayrollAccumulator();
+        Map<String, PayrollAccumulator> departments = new TreeMap<>();
+        for (int from = 0; from < reports.size(); from += ROLLUP_BATCH_SIZE) {
+            List<Employee> batch = reports.subList(from, Math.min(reports.size(), from + ROLLUP_BATCH_SIZE));
+            Map<String, BigDecimal> salaries = findSalariesInEffect(batch, asOfDate);
+
+            for (Employee report : batch) {
+                BigDecimal salary = salaries.get(report.getEmployeeId());
+                if (salary != null) {
+                    payroll.add(salary);
+                    if (byDepartment) {
+                        departments.computeIfAbsent(groupOf(report.getDepartment()), department -> new PayrollAccumulator()).add(salary);
+                    }
+                }
+            }
+        }
+
+        PayrollRollup rollup = new PayrollRollup();
+        rollup.setEmployeeId(employeeId);
+        rollup.setAsOf(asOfDate.format(DateTimeFormatter.ISO_DATE));
+        rollup.setNumberOfReports(reports.size());
+        rollup.setReportsWithoutCompensation(reports.size() - payroll.count);
+        rollup.setPayroll(payroll.toSummary());
+        if (byDepartment) {
+            Map<String, PayrollSummary> departmentSummaries = new LinkedHashMap<>();
+            departments.forEach((department, accumulator) -> departmentSummaries.put(department, accumulator.toSummary()));
+            rollup.setDepartments(departmentSummaries);
+        }
+        return rollup;
+    }
+
+    /**
+     * Loads the timelines of all the given employees with a single query and picks the salary in effect on the date.
+     */
+    private Map<String, BigDecimal> findSalariesInEffect(List<Employee> employees, LocalDate asOf) {
+        List<String> employeeIds = new ArrayList<>(employees.size());
+        for (Employee employee : employees) {
+            employeeIds.add(employee.getEmployeeId());
+        }
+
+        Map<String, CompensationDTO> inEffect = new HashMap<>();
+        for (CompensationDTO compensationDTO : compensationRepository.findByEmployeeIdInAndEffectiveDateLessThanEqual(employeeIds, asOf)) {
+            inEffect.merge(compensationDTO.getEmployeeId(), compensationDTO,
+                    (current, other) -> other.getEffectiveDate().isAfter(current.getEffectiveDate()) ? other : current);
+        }
+
+        Map<String, BigDecimal> salaries = new HashMap<>();
+        inEffect.forEach((id, compensationDTO) -> salaries.put(id, compensationDTO.getSalary()));
+        return salaries;
+    }
+
+    /**
+     * Validates the salary and effective date formats, and that the salary is not negative, before they are saved into
+     * the database.
+     */
+    private static CompensationDTO toCompensationDTO(String employeeId, String salary, String effectiveDate) {
+        if (salary == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Missing salary");
+        }
+        if (effectiveDate == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Missing effective date");
+        }
 
         CompensationDTO compensationDTO = new CompensationDTO();
-        compensationDTO.setEmployeeId(employee.getEmployeeId());
+        compensationDTO.setEmployeeId(employeeId);
         try {
-            // Validate the salary and effective date formats before saving into the database.
-            compensationDTO.setSalary(new BigDecimal(compensation.getSalary()));
-            compensationDTO.setEffectiveDate(LocalDate.parse(compensation.getEffectiveDate()));
+            compensationDTO.setSalary(new BigDecimal(salary));
+            compensationDTO.setEffectiveDate(LocalDate.parse(effectiveDate));
+            compensationDTO.setCompensationId(CompensationDTO.compensationId(employeeId, compensationDTO.getEffectiveDate()));
         } catch (NumberFormatException exception) {
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid salary format: " + compensation.getSalary());
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid salary format: " + salary);
+        } catch (DateTimeParseException exception) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid effective date format (YYYY-MM-DD): " + effectiveDate);
+        }
+        if (compensationDTO.getSalary().signum() < 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Salary cannot be negative: " + salary);
+        }
+        return compensationDTO;
+    }
+
+    private static LocalDate parseAsOf(String asOf) {
+        try {
+            return LocalDate.parse(asOf);
         } catch (DateTimeParseException exception) {
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid effective date format (YYYY-MM-DD): " + compensation.getEffectiveDate());
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid as of date format (YYYY-MM-DD): " + asOf);
         }
+    }
 
-        compensationRepository.save(compensationDTO);
+    private static String groupOf(String department) {
+        return department == null ? Employee.UNASSIGNED : department;
+    }
 
+    private static Compensation toCompensation(Employee employee, CompensationDTO compensationDTO) {
+        Compensation compensation = new Compensation();
+        compensation.setEmployee(employee);
+        compensation.setSalary(compensationDTO.getSalary().toString());
+        compensation.setEffectiveDate(compensationDTO.getEffectiveDate().format(DateTimeFormatter.ISO_DATE));
+        compensation.setVersion(compensationDTO.getVersion());
         return compensation;
     }
 
+    /**
+     * A row of a bulk upload, valid until it fails.
+     */
+    private static class BulkRow {
+
+        private final String employeeId;
+
+        // Null once the row has failed.
+        private CompensationDTO compensationDTO;
+
+        private String error;
+
+        BulkRow(String employeeId) {
+            this.employeeId = employeeId;
+        }
+    }
+
+    /**
+     * Running totals of the salaries of a group of employees.
+     */
+    private static class PayrollAccumulator {
+
+        private int count;
+
+        private BigDecimal total = BigDecimal.ZERO;
+
+        private BigDecimal min;
+
+        private BigDecimal max;
+
+        void add(BigDecimal salary) {
+            count++;
+            total = total.add(salary);
+            min = min == null ? salary : min.min(salary);
+            max = max == null ? salary : max.max(salary);
+        }
+
+        PayrollSummary toSummary() {
+            return PayrollSummary.of(count, total, min, max);
+        }
+    }
+
 }
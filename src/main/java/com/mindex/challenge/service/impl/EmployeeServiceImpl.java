@@ -1,28 +1,90 @@
 package com.mindex.challenge.service.impl;
 
+import com.mindex.challenge.cache.BoundedCache;
+import com.mindex.challenge.cache.EmployeeCache;
+import com.mindex.challenge.cache.ResponseCache;
 import com.mindex.challenge.dao.EmployeeRepository;
 import com.mindex.challenge.data.Employee;
+import com.mindex.challenge.data.EmployeeBulkResult;
+import com.mindex.challenge.data.EmployeePage;
+import com.mindex.challenge.feed.ChangeFeed;
+import com.mindex.challenge.index.CompensationStatsIndex;
+import com.mindex.challenge.index.EmployeeSearchIndex;
+import com.mindex.challenge.index.OrgChartIndex;
 import com.mindex.challenge.service.EmployeeService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Service
 public class EmployeeServiceImpl implements EmployeeService {
 
     private static final Logger LOG = LoggerFactory.getLogger(EmployeeServiceImpl.class);
 
+    // The attempts of an update to save the next version of an employee that keeps being changed concurrently.
+    private static final int MAX_WRITE_ATTEMPTS = 3;
+
     @Autowired
     private EmployeeRepository employeeRepository;
 
+    @Autowired
+    private OrgChartIndex orgChartIndex;
+
+    @Autowired
+    private EmployeeCache employeeCache;
+
+    @Autowired
+    private EmployeeSearchIndex employeeSearchIndex;
+
+    @Autowired
+    private ResponseCache responseCache;
+
+    @Autowired
+    private ChangeFeed changeFeed;
+
+    @Autowired
+    private CompensationStatsIndex compensationStatsIndex;
+
+    @Value("${employee-bulk.batch-size}")
+    private int bulkBatchSize;
+
+    @Value("${employee-list.default-page-size}")
+    private int defaultPageSize;
+
+    @Value("${employee-list.max-page-size}")
+    private int maxPageSize;
+
+    @Value("${employee-search.default-limit}")
+    private int defaultSearchLimit;
+
+    @Value("${employee-search.max-limit}")
+    private int maxSearchLimit;
+
     @Override
     public Employee create(Employee employee) {
         LOG.debug("Creating employee [{}]", employee);
+        checkDirectReports(employee);
 
         employee.setEmployeeId(UUID.randomUUID().toString());
+        employee.setVersion(1L);
         employeeRepository.insert(employee);
+        orgChartIndex.put(employee);
+        employeeCache.put(employee);
+        employeeSearchIndex.put(employee);
+        changeFeed.publishEmployee(null, employee);
 
         return employee;
     }
@@ -31,7 +93,7 @@ public class EmployeeServiceImpl implements EmployeeService {
     public Employee read(String id) {
         LOG.debug("Creating employee with id [{}]", id);
 
-        Employee employee = employeeRepository.findByEmployeeId(id);
+        Employee employee = employeeCache.find(id);
 
         if (employee == null) {
             throw new RuntimeException("Invalid employeeId: " + id);
@@ -43,7 +105,253 @@ public class EmployeeServiceImpl implements EmployeeService {
     @Override
     public Employee update(Employee employee) {
         LOG.debug("Updating employee [{}]", employee);
+        checkDirectReports(employee);
 
-        return employeeRepository.save(employee);
+        // The version is bumped with a conditional write, so of two updates that read the same version only one saves
+        // the next one. The other one reads the employee again and retries, since an update replaces the whole
+        // employee anyway.
+        Employee existing = employeeCache.find(employee.getEmployeeId());
+        for (int attempt = 1; ; attempt++) {
+            employee.setVersion(nextVersion(existing));
+            if (employeeRepository.saveNextVersion(employee)) {
+                break;
+            }
+            if (attempt == MAX_WRITE_ATTEMPTS) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT, "Employee was changed concurrently: " + employee.getEmployeeId());
+            }
+            LOG.debug("Retrying update of employee with id [{}] changed concurrently", employee.getEmployeeId());
+            existing = employeeRepository.findById(employee.getEmployeeId()).orElse(null);
+        }
+        orgChartIndex.put(employee);
+        employeeCache.put(employee);
+        employeeSearchIndex.put(employee);
+        compensationStatsIndex.put(employee);
+        responseCache.invalidateEmployee(employee.getEmployeeId());
+        changeFeed.publishEmployee(existing, employee);
+
+        return employee;
+    }
+
+    /**
+     * Creates the employees without an employeeId and updates the others, writing them in batches of
+     * employee-bulk.batch-size with one bulk write each. The employees are pulled from the iterator one batch at a time,
+     * so the iterator can parse them from the request body as they are needed. If the iterator throws, the employee it
+     * was reading is reported as failed and the rest of the employees are not read, since the body cannot be read
+     * past that point.
+     */
+    @Override
+    public List<EmployeeBulkResult> bulkSave(Iterator<Employee> employees) {
+        LOG.debug("Saving employees in bulk");
+
+        List<EmployeeBulkResult> results = new ArrayList<>();
+        List<Employee> batch = new ArrayList<>(bulkBatchSize);
+        BitSet inserts = new BitSet();
+
+        while (true) {
+            int index = results.size() + batch.size();
+            Employee employee;
+            try {
+                if (!employees.hasNext()) {
+                    break;
+                }
+                employee = employees.next();
+            } catch (RuntimeException exception) {
+                saveBatch(batch, inserts, results);
+                results.add(EmployeeBulkResult.of(index, null, EmployeeBulkResult.Status.FAILED, "Unreadable employee: " + exception.getMessage()));
+                return results;
+            }
+
+            if (employee == null) {
+                saveBatch(batch, inserts, results);
+                results.add(EmployeeBulkResult.of(index, null, EmployeeBulkResult.Status.FAILED, "Empty employee"));
+                continue;
+            }
+            String directReportsError = directReportsError(employee);
+            if (directReportsError != null) {
+                saveBatch(batch, inserts, results);
+                results.add(EmployeeBulkResult.of(index, employee.getEmployeeId(), EmployeeBulkResult.Status.FAILED, directReportsError));
+                continue;
+            }
+            if (employee.getEmployeeId() == null) {
+                employee.setEmployeeId(UUID.randomUUID().toString());
+                inserts.set(batch.size());
+            }
+            batch.add(employee);
+
+            if (batch.size() >= bulkBatchSize) {
+                saveBatch(batch, inserts, results);
+            }
+        }
+
+        saveBatch(batch, inserts, results);
+        return results;
+    }
+
+    private void saveBatch(List<Employee> batch, BitSet inserts, List<EmployeeBulkResult> results) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        Map<String, Employee> existing = setVersions(batch, inserts);
+        Map<Integer, String> errors = employeeRepository.bulkSave(batch, inserts);
+
+        int firstIndex = results.size();
+        for (int i = 0; i < batch.size(); i++) {
+            Employee employee = batch.get(i);
+            String error = errors.get(i);
+            if (error != null) {
+                results.add(EmployeeBulkResult.of(firstIndex + i, employee.getEmployeeId(), EmployeeBulkResult.Status.FAILED, error));
+                continue;
+            }
+
+            orgChartIndex.put(employee);
+            employeeCache.put(employee);
+            employeeSearchIndex.put(employee);
+            compensationStatsIndex.put(employee);
+            responseCache.invalidateEmployee(employee.getEmployeeId());
+            changeFeed.publishEmployee(existing.get(employee.getEmployeeId()), employee);
+            results.add(EmployeeBulkResult.of(firstIndex + i, employee.getEmployeeId(),
+                    inserts.get(i) ? EmployeeBulkResult.Status.CREATED : EmployeeBulkResult.Status.UPDATED, null));
+        }
+
+        LOG.debug("Saved batch of [{}] employees with [{}] failures", batch.size(), errors.size());
+        batch.clear();
+        inserts.clear();
+    }
+
+    /**
+     * Bumps the versions of the employees in the batch, loading the current versions of the updated ones with a single
+     * query.
+     *
+     * @return The current state of the updated employees that exist, by employeeId.
+     */
+    private Map<String, Employee> setVersions(List<Employee> batch, BitSet inserts) {
+        List<String> updatedIds = new ArrayList<>(batch.size() - inserts.cardinality());
+        for (int i = 0; i < batch.size(); i++) {
+            if (!inserts.get(i)) {
+                updatedIds.add(batch.get(i).getEmployeeId());
+            }
+        }
+
+        Map<String, Employee> existing = new HashMap<>();
+        if (!updatedIds.isEmpty()) {
+            employeeRepository.findAllById(updatedIds).forEach(employee -> existing.put(employee.getEmployeeId(), employee));
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            Employee employee = batch.get(i);
+            employee.setVersion(inserts.get(i) ? 1L : nextVersion(existing.get(employee.getEmployeeId())));
+        }
+        return existing;
+    }
+
+    /**
+     * Rejects the employee before it is written if a direct report is missing its employeeId, since the indexes and
+     * caches that are updated after the write only know direct reports by employeeId.
+     */
+    private static void checkDirectReports(Employee employee) {
+        String error = directReportsError(employee);
+        if (error != null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, error);
+        }
+    }
+
+    private static String directReportsError(Employee employee) {
+        if (employee.getDirectReports() != null) {
+            for (Employee directReport : employee.getDirectReports()) {
+                if (directReport == null || directReport.getEmployeeId() == null) {
+                    return "Every direct report needs an employeeId";
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return The version of the next write of the employee, given its current state or null if it does not exist.
+     */
+    private static long nextVersion(Employee existing) {
+        if (existing == null || existing.getVersion() == null) {
+            return 1;
+        }
+        return existing.getVersion() + 1;
+    }
+
+    @Override
+    public Stream<Employee> streamAll() {
+        LOG.debug("Streaming all employees");
+
+        return employeeRepository.streamAllBy();
+    }
+
+    @Override
+    public EmployeePage list(String cursor, String department, String position, Integer pageSize) {
+        LOG.debug("Listing employees after [{}] with department [{}] and position [{}]", cursor, department, position);
+
+        return findPage(null, cursor, department, position, pageSize);
+    }
+
+    @Override
+    public EmployeePage listDirectReports(String id, String cursor, String department, String position, Integer pageSize) {
+        LOG.debug("Listing direct reports of employee with id [{}] after [{}]", id, cursor);
+
+        Employee manager = employeeCache.find(id);
+        if (manager == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Invalid employeeId: " + id);
+        }
+
+        List<String> directReportIds = new ArrayList<>();
+        if (manager.getDirectReports() != null) {
+            for (Employee directReport : manager.getDirectReports()) {
+                if (directReport != null && directReport.getEmployeeId() != null) {
+                    directReportIds.add(directReport.getEmployeeId());
+                }
+            }
+        }
+        return findPage(directReportIds, cursor, department, position, pageSize);
+    }
+
+    /**
+     * Finds one more employee than the page size, so the cursor is only handed out when there is a next page. The
+     * cursor is the last employeeId of the page.
+     */
+    private EmployeePage findPage(List<String> employeeIds, String cursor, String department, String position, Integer pageSize) {
+        int limit = pageSize == null ? defaultPageSize : pageSize;
+        if (limit < 1 || limit > maxPageSize) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid page size, must be between 1 and " + maxPageSize + ": " + pageSize);
+        }
+
+        List<Employee> employees = employeeRepository.findPage(employeeIds, cursor, department, position, limit + 1);
+        if (employees.size() <= limit) {
+            return new EmployeePage(employees, null);
+        }
+        employees = new ArrayList<>(employees.subList(0, limit));
+        return new EmployeePage(employees, employees.get(limit - 1).getEmployeeId());
+    }
+
+    /**
+     * Answers from the {@link EmployeeSearchIndex}, so a search never reads the database. At least one of the query,
+     * department and position is required.
+     */
+    @Override
+    public List<Employee> search(String query, String department, String position, Integer limit) {
+        LOG.debug("Searching employees for [{}] with department [{}] and position [{}]", query, department, position);
+
+        if (isBlank(query) && isBlank(department) && isBlank(position)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "A query, department or position is required");
+        }
+        int searchLimit = limit == null ? defaultSearchLimit : limit;
+        if (searchLimit < 1 || searchLimit > maxSearchLimit) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid limit, must be between 1 and " + maxSearchLimit + ": " + limit);
+        }
+
+        return employeeSearchIndex.search(query, department, position, searchLimit);
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.trim().isEmpty();
+    }
+
+    @Override
+    public BoundedCache.Stats cacheStats() {
+        return employeeCache.stats();
     }
 }
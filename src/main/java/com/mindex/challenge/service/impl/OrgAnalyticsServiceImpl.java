@@ -0,0 +1,82 @@
+package com.mindex.challenge.service.impl;
+
+import com.mindex.challenge.data.EmployeeAnalytics;
+import com.mindex.challenge.data.MetricDistribution;
+import com.mindex.challenge.data.OrgAnalytics;
+import com.mindex.challenge.index.OrgAnalyzer;
+import com.mindex.challenge.index.OrgChartIndex;
+import com.mindex.challenge.service.OrgAnalyticsService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+@Service
+public class OrgAnalyticsServiceImpl implements OrgAnalyticsService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(OrgAnalyticsServiceImpl.class);
+
+    @Autowired
+    private OrgChartIndex orgChartIndex;
+
+    /**
+     * Analyzes the whole org chart index in one pass while holding its read lock, so writes wait until it is done.
+     */
+    @Override
+    public OrgAnalytics retrieveOrgAnalytics(boolean withEmployees) {
+        LOG.debug("Retrieving org analytics with employees [{}]", withEmployees);
+
+        long start = System.nanoTime();
+        OrgAnalytics orgAnalytics = orgChartIndex.query(() -> {
+            OrgAnalyzer.Result result = OrgAnalyzer.analyze(orgChartIndex, ForkJoinPool.commonPool());
+            return summarize(result, withEmployees);
+        });
+        LOG.debug("Analyzed [{}] employees in [{}] ms", orgAnalytics.getNumberOfEmployees(),
+                (System.nanoTime() - start) / 1_000_000);
+
+        return orgAnalytics;
+    }
+
+    private OrgAnalytics summarize(OrgAnalyzer.Result result, boolean withEmployees) {
+        int size = orgChartIndex.size();
+        int[] levels = new int[size];
+        int[] spans = new int[size];
+        int[] numberOfReports = new int[size];
+        int[] subtreeDepths = new int[size];
+        int employees = 0;
+        int managers = 0;
+        List<EmployeeAnalytics> employeeAnalytics = withEmployees ? new ArrayList<>() : null;
+
+        for (int node = 0; node < size; node++) {
+            if (orgChartIndex.employee(node) == null) {
+                continue;
+            }
+            levels[employees++] = result.level(node);
+            if (result.directReports(node) > 0) {
+                spans[managers] = result.directReports(node);
+                numberOfReports[managers] = result.numberOfReports(node);
+                subtreeDepths[managers] = result.subtreeDepth(node);
+                managers++;
+            }
+            if (withEmployees) {
+                employeeAnalytics.add(new EmployeeAnalytics(orgChartIndex.employeeId(node), result.level(node),
+                        result.directReports(node), result.numberOfReports(node), result.subtreeDepth(node)));
+            }
+        }
+
+        OrgAnalytics orgAnalytics = new OrgAnalytics();
+        orgAnalytics.setNumberOfEmployees(employees);
+        orgAnalytics.setNumberOfManagers(managers);
+        orgAnalytics.setLevel(MetricDistribution.of(Arrays.copyOf(levels, employees)));
+        orgAnalytics.setSpan(MetricDistribution.of(Arrays.copyOf(spans, managers)));
+        orgAnalytics.setNumberOfReports(MetricDistribution.of(Arrays.copyOf(numberOfReports, managers)));
+        orgAnalytics.setSubtreeDepth(MetricDistribution.of(Arrays.copyOf(subtreeDepths, managers)));
+        orgAnalytics.setEmployees(employeeAnalytics);
+        return orgAnalytics;
+    }
+}
@@ -0,0 +1,106 @@
+package com.mindex.challenge.service.impl;
+
+import com.mindex.challenge.dao.ReactiveEmployeeRepository;
+import com.mindex.challenge.data.Employee;
+import com.mindex.challenge.data.ReportingStructure;
+import com.mindex.challenge.index.SubtreeGraph;
+import com.mindex.challenge.service.ReactiveReportingStructureService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Builds reporting structures from subtrees loaded with the reactive Mongo driver, so no thread is held while waiting
+ * for the database.
+ *
+ * The subtree is loaded one level of the org chart at a time, looking up the employees of a level concurrently, at most
+ * reporting-structure.reactive.concurrency at once. Once the whole subtree has been loaded it is walked in memory by
+ * the same traversal as the level-batched strategy.
+ */
+@Service
+@ConditionalOnProperty(name = "reporting-structure.reactive.enabled", havingValue = "true")
+public class ReactiveReportingStructureServiceImpl implements ReactiveReportingStructureService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ReactiveReportingStructureServiceImpl.class);
+
+    @Autowired
+    private ReactiveEmployeeRepository reactiveEmployeeRepository;
+
+    @Autowired
+    private ReportingStructureServiceImpl reportingStructureService;
+
+    @Value("${reporting-structure.reactive.concurrency}")
+    private int concurrency;
+
+    @Override
+    public Mono<ReportingStructure> retrieveReportingStructure(String id) {
+        LOG.debug("Retrieving reporting structure reactively for employee with id [{}]", id);
+
+        return loadSubtrees(Collections.singletonList(id))
+                .map(graph -> reportingStructureService.buildReportingStructure(graph, id));
+    }
+
+    @Override
+    public Mono<ReportingStructure> retrieveReportingStructure(String id, Integer depth, String fields) {
+        LOG.debug("Retrieving reporting structure reactively for employee with id [{}] to depth [{}] with fields [{}]", id, depth, fields);
+
+        // The whole subtree is loaded either way, since all the reports are counted.
+        int depthLimit = ReportingStructureServiceImpl.parseDepth(depth);
+        ReportingStructure.Fields parsedFields = ReportingStructureServiceImpl.parseFields(fields);
+        return loadSubtrees(Collections.singletonList(id))
+                .map(graph -> reportingStructureService.buildReportingStructure(graph, id, depthLimit, parsedFields));
+    }
+
+    @Override
+    public Flux<ReportingStructure> retrieveReportingStructures(List<String> ids) {
+        LOG.debug("Retrieving reporting structures reactively for [{}] employees", ids.size());
+
+        reportingStructureService.checkBatchSize(ids);
+        return loadSubtrees(ids).flatMapIterable(graph -> reportingStructureService.buildReportingStructures(graph, ids));
+    }
+
+    private Mono<SubtreeGraph> loadSubtrees(List<String> ids) {
+        // Every employeeId that has been looked up, so overlaps and cycles are only ever loaded once.
+        Set<String> requested = ConcurrentHashMap.newKeySet();
+        requested.addAll(ids);
+
+        return loadLevel(new ArrayList<>(new LinkedHashSet<>(ids)))
+                .expand(level -> {
+                    List<String> nextLevel = new ArrayList<>();
+                    for (Employee employee : level) {
+                        if (employee.getDirectReports() != null) {
+                            for (Employee directReport : employee.getDirectReports()) {
+                                if (directReport != null && directReport.getEmployeeId() != null && requested.add(directReport.getEmployeeId())) {
+                                    nextLevel.add(directReport.getEmployeeId());
+                                }
+                            }
+                        }
+                    }
+                    return nextLevel.isEmpty() ? Mono.empty() : loadLevel(nextLevel);
+                })
+                .flatMapIterable(level -> level)
+                .collectList()
+                .map(SubtreeGraph::of);
+    }
+
+    /**
+     * Looks up the employees concurrently. Employees that do not exist are left out.
+     */
+    private Mono<List<Employee>> loadLevel(List<String> employeeIds) {
+        return Flux.fromIterable(employeeIds)
+                .flatMap(reactiveEmployeeRepository::findByEmployeeId, concurrency)
+                .collectList();
+    }
+}
@@ -3,80 +3,601 @@ package com.mindex.challenge.service.impl;
 import com.mindex.challenge.dao.EmployeeRepository;
 import com.mindex.challenge.data.Employee;
 import com.mindex.challenge.data.ReportingStructure;
+import com.mindex.challenge.index.OrgAnalyzer;
+import com.mindex.challenge.index.OrgChartIndex;
+import com.mindex.challenge.index.OrgGraph;
+import com.mindex.challenge.index.OrgTraversal;
+import com.mindex.challenge.index.ReportingMemo;
+import com.mindex.challenge.index.SubtreeGraph;
+import com.mindex.challenge.index.TreeDigest;
 import com.mindex.challenge.service.ReportingStructureService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
 
+import javax.annotation.PostConstruct;
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Set;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.ToIntFunction;
 
 @Service
 public class ReportingStructureServiceImpl implements ReportingStructureService {
 
     private static final Logger LOG = LoggerFactory.getLogger(ReportingStructureServiceImpl.class);
 
+    /**
+     * Walks the org chart index that is kept in memory. No database calls are made.
+     */
+    static final String INDEX_STRATEGY = "index";
+
+    /**
+     * Loads the subtree from the database one level at a time, then walks it in memory.
+     */
+    static final String LEVEL_BATCHED_STRATEGY = "level-batched";
+
+    @Autowired
+    private OrgChartIndex orgChartIndex;
+
     @Autowired
     private EmployeeRepository employeeRepository;
 
+    @Value("${reporting-structure.strategy:" + INDEX_STRATEGY + "}")
+    private String strategy;
+
+    @Value("${reporting-structure.max-depth:" + OrgTraversal.UNLIMITED + "}")
+    private int maxDepth;
+
+    @Value("${reporting-structure.max-nodes:" + OrgTraversal.UNLIMITED + "}")
+    private int maxNodes;
+
+    @Value("${reporting-structure.max-batch-size}")
+    private int maxBatchSize;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private OrgTraversal traversal;
+
+    private DistributionSummary traversalReports;
+
+    private DistributionSummary traversalDepth;
+
+    private Counter danglingReports;
+
+    private Counter cycles;
+
+    private Counter truncations;
+
+    private Counter memoHits;
+
+    @PostConstruct
+    public void init() {
+        if (!INDEX_STRATEGY.equals(strategy) && !LEVEL_BATCHED_STRATEGY.equals(strategy)) {
+            throw new IllegalStateException("Unknown reporting-structure.strategy: " + strategy);
+        }
+        traversal = new OrgTraversal(maxDepth, maxNodes);
+
+        traversalReports = DistributionSummary.builder("reporting.traversal.reports")
+                .description("Reports walked per traversal, not including the ones skipped with memoized counts")
+                .tag("strategy", strategy)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        traversalDepth = DistributionSummary.builder("reporting.traversal.depth")
+                .description("Deepest level walked per traversal")
+                .tag("strategy", strategy)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        danglingReports = meterRegistry.counter("reporting.traversal.dangling.reports", "strategy", strategy);
+        cycles = meterRegistry.counter("reporting.traversal.cycles", "strategy", strategy);
+        truncations = meterRegistry.counter("reporting.traversal.truncations", "strategy", strategy);
+        memoHits = meterRegistry.counter("reporting.structure.memo.hits", "strategy", strategy);
+        LOG.debug("Using reporting structure strategy [{}] with maxDepth [{}] and maxNodes [{}]", strategy, maxDepth, maxNodes);
+    }
+
     @Override
     public ReportingStructure retrieveReportingStructure(String id) {
         LOG.debug("Retrieving reporting structure for employee with id [{}]", id);
 
+        if (LEVEL_BATCHED_STRATEGY.equals(strategy)) {
+            return buildReportingStructure(SubtreeGraph.of(employeeRepository.findSubtrees(Collections.singleton(id))), id);
+        }
+        return orgChartIndex.query(() -> buildReportingStructure(orgChartIndex, id));
+    }
+
+    /**
+     * Builds the reporting structure with the directReports filled in down to the given depth only, or not at all for
+     * count only. All the reports are still counted. Without a depth and with all fields this is the same as
+     * {@link #retrieveReportingStructure(String)}.
+     */
+    @Override
+    public ReportingStructure retrieveReportingStructure(String id, Integer depth, String fields) {
+        LOG.debug("Retrieving reporting structure for employee with id [{}] to depth [{}] with fields [{}]", id, depth, fields);
+
+        int depthLimit = parseDepth(depth);
+        ReportingStructure.Fields parsedFields = parseFields(fields);
+        if (LEVEL_BATCHED_STRATEGY.equals(strategy)) {
+            SubtreeGraph graph = SubtreeGraph.of(employeeRepository.findSubtrees(Collections.singleton(id)));
+            return buildReportingStructure(graph, id, depthLimit, parsedFields);
+        }
+        return orgChartIndex.query(() -> buildReportingStructure(orgChartIndex, id, depthLimit, parsedFields));
+    }
+
+    @Override
+    public List<ReportingStructure> retrieveReportingStructures(List<String> ids) {
+        LOG.debug("Retrieving reporting structures for [{}] employees", ids.size());
+
+        checkBatchSize(ids);
+        return buildReportingStructures(ids);
+    }
+
+    /**
+     * Counts the reports of every employee in one pass of the {@link OrgAnalyzer} over the org chart index, whichever
+     * the strategy, instead of a traversal per employee. Employees whose reports may reach the traversal limits are
+     * left out, so they can be looked up one by one and get the same truncated result as the reporting structure.
+     *
+     * The counts stay in the int arrays of the analysis, indexed by node id, and the node of an employeeId is looked
+     * up in the index when its count is asked for. Node ids are only reassigned when the index is rebuilt on startup.
+     *
+     * @return The number of reports of an employeeId, or -1 if it is left out or was not in the index at the time.
+     */
+    @Override
+    public ToIntFunction<String> retrieveAllNumbersOfReports() {
+        LOG.debug("Retrieving the number of reports of every employee");
+
+        OrgAnalyzer.Result result = orgChartIndex.query(() -> OrgAnalyzer.analyze(orgChartIndex, ForkJoinPool.commonPool()));
+        int analyzedSize = result.size();
+        return employeeId -> {
+            int node = orgChartIndex.query(() -> orgChartIndex.nodeOf(employeeId));
+            if (node < 0 || node >= analyzedSize || !result.isAnalyzed(node)
+                    || result.subtreeDepth(node) >= maxDepth || result.numberOfReports(node) >= maxNodes) {
+                return -1;
+            }
+            return result.numberOfReports(node);
+        };
+    }
+
+    @Override
+    public List<Employee> retrieveAllReports(String id) {
+        LOG.debug("Retrieving all reports of employee with id [{}]", id);
+
+        if (LEVEL_BATCHED_STRATEGY.equals(strategy)) {
+            return collectReports(SubtreeGraph.of(employeeRepository.findSubtrees(Collections.singleton(id))), id);
+        }
+        return orgChartIndex.query(() -> collectReports(orgChartIndex, id));
+    }
+
+    private void recordTraversal(OrgTraversal.Result result) {
+        traversalReports.record(result.getWalkedReports());
+        traversalDepth.record(result.getMaxDepth());
+        danglingReports.increment(result.getDanglingReports());
+        cycles.increment(result.getCycles());
+        if (result.isTruncated()) {
+            truncations.increment();
+        }
+    }
+
+    /**
+     * Collects copies of all the unique reports under the employee, without their directReports. Unlike the reporting
+     * structure, a partial result is not useful here, so hitting the traversal limits is an error.
+     */
+    private List<Employee> collectReports(OrgGraph graph, String id) {
+        int node = graph.nodeOf(id);
+
+        if (node < 0 || graph.employee(node) == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Invalid employeeId: " + id);
+        }
+
+        List<Employee> reports = new ArrayList<>();
+        OrgTraversal.Result result = traversal.traverse(graph, node, (visited, parent, depth) -> {
+            if (parent >= 0) {
+                reports.add(OrgChartIndex.copyWithoutDirectReports(graph.employee(visited)));
+            }
+            return OrgTraversal.DESCEND;
+        });
+        recordTraversal(result);
+
+        if (result.isTruncated()) {
+            throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY, "Reports of employeeId " + id
+                    + " exceed the traversal limits of maxDepth " + maxDepth + " and maxNodes " + maxNodes);
+        }
+        return reports;
+    }
+
+    private List<ReportingStructure> buildReportingStructures(List<String> ids) {
+        if (LEVEL_BATCHED_STRATEGY.equals(strategy)) {
+            // The subtrees of all the requested employees are loaded together, so overlaps are only loaded once.
+            SubtreeGraph graph = SubtreeGraph.of(employeeRepository.findSubtrees(new LinkedHashSet<>(ids)));
+            return buildReportingStructures(graph, ids);
+        }
+        return orgChartIndex.query(() -> buildReportingStructures(orgChartIndex, ids));
+    }
+
+    /**
+     * Builds the reporting structures one after the other on the same memo, so reports shared by several requested
+     * employees are copied once and subtrees counted for one employee are not walked again for the others. An
+     * employeeId that does not exist gets a {@link ReportingStructure#notFound(String)} entry instead of failing the
+     * batch. Reads of the org chart index must run inside a query.
+     */
+    <G extends OrgGraph & ReportingMemo> List<ReportingStructure> buildReportingStructures(G graph, List<String> ids) {
+        List<ReportingStructure> reportingStructures = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            int node = graph.nodeOf(id);
+            if (node < 0 || graph.employee(node) == null) {
+                reportingStructures.add(ReportingStructure.notFound(id));
+            } else {
+                reportingStructures.add(buildReportingStructure(graph, id));
+            }
+        }
+        return reportingStructures;
+    }
+
+    /**
+     * Rejects batches of more than reporting-structure.max-batch-size employees, since the whole batch is built and
+     * held in memory before it is written out.
+     */
+    void checkBatchSize(List<String> ids) {
+        if (ids.size() > maxBatchSize) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Too many employeeIds, must be at most " + maxBatchSize + ": " + ids.size());
+        }
+    }
+
+    /**
+     * Builds the reporting structure from the graph, using and filling in its memo. Reads of the org chart index must
+     * run inside a query.
+     */
+    <G extends OrgGraph & ReportingMemo> ReportingStructure buildReportingStructure(G graph, String id) {
+        int node = graph.nodeOf(id);
+
+        if (node < 0 || graph.employee(node) == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Invalid employeeId: " + id);
+        }
+
         ReportingStructure reportingStructure = new ReportingStructure();
 
-        Employee employee = employeeRepository.findByEmployeeId(id);
+        if (graph.cachedNumberOfReports(node) >= 0 && graph.cachedReportingTree(node) != null) {
+            memoHits.increment();
+            reportingStructure.setEmployee(graph.cachedReportingTree(node));
+            reportingStructure.setNumberOfReports(graph.cachedNumberOfReports(node));
+            reportingStructure.setEtag(TreeDigest.toString(graph.cachedTreeDigest(node)));
+            return reportingStructure;
+        }
+
+        ReportingVisitor<G> visitor = new ReportingVisitor<>(graph);
+        OrgTraversal.Result result = traversal.traverse(graph, node, visitor);
+        recordTraversal(result);
+        if (result.isTruncated()) {
+            LOG.warn("Reporting structure was truncated by the traversal limits. employeeId=[{}], maxDepth=[{}], maxNodes=[{}]",
+                    id, maxDepth, maxNodes);
+        }
 
-        if (employee == null) {
+        reportingStructure.setEmployee(visitor.root);
+        reportingStructure.setNumberOfReports(result.getNumberOfReports());
+        reportingStructure.setTruncated(result.isTruncated());
+        if (!result.isTruncated()) {
+            reportingStructure.setEtag(TreeDigest.toString(visitor.digests.get(visitor.root)));
+        }
+
+        // Only complete trees are the same no matter which manager they are reached from.
+        if (!result.isTruncated() && result.getCycles() == 0) {
+            visitor.memoize(node, result.getNumberOfReports());
+        }
+
+        return reportingStructure;
+    }
+
+    /**
+     * Builds the reporting structure with only the requested part of the tree. Unless the number of reports is memoized,
+     * the reports are counted by a traversal that copies nothing and memoizes the numbers of reports only, and only the
+     * employees down to the depth are copied.
+     * Reads of the org chart index must run inside a query.
+     *
+     * @param depth The number of levels of directReports to fill in, or {@link OrgTraversal#UNLIMITED}.
+     */
+    <G extends OrgGraph & ReportingMemo> ReportingStructure buildReportingStructure(G graph, String id, int depth,
+                                                                                   ReportingStructure.Fields fields) {
+        if (fields == ReportingStructure.Fields.ALL && depth == OrgTraversal.UNLIMITED) {
+            return buildReportingStructure(graph, id);
+        }
+
+        int node = graph.nodeOf(id);
+
+        if (node < 0 || graph.employee(node) == null) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Invalid employeeId: " + id);
         }
 
-        // This set will contain the all unique employee ids of direct reports.
-        Set<String> allDirectReports = new HashSet<>();
-        calculateNumberOfReports(employee, allDirectReports);
+        ReportingStructure reportingStructure = new ReportingStructure();
 
-        reportingStructure.setEmployee(employee);
-        reportingStructure.setNumberOfReports(allDirectReports.size());
+        if (graph.cachedNumberOfReports(node) >= 0) {
+            memoHits.increment();
+            reportingStructure.setNumberOfReports(graph.cachedNumberOfReports(node));
+        } else {
+            CountingVisitor<G> visitor = new CountingVisitor<>(graph);
+            OrgTraversal.Result result = traversal.traverse(graph, node, visitor);
+            recordTraversal(result);
+            reportingStructure.setNumberOfReports(result.getNumberOfReports());
+            reportingStructure.setTruncated(result.isTruncated());
+            if (!result.isTruncated() && result.getCycles() == 0) {
+                visitor.memoize(node, result.getNumberOfReports());
+            }
+        }
+        if (graph.cachedReportingTree(node) != null) {
+            // The response is worked out from the memoized tree and the query, so it has the same tag.
+            reportingStructure.setEtag(TreeDigest.toString(graph.cachedTreeDigest(node)));
+        }
 
+        if (fields == ReportingStructure.Fields.COUNT) {
+            reportingStructure.setEmployee(OrgChartIndex.copyWithoutDirectReports(graph.employee(node)));
+        } else {
+            fillInDirectReports(graph, node, Math.min(depth, maxDepth), fields, reportingStructure);
+        }
         return reportingStructure;
     }
 
     /**
-     * A recursive method that will collect all the unique employeeIds found in the directReports field of the Employees and
-     * its descendants. Adding the employeeIds to a set ensures that an employee is not counted twice in case there
-     * are any overlaps in direct reports.
+     * Copies the employees down to the depth, without recursing, with an employee reporting to more than one manager
+     * under each of them and without the direct reports that lead back to a manager. Copying stops once maxNodes
+     * employees have been copied, in which case the reporting structure is marked as truncated.
+     */
+    private void fillInDirectReports(OrgGraph graph, int root, int depth, ReportingStructure.Fields fields,
+                                     ReportingStructure reportingStructure) {
+        BitSet onPath = new BitSet();
+        int[] stack = new int[64];
+        int[] nextChild = new int[64];
+        Employee[] copies = new Employee[64];
+        int top = 0;
+        int copied = 0;
+        stack[0] = root;
+        copies[0] = copyOf(graph.employee(root), fields);
+        onPath.set(root);
+        reportingStructure.setEmployee(copies[0]);
+
+        while (top >= 0) {
+            int node = stack[top];
+            int[] children = graph.children(node);
+
+            if (nextChild[top] == children.length || top == depth) {
+                onPath.clear(node);
+                copies[top] = null;
+                top--;
+                continue;
+            }
+
+            int child = children[nextChild[top]++];
+            if (graph.employee(child) == null || onPath.get(child)) {
+                continue;
+            }
+            if (copied == maxNodes) {
+                reportingStructure.setTruncated(true);
+                return;
+            }
+            copied++;
+
+            Employee copy = copyOf(graph.employee(child), fields);
+            if (copies[top].getDirectReports() == null) {
+                copies[top].setDirectReports(new ArrayList<>());
+            }
+            copies[top].getDirectReports().add(copy);
+
+            onPath.set(child);
+            top++;
+            if (top == stack.length) {
+                stack = Arrays.copyOf(stack, top * 2);
+                nextChild = Arrays.copyOf(nextChild, top * 2);
+                copies = Arrays.copyOf(copies, top * 2);
+            }
+            stack[top] = child;
+            nextChild[top] = 0;
+            copies[top] = copy;
+        }
+    }
+
+    private static Employee copyOf(Employee employee, ReportingStructure.Fields fields) {
+        if (fields == ReportingStructure.Fields.IDS) {
+            Employee copy = new Employee();
+            copy.setEmployeeId(employee.getEmployeeId());
+            return copy;
+        }
+        return OrgChartIndex.copyWithoutDirectReports(employee);
+    }
+
+    /**
+     * @return The depth, or {@link OrgTraversal#UNLIMITED} if there is none.
+     */
+    static int parseDepth(Integer depth) {
+        if (depth == null) {
+            return OrgTraversal.UNLIMITED;
+        }
+        if (depth < 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid depth, must not be negative: " + depth);
+        }
+        return depth;
+    }
+
+    /**
+     * @return The fields, or all fields if there are none.
+     */
+    static ReportingStructure.Fields parseFields(String fields) {
+        if (fields == null) {
+            return ReportingStructure.Fields.ALL;
+        }
+        try {
+            return ReportingStructure.Fields.valueOf(fields.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException exception) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid fields (all, ids or count): " + fields);
+        }
+    }
+
+    /**
+     * Counts the reports without copying any employees. Subtrees with a memoized number of reports are skipped when
+     * every report under them has a single manager. On the way back up, the number of reports of every walked employee
+     * whose reports form a tree is worked out from the direct reports, so it can be memoized along with the requested
+     * one.
+     */
+    private static class CountingVisitor<G extends OrgGraph & ReportingMemo> implements OrgTraversal.Visitor {
+
+        protected final G graph;
+
+        // The number of reports of the visited nodes whose reports form a tree.
+        protected final Map<Integer, Integer> treeCounts = new HashMap<>();
+
+        CountingVisitor(G graph) {
+            this.graph = graph;
+        }
+
+        @Override
+        public int visit(int node, int parent, int depth) {
+            if (parent >= 0 && graph.numberOfManagers(node) == 1 && graph.cachedNumberOfReports(node) >= 0
+                    && graph.isCachedTreeShaped(node)) {
+                int known = graph.cachedNumberOfReports(node);
+                treeCounts.put(node, known);
+                return known;
+            }
+            return OrgTraversal.DESCEND;
+        }
+
+        @Override
+        public void leave(int node) {
+            int numberOfReports = 0;
+            for (int directReportNode : graph.children(node)) {
+                if (graph.employee(directReportNode) == null) {
+                    continue;
+                }
+                Integer directReportCount = treeCounts.get(directReportNode);
+                if (directReportCount == null || graph.numberOfManagers(directReportNode) != 1) {
+                    return;
+                }
+                numberOfReports += 1 + directReportCount;
+            }
+            treeCounts.put(node, numberOfReports);
+        }
+
+        /**
+         * Memoizes the number of reports of the root and of every walked employee whose reports form a tree.
+         */
+        void memoize(int rootNode, int numberOfReports) {
+            treeCounts.forEach((node, count) -> graph.cacheNumberOfReports(node, count, true));
+            graph.cacheNumberOfReports(rootNode, numberOfReports, treeCounts.containsKey(rootNode));
+        }
+    }
+
+    /**
+     * Fills in the directReports of copies of the visited employees, so the response contains the additional
+     * information other than the employeeId, especially for the directReports field. An employee reporting to more
+     * than one manager shows up under each of them.
      *
-     * @param parentEmployee The current Employee to calculate the direct reports.
-     * @param allDirectReports The current set of employeeIds found in direct reports.
+     * Trees memoized by earlier traversals are reused as they are instead of being copied again. When every report
+     * under a memoized tree has a single manager, the traversal skips the tree altogether and adds its memoized number
+     * of reports, while reports whose number is memoized without a tree are walked to copy them. The digest of every
+     * copied tree is worked out on the way back up, from the digests of the trees put under it.
      */
-    private void calculateNumberOfReports(Employee parentEmployee, Set<String> allDirectReports) {
-        List<Employee> detailedDirectReports = new ArrayList<>();
-        for (Employee directReport : parentEmployee.getDirectReports()) {
-            // By default, the directReports only have the employeeId, so we need to retrieve the rest of the employee
-            // information from the database such as the directReports list in order to continue calculating the full
-            // number of reports.
-            String directReportEmployeeId = directReport.getEmployeeId();
-            directReport = employeeRepository.findByEmployeeId(directReportEmployeeId);
-            if (directReport != null) {
-                detailedDirectReports.add(directReport);
-                allDirectReports.add(directReport.getEmployeeId());
-                if (directReport.getDirectReports() != null && !directReport.getDirectReports().isEmpty()) {
-                    calculateNumberOfReports(directReport, allDirectReports);
+    private static class ReportingVisitor<G extends OrgGraph & ReportingMemo> extends CountingVisitor<G> {
+
+        // The employees copied by this traversal, which do not include the ones inside reused trees.
+        private final Map<Integer, Employee> hydrated = new HashMap<>();
+
+        // The nodes inside reused trees, which are complete already.
+        private final BitSet reused = new BitSet();
+
+        // The digests of the copied trees that are complete and of the reused ones.
+        private final Map<Employee, Long> digests = new IdentityHashMap<>();
+
+        private Employee root;
+
+        ReportingVisitor(G graph) {
+            super(graph);
+        }
+
+        @Override
+        public int visit(int node, int parent, int depth) {
+            int known = super.visit(node, parent, depth);
+
+            if (parent >= 0 && reused.get(parent)) {
+                reused.set(node);
+                return known;
+            }
+
+            Employee employee = graph.cachedReportingTree(node);
+            if (employee != null) {
+                reused.set(node);
+                digests.put(employee, graph.cachedTreeDigest(node));
+            } else {
+                // Only the number of reports is memoized, so the reports have to be walked to copy them.
+                if (known != OrgTraversal.DESCEND) {
+                    treeCounts.remove(node);
+                    known = OrgTraversal.DESCEND;
                 }
+                employee = OrgChartIndex.copyWithoutDirectReports(graph.employee(node));
+                hydrated.put(node, employee);
+            }
+
+            if (parent >= 0) {
+                addDirectReport(hydrated.get(parent), employee);
             } else {
-                LOG.warn("The direct report under employee did not exist in the database. Skipping employee. "
-                        + "parentEmployeeId=[{}], directReportEmployeeId=[{}]", parentEmployee.getEmployeeId(), directReportEmployeeId);
+                root = employee;
             }
+            return known;
+        }
 
+        @Override
+        public void revisit(int node, int parent, int depth) {
+            if (reused.get(parent)) {
+                return;
+            }
+            // A node inside a reused tree has a memoized tree of its own, since trees are only memoized together with
+            // the trees of all the reports in them.
+            Employee employee = hydrated.get(node);
+            if (reused.get(node)) {
+                employee = graph.cachedReportingTree(node);
+                digests.putIfAbsent(employee, graph.cachedTreeDigest(node));
+            }
+            addDirectReport(hydrated.get(parent), employee);
         }
 
-        // Resets the direct reports to contain the additional information other than the employeeId,
-        // especially for the directReports field.
-        parentEmployee.setDirectReports(detailedDirectReports);
+        @Override
+        public void leave(int node) {
+            Employee employee = hydrated.get(node);
+            if (employee != null) {
+                long digest = TreeDigest.of(employee);
+                if (employee.getDirectReports() != null) {
+                    for (Employee directReport : employee.getDirectReports()) {
+                        digest = TreeDigest.add(digest, digests.get(directReport));
+                    }
+                }
+                digests.put(employee, digest);
+            }
+            super.leave(node);
+        }
+
+        /**
+         * Memoizes the trees copied by this traversal before the numbers of reports.
+         */
+        @Override
+        void memoize(int rootNode, int numberOfReports) {
+            hydrated.forEach((node, employee) -> graph.cacheReportingTree(node, employee, digests.get(employee)));
+            super.memoize(rootNode, numberOfReports);
+        }
+
+        private static void addDirectReport(Employee manager, Employee directReport) {
+            if (manager.getDirectReports() == null) {
+                manager.setDirectReports(new ArrayList<>());
+            }
+            manager.getDirectReports().add(directReport);
+        }
     }
 }
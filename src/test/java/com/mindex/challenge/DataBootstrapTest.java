@@ -1,5 +1,6 @@
 package com.mindex.challenge;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.mindex.challenge.dao.EmployeeRepository;
 import com.mindex.challenge.data.Employee;
 import org.junit.Test;
@@ -7,6 +8,15 @@ import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.junit4.SpringRunner;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
 import static org.junit.Assert.assertEquals;
 
 import static org.junit.Assert.assertNotNull;
@@ -18,6 +28,9 @@ public class DataBootstrapTest {
     @Autowired
     private EmployeeRepository employeeRepository;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
     @Test
     public void test() {
         Employee employee = employeeRepository.findByEmployeeId("16a596ae-edd3-4847-99fe-c4518e82c86f");
@@ -27,4 +40,35 @@ public class DataBootstrapTest {
         assertEquals("Development Manager", employee.getPosition());
         assertEquals("Engineering", employee.getDepartment());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testReadArray_batched() throws IOException {
+        String json = "[{\"firstName\": \"John\"}, {\"firstName\": \"Paul\"}, {\"firstName\": \"Ringo\"}]";
+        List<Integer> batchSizes = new ArrayList<>();
+        List<String> firstNames = new ArrayList<>();
+
+        int count = DataBootstrap.read(objectMapper, new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), 2, batch -> {
+            batchSizes.add(batch.size());
+            batch.forEach(employee -> firstNames.add(employee.getFirstName()));
+        });
+
+        assertEquals(3, count);
+        assertEquals("[2, 1]", batchSizes.toString());
+        assertEquals("[John, Paul, Ringo]", firstNames.toString());
+    }
+
+    @Test
+    public void testReadGzippedNdjson() throws IOException {
+        ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(gzipped)) {
+            gzipOutputStream.write("{\"firstName\": \"John\"}\n{\"firstName\": \"Paul\"}\n".getBytes(StandardCharsets.UTF_8));
+        }
+        List<String> firstNames = new ArrayList<>();
+
+        int count = DataBootstrap.read(objectMapper, new ByteArrayInputStream(gzipped.toByteArray()), 10,
+                batch -> batch.forEach(employee -> firstNames.add(employee.getFirstName())));
+
+        assertEquals(2, count);
+        assertEquals("[John, Paul]", firstNames.toString());
+    }
+}
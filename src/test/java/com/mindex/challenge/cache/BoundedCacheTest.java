@@ -0,0 +1,168 @@
+package com.mindex.challenge.cache;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class BoundedCacheTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private final Function<String, String> loader = key -> {
+        loads.incrementAndGet();
+        return key.startsWith("missing") ? null : key.toUpperCase();
+    };
+
+    private BoundedCache<String, String> cache;
+
+    @Before
+    public void setup() {
+        cache = new BoundedCache<>(2, Duration.ofMinutes(10), now::get);
+    }
+
+    @Test
+    public void testRepeatedLookup_loadedOnce() {
+        assertEquals("JOHN", cache.get("john", loader));
+        assertEquals("JOHN", cache.get("john", loader));
+
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.stats().getHits());
+        assertEquals(1, cache.stats().getMisses());
+    }
+
+    @Test
+    public void testGetAll_missingKeysLoadedAtOnce() {
+        cache.get("john", loader);
+        List<List<String>> batches = new ArrayList<>();
+        Map<String, String> values = cache.getAll(Arrays.asList("john", "paul", "missing", "paul"), keys -> {
+            batches.add(keys);
+            Map<String, String> loaded = new HashMap<>();
+            for (String key : keys) {
+                String value = loader.apply(key);
+                if (value != null) {
+                    loaded.put(key, value);
+                }
+            }
+            return loaded;
+        });
+
+        assertEquals("{john=JOHN, paul=PAUL}", new TreeMap<>(values).toString());
+        assertEquals("[[paul, missing]]", batches.toString());
+        assertEquals(1, cache.stats().getHits());
+        assertEquals(3, cache.stats().getMisses());
+        assertEquals("PAUL", cache.get("paul", loader));
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    public void testFull_leastRecentlyUsedEvicted() {
+        cache.get("john", loader);
+        cache.get("paul", loader);
+        cache.get("john", loader);
+        cache.get("ringo", loader);
+
+        assertEquals(2, cache.stats().getSize());
+        assertEquals(1, cache.stats().getEvictions());
+
+        cache.get("john", loader);
+        cache.get("paul", loader);
+        assertEquals(4, loads.get());
+    }
+
+    @Test
+    public void testExpired_reloaded() {
+        cache.get("john", loader);
+        now.addAndGet(Duration.ofMinutes(10).toNanos());
+        cache.get("john", loader);
+
+        assertEquals(2, loads.get());
+        assertEquals(1, cache.stats().getExpirations());
+    }
+
+    @Test
+    public void testMissingValue_notStored() {
+        assertNull(cache.get("missing", loader));
+        assertNull(cache.get("missing", loader));
+
+        assertEquals(2, loads.get());
+        assertEquals(0, cache.stats().getSize());
+    }
+
+    @Test
+    public void testPutDuringLoad_loadedValueDiscarded() {
+        assertEquals("JOHN", cache.get("john", key -> {
+            cache.put("john", "updated");
+            return "JOHN";
+        }));
+
+        assertEquals("updated", cache.get("john", loader));
+        assertEquals(0, loads.get());
+    }
+
+    @Test
+    public void testPutOfOtherKeyDuringLoad_loadedValueStored() {
+        assertEquals("JOHN", cache.get("john", key -> {
+            cache.put("paul", "updated");
+            return "JOHN";
+        }));
+
+        assertEquals("JOHN", cache.get("john", loader));
+        assertEquals(0, loads.get());
+    }
+
+    @Test
+    public void testFailedLoad_laterLoadStored() {
+        try {
+            cache.get("john", key -> {
+                throw new IllegalStateException("Database unavailable");
+            });
+        } catch (IllegalStateException expected) {
+            // The next lookup loads again.
+        }
+
+        assertEquals("JOHN", cache.get("john", loader));
+        assertEquals("JOHN", cache.get("john", loader));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void testSegmented_maxSizeKept() {
+        cache = new BoundedCache<>(BoundedCache.MAX_SEGMENTS * BoundedCache.MIN_SEGMENT_SIZE, Duration.ofMinutes(10), now::get);
+        for (int i = 0; i < 5000; i++) {
+            cache.get("employee" + i, loader);
+        }
+
+        BoundedCache.Stats stats = cache.stats();
+        assertTrue(stats.getSize() <= stats.getMaxSize());
+        assertTrue(stats.getSize() > stats.getMaxSize() / 2);
+        assertEquals(5000 - stats.getSize(), stats.getEvictions());
+        assertEquals("EMPLOYEE4999", cache.get("employee4999", loader));
+        assertEquals(5000, loads.get());
+    }
+
+    @Test
+    public void testZeroMaxSize_nothingStored() {
+        cache = new BoundedCache<>(0, Duration.ofMinutes(10), now::get);
+        cache.get("john", loader);
+        cache.get("john", loader);
+
+        assertEquals(2, loads.get());
+        assertEquals(0, cache.stats().getSize());
+    }
+}
@@ -0,0 +1,58 @@
+package com.mindex.challenge.feed;
+
+import com.mindex.challenge.data.ChangeEvent;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class ChangeLogTest {
+
+    @Test
+    public void testAfter_inSequenceUpToMax() {
+        ChangeLog changeLog = new ChangeLog(10, 100);
+        assertEquals("[]", idsOf(changeLog.after(99, 10)));
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(100 + i, changeLog.append(event("e" + i)));
+        }
+
+        assertEquals(100, changeLog.firstSequence());
+        assertEquals(104, changeLog.lastSequence());
+        assertEquals("[e0, e1, e2, e3, e4]", idsOf(changeLog.after(99, 10)));
+        assertEquals("[e2, e3]", idsOf(changeLog.after(101, 2)));
+        assertEquals("[]", idsOf(changeLog.after(104, 10)));
+    }
+
+    @Test
+    public void testAfter_overwrittenOrUnknownSequence() {
+        ChangeLog changeLog = new ChangeLog(3, 100);
+        for (int i = 0; i < 5; i++) {
+            changeLog.append(event("e" + i));
+        }
+
+        assertEquals(102, changeLog.firstSequence());
+        assertEquals("[e2, e3, e4]", idsOf(changeLog.after(101, 10)));
+        // The event after 100 has been overwritten.
+        assertNull(changeLog.after(100, 10));
+        // From an earlier run, or never assigned.
+        assertNull(changeLog.after(5, 10));
+        assertNull(changeLog.after(105, 10));
+    }
+
+    private static ChangeEvent event(String id) {
+        return ChangeEvent.of(ChangeEvent.Entity.EMPLOYEE, id, id, null, 1, Collections.singletonList("firstName"));
+    }
+
+    private static String idsOf(List<ChangeEvent> events) {
+        List<String> ids = new ArrayList<>();
+        for (ChangeEvent event : events) {
+            ids.add(event.getId());
+        }
+        return ids.toString();
+    }
+}
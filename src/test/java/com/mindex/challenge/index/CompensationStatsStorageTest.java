@@ -0,0 +1,115 @@
+package com.mindex.challenge.index;
+
+import com.mindex.challenge.data.CompensationStatistics;
+import com.mindex.challenge.data.SalaryDistribution;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class CompensationStatsStorageTest {
+
+    private static final long TODAY = LocalDate.parse("2022-06-01").toEpochDay();
+
+    private CompensationStatsStorage storage;
+
+    @Before
+    public void setup() {
+        storage = new CompensationStatsStorage(0.001);
+        storage.putCompensation("john", "Engineering", "Manager", day("2020-01-01"), new BigDecimal("150000"), TODAY);
+        storage.putCompensation("paul", "Engineering", "Developer", day("2020-01-01"), new BigDecimal("100000"), TODAY);
+        storage.putCompensation("ringo", "Engineering", "Developer", day("2020-01-01"), new BigDecimal("90000"), TODAY);
+        storage.putCompensation("george", "Sales", "Manager", day("2020-01-01"), new BigDecimal("120000"), TODAY);
+    }
+
+    @Test
+    public void testGroups() {
+        CompensationStatistics statistics = storage.statistics(null, TODAY);
+
+        assertEquals("2022-06-01", statistics.getAsOf());
+        assertEquals(4, statistics.getTotal().getCount());
+        assertEquals("115000.00", statistics.getTotal().getMean());
+        assertEquals("[Engineering, Sales]", statistics.getDepartments().keySet().toString());
+        assertEquals(3, statistics.getDepartments().get("Engineering").getCount());
+        assertEquals("[Developer, Manager]", statistics.getPositions().keySet().toString());
+        assertEquals(2, statistics.getPositions().get("Manager").getCount());
+
+        CompensationStatistics engineering = storage.statistics("Engineering", TODAY);
+        assertEquals(3, engineering.getTotal().getCount());
+        assertEquals(2, engineering.getPositions().get("Developer").getCount());
+        assertEquals(1, engineering.getPositions().get("Manager").getCount());
+        assertNull(storage.statistics("Marketing", TODAY));
+    }
+
+    @Test
+    public void testLaterCompensationReplacesSalary_olderIgnored() {
+        storage.putCompensation("paul", "Engineering", "Developer", day("2022-01-01"), new BigDecimal("110000"), TODAY);
+        storage.putCompensation("paul", "Engineering", "Developer", day("2021-01-01"), new BigDecimal("10000"), TODAY);
+
+        CompensationStatistics statistics = storage.statistics("Engineering", TODAY);
+        assertEquals(3, statistics.getTotal().getCount());
+        assertEquals("100000.00", statistics.getPositions().get("Developer").getMean());
+    }
+
+    @Test
+    public void testFutureCompensation_appliedWhenDue() {
+        storage.putCompensation("ringo", "Engineering", "Developer", day("2022-07-01"), new BigDecimal("80000"), TODAY);
+        storage.putCompensation("ringo", "Engineering", "Developer", day("2022-07-01"), new BigDecimal("95000"), TODAY);
+
+        long later = day("2022-07-01");
+        assertEquals(false, storage.hasDue(TODAY));
+        assertEquals("95000.00", storage.statistics("Engineering", TODAY).getPositions().get("Developer").getMean());
+        assertEquals(true, storage.hasDue(later));
+        storage.advance(later);
+        // The latest one saved for the same date wins.
+        assertEquals("97500.00", storage.statistics("Engineering", later).getPositions().get("Developer").getMean());
+    }
+
+    @Test
+    public void testEmployeeMoved_salaryFollows() {
+        storage.putEmployee("ringo", "Sales", "Manager");
+        storage.putEmployee("stuart", "Sales", "Manager");
+
+        CompensationStatistics statistics = storage.statistics(null, TODAY);
+        assertEquals(4, statistics.getTotal().getCount());
+        assertEquals(2, statistics.getDepartments().get("Engineering").getCount());
+        assertEquals("[Developer, Manager]", storage.statistics("Engineering", TODAY).getPositions().keySet().toString());
+        assertEquals(1, statistics.getPositions().get("Developer").getCount());
+        assertEquals("105000.00", statistics.getDepartments().get("Sales").getMean());
+    }
+
+    /**
+     * Tests that the min and max are the exact salaries, and that replacing a salary and putting it back returns the
+     * mean, min and max to exactly what they were.
+     */
+    @Test
+    public void testReplacedAndRestored_exactStatistics() {
+        storage.putCompensation("ringo", "Engineering", "Developer", day("2020-01-01"), new BigDecimal("90000.10"), TODAY);
+        SalaryDistribution before = storage.statistics(null, TODAY).getTotal();
+        assertEquals("90000.10", before.getMin());
+        assertEquals("150000.00", before.getMax());
+        assertEquals("115000.03", before.getMean());
+
+        storage.putCompensation("ringo", "Engineering", "Developer", day("2021-01-01"), new BigDecimal("0.07"), TODAY);
+        storage.putCompensation("john", "Engineering", "Manager", day("2021-01-01"), new BigDecimal("1000000.33"), TODAY);
+        SalaryDistribution changed = storage.statistics(null, TODAY).getTotal();
+        assertEquals("0.07", changed.getMin());
+        assertEquals("1000000.33", changed.getMax());
+
+        storage.putCompensation("ringo", "Engineering", "Developer", day("2022-01-01"), new BigDecimal("90000.10"), TODAY);
+        storage.putCompensation("john", "Engineering", "Manager", day("2022-01-01"), new BigDecimal("150000"), TODAY);
+        SalaryDistribution after = storage.statistics(null, TODAY).getTotal();
+        assertEquals(before.getMin(), after.getMin());
+        assertEquals(before.getMax(), after.getMax());
+        assertEquals(before.getMean(), after.getMean());
+        assertEquals("90000.10", storage.statistics("Engineering", TODAY).getPositions().get("Developer").getMin());
+    }
+
+    private static long day(String date) {
+        return LocalDate.parse(date).toEpochDay();
+    }
+}
@@ -0,0 +1,144 @@
+package com.mindex.challenge.index;
+
+import com.mindex.challenge.data.Employee;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class EmployeeSearchIndexTest {
+
+    private EmployeeSearchIndex index;
+
+    @Before
+    public void setup() {
+        index = new EmployeeSearchIndex();
+        index.put(employee("john", "John", "Lennon", "Engineering", "Development Manager"));
+        index.put(employee("paul", "Paul", "McCartney", "Engineering", "Developer I"));
+        index.put(employee("ringo", "Ringo", "Starr", "Engineering", "Developer V"));
+        index.put(employee("pete", "Pete", "Best", "Engineering", "Developer II"));
+        index.put(employee("george", "George", "Harrison", "Engineering", "Developer III"));
+        index.put(employee("johnny", "Johnny", "Johnson", "Sales", "Account Manager"));
+    }
+
+    @Test
+    public void testPrefix_orderedByMatchedNameIgnoringCase() {
+        assertEquals("[john, johnny]", idsOf(index.search("JO", null, null, 10)));
+        assertEquals("[johnny]", idsOf(index.search("johns", null, null, 10)));
+        assertEquals("[paul]", idsOf(index.search("mcc", null, null, 10)));
+        assertEquals("[john]", idsOf(index.search("jo", null, null, 1)));
+        assertEquals("[]", idsOf(index.search("stuart", null, null, 10)));
+    }
+
+    @Test
+    public void testEveryWordMustMatch() {
+        assertEquals("[john]", idsOf(index.search("john len", null, null, 10)));
+        assertEquals("[johnny]", idsOf(index.search("jo  johns", null, null, 10)));
+        assertEquals("[]", idsOf(index.search("john starr", null, null, 10)));
+    }
+
+    @Test
+    public void testFilters() {
+        assertEquals("[johnny]", idsOf(index.search("jo", "sales", null, 10)));
+        assertEquals("[john, paul, ringo]", idsOf(index.search(null, "Engineering", null, 3)));
+        assertEquals("[george]", idsOf(index.search(null, "engineering", "developer iii", 10)));
+        assertEquals("[]", idsOf(index.search("jo", "Marketing", null, 10)));
+        assertNull(index.search("ringo", null, null, 10).get(0).getDirectReports());
+    }
+
+    @Test
+    public void testUpdate_oldTermsAndFiltersRemoved() {
+        index.put(employee("ringo", "Richard", "Starkey", "Sales", "Drummer"));
+
+        assertEquals("[]", idsOf(index.search("ringo", null, null, 10)));
+        assertEquals("[ringo]", idsOf(index.search("star", null, null, 10)));
+        assertEquals("[ringo, johnny]", idsOf(index.search(null, "sales", null, 10)));
+        assertEquals("[]", idsOf(index.search(null, null, "developer v", 10)));
+    }
+
+    /**
+     * Tests that searching through a large department walks the names and searching through a small one scans the
+     * department, and that both find the same employees as checking every employee in name order.
+     */
+    @Test
+    public void testRandomEmployees_matchBruteForce() {
+        Random random = new Random(42);
+        String[] names = {"ann", "anna", "annabel", "andrew", "bob", "bobby", "carl", "carla", "dana", "dan"};
+        List<Employee> employees = new ArrayList<>();
+        for (int i = 0; i < 30_000; i++) {
+            // Both positions and the large department have too many employees to be scanned, the small department has
+            // few enough.
+            String department = random.nextInt(100) == 0 ? "Small" : "Large";
+            Employee employee = employee(String.format("%06d", i), names[random.nextInt(names.length)],
+                    names[random.nextInt(names.length)], department, "Position" + random.nextInt(2));
+            employees.add(employee);
+            index.put(employee);
+        }
+
+        for (String department : new String[]{"Small", "Large"}) {
+            for (String query : new String[]{"an", "ann", "bob car", "d"}) {
+                assertEquals(department + " " + query, bruteForce(employees, query, department, "Position1", 50),
+                        idsOf(index.search(query, department, "Position1", 50)));
+            }
+        }
+    }
+
+    private static String bruteForce(List<Employee> employees, String query, String department, String position, int limit) {
+        List<String> words = SearchStorage.terms(query);
+        String prefix = words.get(0);
+        for (String word : words) {
+            if (word.length() > prefix.length()) {
+                prefix = word;
+            }
+        }
+
+        TreeMap<String, String> matches = new TreeMap<>();
+        for (Employee employee : employees) {
+            if (!employee.getDepartment().equals(department) || !employee.getPosition().equals(position)) {
+                continue;
+            }
+            List<String> terms = SearchStorage.terms(employee.getFirstName() + " " + employee.getLastName());
+            boolean matched = true;
+            for (String word : words) {
+                matched &= terms.stream().anyMatch(term -> term.startsWith(word));
+            }
+            String first = null;
+            for (String term : terms) {
+                if (term.startsWith(prefix) && (first == null || term.compareTo(first) < 0)) {
+                    first = term;
+                }
+            }
+            if (matched) {
+                matches.put(first + " " + employee.getEmployeeId(), employee.getEmployeeId());
+            }
+        }
+
+        List<String> employeeIds = new ArrayList<>(matches.values());
+        return employeeIds.subList(0, Math.min(limit, employeeIds.size())).toString();
+    }
+
+    private static String idsOf(List<Employee> employees) {
+        List<String> employeeIds = new ArrayList<>();
+        for (Employee employee : employees) {
+            employeeIds.add(employee.getEmployeeId());
+        }
+        return employeeIds.toString();
+    }
+
+    private static Employee employee(String employeeId, String firstName, String lastName, String department, String position) {
+        Employee employee = new Employee();
+        employee.setEmployeeId(employeeId);
+        employee.setFirstName(firstName);
+        employee.setLastName(lastName);
+        employee.setDepartment(department);
+        employee.setPosition(position);
+        employee.setDirectReports(new ArrayList<>());
+        return employee;
+    }
+}
@@ -0,0 +1,125 @@
+package com.mindex.challenge.index;
+
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static com.mindex.challenge.index.OrgFixtures.employee;
+import static org.junit.Assert.assertEquals;
+
+public class OrgAnalyzerTest {
+
+    @Test
+    public void testTree() {
+        OrgChartIndex index = new OrgChartIndex();
+        index.put(employee("john", "paul", "ringo"));
+        index.put(employee("paul"));
+        index.put(employee("ringo", "pete", "george"));
+        index.put(employee("pete"));
+        index.put(employee("george"));
+
+        OrgAnalyzer.Result result = OrgAnalyzer.analyze(index, ForkJoinPool.commonPool());
+
+        int john = index.nodeOf("john");
+        assertEquals(0, result.level(john));
+        assertEquals(2, result.directReports(john));
+        assertEquals(4, result.numberOfReports(john));
+        assertEquals(2, result.subtreeDepth(john));
+
+        int ringo = index.nodeOf("ringo");
+        assertEquals(1, result.level(ringo));
+        assertEquals(2, result.numberOfReports(ringo));
+        assertEquals(1, result.subtreeDepth(ringo));
+
+        int george = index.nodeOf("george");
+        assertEquals(2, result.level(george));
+        assertEquals(0, result.numberOfReports(george));
+        assertEquals(0, result.subtreeDepth(george));
+    }
+
+    @Test
+    public void testSharedReportCycleAndDanglingReport_uniqueReportsCounted() {
+        OrgChartIndex index = new OrgChartIndex();
+        index.put(employee("john", "paul", "ringo", "stuart"));
+        index.put(employee("paul", "george"));
+        index.put(employee("ringo", "george", "pete"));
+        index.put(employee("george", "brian"));
+        index.put(employee("brian"));
+        index.put(employee("pete", "yoko"));
+        index.put(employee("yoko", "pete"));
+
+        OrgAnalyzer.Result result = OrgAnalyzer.analyze(index, ForkJoinPool.commonPool());
+
+        int john = index.nodeOf("john");
+        assertEquals(2, result.directReports(john));
+        assertEquals(6, result.numberOfReports(john));
+        assertEquals(2, result.numberOfReports(index.nodeOf("paul")));
+        assertEquals(4, result.numberOfReports(index.nodeOf("ringo")));
+        assertEquals(1, result.numberOfReports(index.nodeOf("pete")));
+        assertEquals(1, result.numberOfReports(index.nodeOf("yoko")));
+        assertEquals(3, result.level(index.nodeOf("brian")));
+        assertEquals(3, result.level(index.nodeOf("yoko")));
+    }
+
+    @Test
+    public void testUnreachableCycle_levelUnknown() {
+        OrgChartIndex index = new OrgChartIndex();
+        index.put(employee("pete", "yoko"));
+        index.put(employee("yoko", "pete"));
+
+        OrgAnalyzer.Result result = OrgAnalyzer.analyze(index, ForkJoinPool.commonPool());
+
+        assertEquals(-1, result.level(index.nodeOf("pete")));
+        assertEquals(1, result.numberOfReports(index.nodeOf("pete")));
+        assertEquals(1, result.directReports(index.nodeOf("yoko")));
+    }
+
+    @Test
+    public void testRandomOrg_matchesSubtreeWalks() {
+        Random random = new Random(42);
+        int size = 3000;
+        OrgChartIndex index = new OrgChartIndex();
+        for (int i = 0; i < size; i++) {
+            List<String> directReportIds = new ArrayList<>();
+            int fanOut = i < size / 3 ? random.nextInt(5) : 0;
+            for (int j = 0; j < fanOut; j++) {
+                // Mostly reports further down, with a few shared reports, cycles and dangling reports.
+                int report = random.nextInt(20) == 0 ? random.nextInt(size + 10) : Math.min(size - 1, i * 3 + j + 1);
+                directReportIds.add("e" + report);
+            }
+            index.put(employee("e" + i, directReportIds.toArray(new String[0])));
+        }
+
+        OrgAnalyzer.Result result = OrgAnalyzer.analyze(index, new ForkJoinPool(4));
+
+        for (int node = 0; node < index.size(); node++) {
+            if (index.employee(node) != null) {
+                assertEquals(index.employeeId(node), countReports(index, node), result.numberOfReports(node));
+            }
+        }
+    }
+
+    private static int countReports(OrgGraph graph, int root) {
+        BitSet visited = new BitSet();
+        visited.set(root);
+        Deque<Integer> queue = new ArrayDeque<>();
+        queue.add(root);
+        int count = 0;
+        while (!queue.isEmpty()) {
+            for (int child : graph.children(queue.poll())) {
+                if (graph.employee(child) != null && !visited.get(child)) {
+                    visited.set(child);
+                    queue.add(child);
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+}
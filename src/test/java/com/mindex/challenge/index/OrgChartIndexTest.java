@@ -0,0 +1,80 @@
+package com.mindex.challenge.index;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static com.mindex.challenge.index.OrgFixtures.employee;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class OrgChartIndexTest {
+
+    private OrgChartIndex index;
+
+    @Before
+    public void setup() {
+        index = new OrgChartIndex();
+        index.put(employee("john", "paul", "ringo"));
+        index.put(employee("paul"));
+        index.put(employee("ringo", "pete", "george"));
+        index.put(employee("pete"));
+        index.put(employee("george"));
+
+        for (String employeeId : new String[]{"john", "paul", "ringo", "pete", "george"}) {
+            int node = index.nodeOf(employeeId);
+            index.cacheNumberOfReports(node, 0, true);
+            index.cacheReportingTree(node, index.employee(node), 0);
+        }
+    }
+
+    @Test
+    public void testUpdateReport_onlyManagersInvalidated() {
+        index.put(employee("pete", "stuart"));
+
+        assertNull(index.cachedReportingTree(index.nodeOf("pete")));
+        assertEquals(-1, index.cachedNumberOfReports(index.nodeOf("ringo")));
+        assertEquals(-1, index.cachedNumberOfReports(index.nodeOf("john")));
+
+        assertNotNull(index.cachedReportingTree(index.nodeOf("paul")));
+        assertEquals(0, index.cachedNumberOfReports(index.nodeOf("george")));
+    }
+
+    @Test
+    public void testCreateDanglingReport_managersInvalidated() {
+        int stuart = index.nodeOf("stuart");
+        assertEquals(-1, stuart);
+
+        index.put(employee("paul", "stuart"));
+        index.cacheNumberOfReports(index.nodeOf("paul"), 0, true);
+        index.cacheNumberOfReports(index.nodeOf("john"), 4, true);
+
+        index.put(employee("stuart"));
+
+        assertEquals(-1, index.cachedNumberOfReports(index.nodeOf("paul")));
+        assertEquals(-1, index.cachedNumberOfReports(index.nodeOf("john")));
+        assertEquals(0, index.cachedNumberOfReports(index.nodeOf("ringo")));
+    }
+
+    @Test
+    public void testRemovedReport_noLongerInvalidatesFormerManager() {
+        index.put(employee("ringo", "george"));
+        index.cacheNumberOfReports(index.nodeOf("ringo"), 1, true);
+
+        index.put(employee("pete", "stuart"));
+
+        assertEquals(1, index.cachedNumberOfReports(index.nodeOf("ringo")));
+    }
+
+    @Test
+    public void testSharedReport_managersOfReportInvalidated() {
+        index.put(employee("paul", "george"));
+
+        assertEquals(-1, index.cachedNumberOfReports(index.nodeOf("ringo")));
+        assertEquals(-1, index.cachedNumberOfReports(index.nodeOf("paul")));
+        assertEquals(-1, index.cachedNumberOfReports(index.nodeOf("john")));
+        assertEquals(0, index.cachedNumberOfReports(index.nodeOf("george")));
+        assertEquals(0, index.cachedNumberOfReports(index.nodeOf("pete")));
+        assertEquals(2, index.numberOfManagers(index.nodeOf("george")));
+    }
+}
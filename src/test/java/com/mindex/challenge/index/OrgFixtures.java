@@ -0,0 +1,30 @@
+package com.mindex.challenge.index;
+
+import com.mindex.challenge.data.Employee;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Employees shared by the org chart tests.
+ */
+class OrgFixtures {
+
+    private OrgFixtures() { }
+
+    /**
+     * @return An employee with only its employeeId and the employeeIds of its direct reports.
+     */
+    static Employee employee(String employeeId, String... directReportIds) {
+        Employee employee = new Employee();
+        employee.setEmployeeId(employeeId);
+        List<Employee> directReports = new ArrayList<>();
+        for (String directReportId : directReportIds) {
+            Employee directReport = new Employee();
+            directReport.setEmployeeId(directReportId);
+            directReports.add(directReport);
+        }
+        employee.setDirectReports(directReports);
+        return employee;
+    }
+}
@@ -0,0 +1,131 @@
+package com.mindex.challenge.index;
+
+import com.mindex.challenge.data.Employee;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.mindex.challenge.index.OrgFixtures.employee;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class OrgTraversalTest {
+
+    private static final OrgTraversal.Visitor NO_OP = (node, parent, depth) -> OrgTraversal.DESCEND;
+
+    @Test
+    public void testSharedDirectReports_countedOnce() {
+        SubtreeGraph graph = SubtreeGraph.of(Arrays.asList(
+                employee("a", "b", "c"),
+                employee("b", "d"),
+                employee("c", "d"),
+                employee("d")));
+
+        List<Integer> revisited = new ArrayList<>();
+        OrgTraversal.Result result = new OrgTraversal(OrgTraversal.UNLIMITED, OrgTraversal.UNLIMITED)
+                .traverse(graph, graph.nodeOf("a"), new OrgTraversal.Visitor() {
+                    @Override
+                    public int visit(int node, int parent, int depth) {
+                        return OrgTraversal.DESCEND;
+                    }
+
+                    @Override
+                    public void revisit(int node, int parent, int depth) {
+                        revisited.add(node);
+                    }
+                });
+
+        assertEquals(3, result.getNumberOfReports());
+        assertEquals(2, result.getMaxDepth());
+        assertEquals(Arrays.asList(graph.nodeOf("d")), revisited);
+        assertFalse(result.isTruncated());
+    }
+
+    @Test
+    public void testCycle_detectedAndSkipped() {
+        SubtreeGraph graph = SubtreeGraph.of(Arrays.asList(
+                employee("a", "b"),
+                employee("b", "c"),
+                employee("c", "a")));
+
+        OrgTraversal.Result result = new OrgTraversal(OrgTraversal.UNLIMITED, OrgTraversal.UNLIMITED)
+                .traverse(graph, graph.nodeOf("a"), NO_OP);
+
+        assertEquals(2, result.getNumberOfReports());
+        assertEquals(1, result.getCycles());
+    }
+
+    @Test
+    public void testDanglingDirectReport_skipped() {
+        SubtreeGraph graph = SubtreeGraph.of(Arrays.asList(
+                employee("a", "b", "missing"),
+                employee("b")));
+
+        OrgTraversal.Result result = new OrgTraversal(OrgTraversal.UNLIMITED, OrgTraversal.UNLIMITED)
+                .traverse(graph, graph.nodeOf("a"), NO_OP);
+
+        assertEquals(1, result.getNumberOfReports());
+        assertEquals(1, result.getDanglingReports());
+    }
+
+    @Test
+    public void testDeepChain_noStackOverflow() {
+        int length = 100_000;
+        List<Employee> chain = new ArrayList<>();
+        for (int i = 0; i < length; i++) {
+            chain.add(i + 1 < length ? employee("e" + i, "e" + (i + 1)) : employee("e" + i));
+        }
+        SubtreeGraph graph = SubtreeGraph.of(chain);
+
+        OrgTraversal.Result result = new OrgTraversal(OrgTraversal.UNLIMITED, OrgTraversal.UNLIMITED)
+                .traverse(graph, graph.nodeOf("e0"), NO_OP);
+
+        assertEquals(length - 1, result.getNumberOfReports());
+        assertEquals(length - 1, result.getMaxDepth());
+    }
+
+    @Test
+    public void testLimits_truncated() {
+        SubtreeGraph graph = SubtreeGraph.of(Arrays.asList(
+                employee("a", "b", "c"),
+                employee("b", "d"),
+                employee("c"),
+                employee("d")));
+
+        OrgTraversal.Result depthLimited = new OrgTraversal(1, OrgTraversal.UNLIMITED).traverse(graph, graph.nodeOf("a"), NO_OP);
+        assertEquals(2, depthLimited.getNumberOfReports());
+        assertTrue(depthLimited.isTruncated());
+
+        OrgTraversal.Result nodeLimited = new OrgTraversal(OrgTraversal.UNLIMITED, 2).traverse(graph, graph.nodeOf("a"), NO_OP);
+        assertEquals(2, nodeLimited.getNumberOfReports());
+        assertTrue(nodeLimited.isTruncated());
+
+        OrgTraversal.Result withinLimits = new OrgTraversal(2, 3).traverse(graph, graph.nodeOf("a"), NO_OP);
+        assertEquals(3, withinLimits.getNumberOfReports());
+        assertFalse(withinLimits.isTruncated());
+    }
+
+    @Test
+    public void testKnownReports_skipped() {
+        SubtreeGraph graph = SubtreeGraph.of(Arrays.asList(
+                employee("a", "b", "c"),
+                employee("b", "d"),
+                employee("c"),
+                employee("d")));
+        int b = graph.nodeOf("b");
+
+        List<Integer> visited = new ArrayList<>();
+        OrgTraversal.Result result = new OrgTraversal(OrgTraversal.UNLIMITED, OrgTraversal.UNLIMITED)
+                .traverse(graph, graph.nodeOf("a"), (node, parent, depth) -> {
+                    visited.add(node);
+                    return node == b ? 1 : OrgTraversal.DESCEND;
+                });
+
+        assertEquals(3, result.getNumberOfReports());
+        assertEquals(2, result.getWalkedReports());
+        assertEquals(Arrays.asList(graph.nodeOf("a"), b, graph.nodeOf("c")), visited);
+    }
+}
@@ -0,0 +1,106 @@
+package com.mindex.challenge.index;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class QuantileSketchTest {
+
+    private static final double ACCURACY = 0.01;
+
+    private static final double[] QUANTILES = {0, 0.1, 0.5, 0.9, 0.99, 0.999, 1};
+
+    @Test
+    public void testRandomSalaries_quantilesWithinAccuracy() {
+        Random random = new Random(42);
+        QuantileSketch sketch = new QuantileSketch(ACCURACY);
+        double[] salaries = new double[100_000];
+        for (int i = 0; i < salaries.length; i++) {
+            // Log-normal around 80 000, with a long tail of high salaries.
+            salaries[i] = Math.round(Math.exp(Math.log(80_000) + 0.5 * random.nextGaussian()) * 100) / 100.0;
+            sketch.add(salaries[i]);
+        }
+
+        assertQuantilesWithinAccuracy(sketch, salaries);
+    }
+
+    @Test
+    public void testRemove_sameAsNeverAdded() {
+        Random random = new Random(7);
+        QuantileSketch sketch = new QuantileSketch(ACCURACY);
+        List<Double> kept = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            double salary = 20_000 + random.nextInt(200_000);
+            sketch.add(salary);
+            if (i % 3 == 0) {
+                sketch.remove(salary);
+            } else {
+                kept.add(salary);
+            }
+        }
+
+        assertQuantilesWithinAccuracy(sketch, kept.stream().mapToDouble(Double::doubleValue).toArray());
+    }
+
+    @Test
+    public void testMerge_sameAsAddingEverything() {
+        Random random = new Random(11);
+        QuantileSketch low = new QuantileSketch(ACCURACY);
+        QuantileSketch high = new QuantileSketch(ACCURACY);
+        QuantileSketch all = new QuantileSketch(ACCURACY);
+        for (int i = 0; i < 5_000; i++) {
+            double lowSalary = 30_000 + random.nextInt(20_000);
+            double highSalary = 500_000 + random.nextInt(1_000_000);
+            low.add(lowSalary);
+            high.add(highSalary);
+            all.add(lowSalary);
+            all.add(highSalary);
+        }
+
+        QuantileSketch merged = new QuantileSketch(ACCURACY);
+        merged.merge(high);
+        merged.merge(low);
+        assertEquals(all.count(), merged.count());
+        for (double quantile : QUANTILES) {
+            assertEquals(all.quantile(quantile), merged.quantile(quantile), 0);
+        }
+    }
+
+    @Test
+    public void testEmptyAndTiny() {
+        QuantileSketch sketch = new QuantileSketch(ACCURACY);
+        assertTrue(Double.isNaN(sketch.quantile(0.5)));
+        assertTrue(Double.isNaN(sketch.quantile(1)));
+
+        sketch.add(0);
+        sketch.add(50_000);
+        assertEquals(QuantileSketch.MIN_VALUE, sketch.quantile(0), QuantileSketch.MIN_VALUE * ACCURACY);
+        assertEquals(50_000, sketch.quantile(1), 50_000 * ACCURACY);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testRemoveNeverAdded_fails() {
+        QuantileSketch sketch = new QuantileSketch(ACCURACY);
+        sketch.add(50_000);
+        sketch.remove(100_000);
+    }
+
+    /**
+     * Checks the quantiles against the nearest rank of the sorted values.
+     */
+    private static void assertQuantilesWithinAccuracy(QuantileSketch sketch, double[] values) {
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        assertEquals(sorted.length, sketch.count());
+        for (double quantile : QUANTILES) {
+            double expected = sorted[(int) Math.max(1, Math.ceil(quantile * sorted.length)) - 1];
+            assertEquals("p" + quantile, expected, sketch.quantile(quantile), expected * ACCURACY);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.mindex.challenge.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.HandlerMapping;
+
+import static org.junit.Assert.assertEquals;
+
+public class RepositoryCallCounterTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private RepositoryCallCounter repositoryCallCounter;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+
+    @Before
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        repositoryCallCounter = new RepositoryCallCounter();
+        ReflectionTestUtils.setField(repositoryCallCounter, "meterRegistry", meterRegistry);
+        request = new MockHttpServletRequest("GET", "/employee/export");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/employee/export");
+        response = new MockHttpServletResponse();
+    }
+
+    @Test
+    public void testRequest_callsRecorded() {
+        repositoryCallCounter.preHandle(request, response, null);
+        RepositoryCallCounter.countCall();
+        RepositoryCallCounter.countCall();
+        repositoryCallCounter.afterCompletion(request, response, null, null);
+
+        DistributionSummary calls = meterRegistry.get("repository.calls").tag("uri", "/employee/export").tag("method", "GET").summary();
+        assertEquals(1, calls.count());
+        assertEquals(2, calls.totalAmount(), 0);
+    }
+
+    /**
+     * Tests that the thread no longer counts for a request once it went asynchronous, and that the dispatch of the
+     * result carries on with its count.
+     */
+    @Test
+    public void testAsyncRequest_countClearedUntilDispatched() {
+        repositoryCallCounter.preHandle(request, response, null);
+        RepositoryCallCounter.countCall();
+        repositoryCallCounter.afterConcurrentHandlingStarted(request, response, null);
+        RepositoryCallCounter.countCall();
+
+        repositoryCallCounter.preHandle(request, response, null);
+        RepositoryCallCounter.countCall();
+        repositoryCallCounter.afterCompletion(request, response, null, null);
+        RepositoryCallCounter.countCall();
+
+        DistributionSummary calls = meterRegistry.get("repository.calls").summary();
+        assertEquals(1, calls.count());
+        assertEquals(2, calls.totalAmount(), 0);
+    }
+}
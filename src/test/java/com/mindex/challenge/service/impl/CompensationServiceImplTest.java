@@ -1,6 +1,15 @@
 package com.mindex.challenge.service.impl;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mindex.challenge.data.ChangeEvent;
 import com.mindex.challenge.data.Compensation;
+import com.mindex.challenge.data.CompensationBulkResult;
+import com.mindex.challenge.data.CompensationDTO;
+import com.mindex.challenge.data.CompensationStatistics;
+import com.mindex.challenge.data.Employee;
+import com.mindex.challenge.data.PayrollRollup;
+import com.mindex.challenge.feed.ChangeFeed;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -8,18 +17,51 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.client.TestRestTemplate;
 import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.context.junit4.SpringRunner;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 @RunWith(SpringRunner.class)
-@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "change-feed.heartbeat-interval=1s")
 public class CompensationServiceImplTest {
 
     private String compensationUrl;
+    private String compensationAsOfUrl;
+    private String compensationHistoryUrl;
+    private String compensationRollupUrl;
+    private String compensationStatsUrl;
+    private String employeeUrl;
 
     @LocalServerPort
     private int port;
@@ -27,9 +69,33 @@ public class CompensationServiceImplTest {
     @Autowired
     private TestRestTemplate restTemplate;
 
+    @Autowired
+    private ChangeFeed changeFeed;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
     @Before
     public void setup() {
         compensationUrl = "http://localhost:" + port + "/compensation/{id}";
+        compensationAsOfUrl = "http://localhost:" + port + "/compensation/{id}?asOf={asOf}";
+        compensationHistoryUrl = "http://localhost:" + port + "/compensation/{id}/history";
+        compensationRollupUrl = "http://localhost:" + port + "/compensation/{id}/rollup?asOf={asOf}&byDepartment={byDepartment}";
+        compensationStatsUrl = "http://localhost:" + port + "/compensation/stats?department={department}";
+        employeeUrl = "http://localhost:" + port + "/employee";
+    }
+
+    /**
+     * Tests that the compound index backing the compensation timeline of every employee is created.
+     */
+    @Test
+    public void testTimelineIndex_created() {
+        assertTrue(mongoTemplate.indexOps(CompensationDTO.class).getIndexInfo().stream()
+                .map(IndexInfo::getName)
+                .anyMatch("employeeId_effectiveDate"::equals));
     }
 
     @Test
@@ -56,6 +122,15 @@ public class CompensationServiceImplTest {
         assertEquals(HttpStatus.BAD_REQUEST, responseEntity.getStatusCode());
     }
 
+    @Test
+    public void testCreateNegativeSalary_badRequestStatus() {
+        Compensation testComp = new Compensation();
+        testComp.setSalary("-1");
+        testComp.setEffectiveDate("2024-09-08");
+        ResponseEntity<Compensation> responseEntity = restTemplate.postForEntity(compensationUrl, testComp, Compensation.class, "16a596ae-edd3-4847-99fe-c4518e82c86f");
+        assertEquals(HttpStatus.BAD_REQUEST, responseEntity.getStatusCode());
+    }
+
     @Test
     public void testCreateInvalidEffectiveDateFormat_badRequestStatus() {
         Compensation testComp = new Compensation();
@@ -87,4 +162,458 @@ public class CompensationServiceImplTest {
         assertEquals(testComp.getEffectiveDate(), compResponseBody.getEffectiveDate());
     }
 
+    /**
+     * Tests that saving a compensation with the same effective date bumps its version and changes the entity tag.
+     */
+    @Test
+    public void testConditionalGet_notModifiedUntilReplaced() {
+        String employeeId = createEmployee("Finance").getEmployeeId();
+        postCompensation(employeeId, "100000", "2020-01-01");
+
+        ResponseEntity<Compensation> responseEntity = restTemplate.getForEntity(compensationUrl, Compensation.class, employeeId);
+        assertEquals(Long.valueOf(1), responseEntity.getBody().getVersion());
+        HttpHeaders conditional = new HttpHeaders();
+        conditional.setIfNoneMatch(responseEntity.getHeaders().getETag());
+        responseEntity = restTemplate.exchange(compensationUrl, HttpMethod.GET, new HttpEntity<>(conditional), Compensation.class, employeeId);
+        assertEquals(HttpStatus.NOT_MODIFIED, responseEntity.getStatusCode());
+
+        postCompensation(employeeId, "110000", "2020-01-01");
+
+        responseEntity = restTemplate.exchange(compensationUrl, HttpMethod.GET, new HttpEntity<>(conditional), Compensation.class, employeeId);
+        assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+        assertEquals(Long.valueOf(2), responseEntity.getBody().getVersion());
+        assertEquals("110000", responseEntity.getBody().getSalary());
+    }
+
+    /**
+     * Tests that compensations racing to replace the same one never save the same version twice. A save that keeps
+     * losing the race gives up with a 409.
+     */
+    @Test
+    public void testConcurrentReplacements_everyVersionSavedOnce() throws Exception {
+        String employeeId = createEmployee("Finance").getEmployeeId();
+        int saves = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(saves);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Long>> futures = new ArrayList<>();
+        for (int i = 0; i < saves; i++) {
+            Compensation compensation = new Compensation();
+            compensation.setSalary(String.valueOf(100000 + i));
+            compensation.setEffectiveDate("2020-01-01");
+            futures.add(executor.submit(() -> {
+                start.await();
+                ResponseEntity<Compensation> response = restTemplate.postForEntity(compensationUrl, compensation, Compensation.class, employeeId);
+                if (response.getStatusCode() == HttpStatus.CONFLICT) {
+                    return null;
+                }
+                assertEquals(HttpStatus.OK, response.getStatusCode());
+                return response.getBody().getVersion();
+            }));
+        }
+        start.countDown();
+
+        TreeSet<Long> versions = new TreeSet<>();
+        for (Future<Long> future : futures) {
+            Long version = future.get();
+            if (version != null) {
+                assertTrue("Version saved twice: " + version, versions.add(version));
+            }
+        }
+        executor.shutdown();
+
+        assertFalse(versions.isEmpty());
+        assertEquals(Long.valueOf(1), versions.first());
+        assertEquals(Long.valueOf(versions.size()), versions.last());
+        assertEquals(versions.last(), restTemplate.getForEntity(compensationUrl, Compensation.class, employeeId).getBody().getVersion());
+    }
+
+    @Test
+    public void testCompensationTimeline_effectiveEntryReturned() {
+        String employeeId = "c0c2293d-16bd-4603-8e08-638a9d18b22c";
+        postCompensation(employeeId, "100000", "2020-01-01");
+        postCompensation(employeeId, "120000", "2022-07-01");
+        postCompensation(employeeId, "999999", "2999-01-01");
+
+        // Without a date, the compensation in effect today is returned rather than the latest one.
+        Compensation current = restTemplate.getForEntity(compensationUrl, Compensation.class, employeeId).getBody();
+        assertEquals("120000", current.getSalary());
+        assertEquals("2022-07-01", current.getEffectiveDate());
+
+        Compensation asOf = restTemplate.getForEntity(compensationAsOfUrl, Compensation.class, employeeId, "2022-06-30").getBody();
+        assertEquals("100000", asOf.getSalary());
+
+        asOf = restTemplate.getForEntity(compensationAsOfUrl, Compensation.class, employeeId, "2022-07-01").getBody();
+        assertEquals("120000", asOf.getSalary());
+
+        ResponseEntity<Compensation> beforeFirst = restTemplate.getForEntity(compensationAsOfUrl, Compensation.class, employeeId, "2019-12-31");
+        assertEquals(HttpStatus.NOT_FOUND, beforeFirst.getStatusCode());
+
+        // Saving the same effective date again replaces that entry of the timeline.
+        postCompensation(employeeId, "125000", "2022-07-01");
+        Compensation[] history = restTemplate.getForEntity(compensationHistoryUrl, Compensation[].class, employeeId).getBody();
+        assertEquals(3, history.length);
+        assertEquals("100000", history[0].getSalary());
+        assertEquals("125000", history[1].getSalary());
+        assertEquals("999999", history[2].getSalary());
+    }
+
+    @Test
+    public void testReadInvalidAsOfFormat_badRequestStatus() {
+        ResponseEntity<Compensation> responseEntity = restTemplate.getForEntity(compensationAsOfUrl, Compensation.class, "16a596ae-edd3-4847-99fe-c4518e82c86f", "2024-13-01");
+        assertEquals(HttpStatus.BAD_REQUEST, responseEntity.getStatusCode());
+    }
+
+    /**
+     * manager -> lead -> (developer, tester) with a developer that has no compensation yet as of the date.
+     */
+    @Test
+    public void testPayrollRollup_salariesInEffectSummed() {
+        Employee developer = createEmployee("Development");
+        Employee tester = createEmployee("Quality");
+        Employee lead = createEmployee("Development", developer, tester);
+        Employee manager = createEmployee("Management", lead);
+
+        postCompensation(lead.getEmployeeId(), "150000", "2020-01-01");
+        postCompensation(lead.getEmployeeId(), "160000", "2023-01-01");
+        postCompensation(tester.getEmployeeId(), "90000", "2021-01-01");
+        postCompensation(developer.getEmployeeId(), "110000", "2022-06-01");
+        postCompensation(manager.getEmployeeId(), "500000", "2020-01-01");
+
+        PayrollRollup rollup = restTemplate.getForEntity(compensationRollupUrl, PayrollRollup.class, manager.getEmployeeId(), "2022-01-01", false).getBody();
+        assertEquals(3, rollup.getNumberOfReports());
+        assertEquals(1, rollup.getReportsWithoutCompensation());
+        assertEquals(2, rollup.getPayroll().getCount());
+        assertEquals("240000", rollup.getPayroll().getTotalSalary());
+        assertEquals("120000.00", rollup.getPayroll().getAverageSalary());
+        assertEquals("90000", rollup.getPayroll().getMinSalary());
+        assertEquals("150000", rollup.getPayroll().getMaxSalary());
+        assertNull(rollup.getDepartments());
+
+        rollup = restTemplate.getForEntity(compensationRollupUrl, PayrollRollup.class, manager.getEmployeeId(), "2023-01-01", true).getBody();
+        assertEquals(0, rollup.getReportsWithoutCompensation());
+        assertEquals("360000", rollup.getPayroll().getTotalSalary());
+        assertEquals(2, rollup.getDepartments().size());
+        assertEquals(2, rollup.getDepartments().get("Development").getCount());
+        assertEquals("270000", rollup.getDepartments().get("Development").getTotalSalary());
+        assertEquals("90000", rollup.getDepartments().get("Quality").getTotalSalary());
+    }
+
+    @Test
+    public void testPayrollRollupNonExistentEmployee_notFoundStatus() {
+        ResponseEntity<PayrollRollup> responseEntity = restTemplate.getForEntity(compensationRollupUrl, PayrollRollup.class, "iaman-employeethat-doesnot-exist", "2022-01-01", false);
+        assertEquals(HttpStatus.NOT_FOUND, responseEntity.getStatusCode());
+    }
+
+    @Test
+    public void testPayrollRollupByDepartment_reportsWithoutDepartmentUnassigned() {
+        Employee contractor = createEmployee(null);
+        Employee manager = createEmployee("Management", contractor);
+        postCompensation(contractor.getEmployeeId(), "80000", "2020-01-01");
+
+        PayrollRollup rollup = restTemplate.getForEntity(compensationRollupUrl, PayrollRollup.class, manager.getEmployeeId(), "2023-01-01", true).getBody();
+        assertEquals(1, rollup.getDepartments().size());
+        assertEquals("80000", rollup.getDepartments().get(Employee.UNASSIGNED).getTotalSalary());
+    }
+
+    @Test
+    public void testCompensationStatistics_followCompensationsAndEmployees() {
+        String department = "Statistics " + UUID.randomUUID();
+        Employee manager = createEmployee(department);
+        Employee developer = createEmployee(department);
+        postCompensation(manager.getEmployeeId(), "150000", "2020-01-01");
+        postCompensation(developer.getEmployeeId(), "100000", "2020-01-01");
+        postCompensation(developer.getEmployeeId(), "110000", "2021-01-01");
+        // Not in effect yet.
+        postCompensation(developer.getEmployeeId(), "500000", LocalDate.now().plusYears(1).toString());
+
+        CompensationStatistics statistics = restTemplate.getForEntity(compensationStatsUrl, CompensationStatistics.class, department).getBody();
+        assertEquals(department, statistics.getDepartment());
+        assertEquals(2, statistics.getTotal().getCount());
+        assertEquals("130000.00", statistics.getTotal().getMean());
+        assertEquals(110_000, Double.parseDouble(statistics.getTotal().getP50()), 110_000 * statistics.getRelativeAccuracy());
+        assertEquals(150_000, Double.parseDouble(statistics.getTotal().getP99()), 150_000 * statistics.getRelativeAccuracy());
+        assertEquals(2, statistics.getPositions().get(Employee.UNASSIGNED).getCount());
+
+        manager.setPosition("Manager");
+        restTemplate.put(employeeUrl + "/{id}", manager, manager.getEmployeeId());
+        statistics = restTemplate.getForEntity(compensationStatsUrl, CompensationStatistics.class, department).getBody();
+        assertEquals(1, statistics.getPositions().get("Manager").getCount());
+        assertEquals(1, statistics.getPositions().get(Employee.UNASSIGNED).getCount());
+
+        CompensationStatistics all = restTemplate.getForEntity(compensationStatsUrl, CompensationStatistics.class, "").getBody();
+        assertEquals(2, all.getDepartments().get(department).getCount());
+
+        assertEquals(HttpStatus.NOT_FOUND, restTemplate.getForEntity(compensationStatsUrl, String.class, "Nonexistent " + UUID.randomUUID()).getStatusCode());
+    }
+
+    @Test
+    public void testBulkCsv_rowsValidatedAndSavedIndependently() {
+        Employee first = createEmployee("Engineering");
+        Employee second = createEmployee("Engineering");
+        postCompensation(second.getEmployeeId(), "50000", "2022-01-01");
+
+        String csv = "effectiveDate,employeeId,salary,note\r\n"
+                + "2022-01-01," + first.getEmployeeId() + ",100000,\"raise, annual\"\r\n"
+                + "2022-01-01," + second.getEmployeeId() + ",60000\r\n"
+                + "\r\n"
+                + "2022-01-01," + first.getEmployeeId() + ",\"100,000\"\r\n"
+                + "2022-13-01," + first.getEmployeeId() + ",100000\r\n"
+                + "2022-01-01,iaman-employeethat-doesnot-exist,100000\r\n"
+                + "2023-01-01," + first.getEmployeeId() + "\r\n"
+                + "2022-01-01," + first.getEmployeeId() + ",110000";
+        CompensationBulkResult[] results = postBulk(csv, new MediaType("text", "csv"));
+
+        assertEquals(7, results.length);
+        assertBulkResult(results[0], 0, CompensationBulkResult.Status.CREATED, 1L, null);
+        assertBulkResult(results[1], 1, CompensationBulkResult.Status.UPDATED, 2L, null);
+        assertBulkResult(results[2], 2, CompensationBulkResult.Status.FAILED, null, "Invalid salary format: 100,000");
+        assertBulkResult(results[3], 3, CompensationBulkResult.Status.FAILED, null, "Invalid effective date format (YYYY-MM-DD): 2022-13-01");
+        assertBulkResult(results[4], 4, CompensationBulkResult.Status.FAILED, null, "Invalid employee id iaman-employeethat-doesnot-exist");
+        assertBulkResult(results[5], 5, CompensationBulkResult.Status.FAILED, null, "Missing salary");
+        // The same compensation again is written after the first one.
+        assertBulkResult(results[6], 6, CompensationBulkResult.Status.UPDATED, 2L, null);
+
+        assertEquals("110000", restTemplate.getForEntity(compensationAsOfUrl, Compensation.class, first.getEmployeeId(), "2022-06-01").getBody().getSalary());
+        assertEquals("60000", restTemplate.getForEntity(compensationAsOfUrl, Compensation.class, second.getEmployeeId(), "2022-06-01").getBody().getSalary());
+
+        assertEquals(HttpStatus.BAD_REQUEST, restTemplate.postForEntity(compensationUrl,
+                new HttpEntity<>("employeeId,amount\n", csvHeaders()), String.class, "bulk").getStatusCode());
+    }
+
+    /**
+     * Tests that a byte order mark in front of the CSV header is skipped, and that a header that cannot be read is
+     * rejected.
+     */
+    @Test
+    public void testBulkCsvHeader_byteOrderMarkSkipped() {
+        Employee employee = createEmployee("Engineering");
+        String csv = "\uFEFF\"employeeId\",salary,effectiveDate\r\n"
+                + employee.getEmployeeId() + ",100000,2022-01-01\r\n";
+        CompensationBulkResult[] results = postBulk(csv, new MediaType("text", "csv", StandardCharsets.UTF_8));
+        assertEquals(1, results.length);
+        assertBulkResult(results[0], 0, CompensationBulkResult.Status.CREATED, 1L, null);
+
+        assertEquals(HttpStatus.BAD_REQUEST, restTemplate.postForEntity(compensationUrl,
+                new HttpEntity<>("employeeId,salary,\"effectiveDate\n", csvHeaders()), String.class, "bulk").getStatusCode());
+    }
+
+    @Test
+    public void testBulkNdjsonWithUnreadableLine_earlierRowsSaved() {
+        Employee employee = createEmployee("Engineering");
+        String ndjson = "{\"employeeId\": \"" + employee.getEmployeeId() + "\", \"salary\": \"90000\", \"effectiveDate\": \"2022-01-01\"}\n"
+                + "{\"employeeId\": \"" + employee.getEmployeeId() + "\", \"salary\": \"95000\"}\n"
+                + "{\"employeeId\": \n";
+        CompensationBulkResult[] results = postBulk(ndjson, new MediaType("application", "x-ndjson"));
+
+        assertEquals(3, results.length);
+        assertBulkResult(results[0], 0, CompensationBulkResult.Status.CREATED, 1L, null);
+        assertBulkResult(results[1], 1, CompensationBulkResult.Status.FAILED, null, "Missing effective date");
+        assertEquals(CompensationBulkResult.Status.FAILED, results[2].getStatus());
+        assertNull(results[2].getEmployeeId());
+
+        String json = "[{\"employeeId\": \"" + employee.getEmployeeId() + "\", \"salary\": \"95000\", \"effectiveDate\": \"2023-01-01\"}]";
+        results = postBulk(json, MediaType.APPLICATION_JSON);
+        assertBulkResult(results[0], 0, CompensationBulkResult.Status.CREATED, 1L, null);
+        assertEquals(2, restTemplate.getForEntity(compensationHistoryUrl, Compensation[].class, employee.getEmployeeId()).getBody().length);
+    }
+
+    private CompensationBulkResult[] postBulk(String body, MediaType contentType) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(contentType);
+        ResponseEntity<CompensationBulkResult[]> responseEntity = restTemplate.postForEntity(compensationUrl,
+                new HttpEntity<>(body, headers), CompensationBulkResult[].class, "bulk");
+        assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+        return responseEntity.getBody();
+    }
+
+    private static HttpHeaders csvHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(new MediaType("text", "csv"));
+        return headers;
+    }
+
+    private static void assertBulkResult(CompensationBulkResult result, int index, CompensationBulkResult.Status status, Long version, String error) {
+        assertEquals(index, result.getIndex());
+        assertEquals(status, result.getStatus());
+        assertEquals(version, result.getVersion());
+        assertEquals(error, result.getError());
+    }
+
+    @Test
+    public void testChangeFeed_changesStreamedAndResumed() throws IOException {
+        long after = changeFeed.lastSequence();
+        Employee employee = createEmployee("Engineering");
+        postCompensation(employee.getEmployeeId(), "100000", "2022-01-01");
+        employee.setPosition("Developer");
+        restTemplate.put(employeeUrl + "/{id}", employee, employee.getEmployeeId());
+
+        List<ChangeEvent> events = readChanges("/changes?after=" + after, null, employee.getEmployeeId(), 3);
+        assertEquals(ChangeEvent.Entity.EMPLOYEE, events.get(0).getEntity());
+        assertEquals(1, events.get(0).getVersion());
+        assertEquals(Arrays.asList("firstName", "department", "directReports"), events.get(0).getChangedFields());
+        assertEquals(ChangeEvent.Entity.COMPENSATION, events.get(1).getEntity());
+        assertEquals(1, events.get(1).getVersion());
+        assertEquals(Arrays.asList("salary", "effectiveDate"), events.get(1).getChangedFields());
+        assertEquals(ChangeEvent.Entity.EMPLOYEE, events.get(2).getEntity());
+        assertEquals(2, events.get(2).getVersion());
+        assertEquals(Arrays.asList("position"), events.get(2).getChangedFields());
+
+        // A reconnecting client resumes after its Last-Event-ID.
+        List<ChangeEvent> resumed = readChanges("/changes?after=" + after, String.valueOf(events.get(1).getSequence()),
+                employee.getEmployeeId(), 1);
+        assertEquals(events.get(2).getSequence(), resumed.get(0).getSequence());
+
+        // Sequence numbers that are no longer held, such as those of an earlier run, reset the client.
+        assertNull(readChanges("/changes?after=1", null, employee.getEmployeeId(), 1));
+
+        assertEquals(HttpStatus.BAD_REQUEST, restTemplate.getForEntity("http://localhost:" + port + "/changes?after=latest", String.class).getStatusCode());
+    }
+
+    /**
+     * Tests that the changes of the compensations of an employee with different effective dates are told apart by
+     * their compensationIds, each with its own versions, and name the employee and the effective date.
+     */
+    @Test
+    public void testChangeFeed_compensationsByEffectiveDate() throws IOException {
+        long after = changeFeed.lastSequence();
+        Employee employee = createEmployee("Engineering");
+        postCompensation(employee.getEmployeeId(), "100000", "2022-01-01");
+        postCompensation(employee.getEmployeeId(), "110000", "2023-01-01");
+        postCompensation(employee.getEmployeeId(), "105000", "2022-01-01");
+
+        List<JsonNode> lines = readChangeLines("/changes?after=" + after, null, employee.getEmployeeId(), 4);
+        assertEquals(new TreeSet<>(Arrays.asList("sequence", "entity", "id", "employeeId", "version", "changedFields")),
+                fieldNames(lines.get(0)));
+        assertEquals(new TreeSet<>(Arrays.asList("sequence", "entity", "id", "employeeId", "effectiveDate", "version", "changedFields")),
+                fieldNames(lines.get(1)));
+        assertEquals(employee.getEmployeeId(), lines.get(1).get("employeeId").asText());
+        assertEquals("2022-01-01", lines.get(1).get("effectiveDate").asText());
+
+        List<ChangeEvent> events = toChangeEvents(lines);
+        assertEquals(employee.getEmployeeId(), events.get(0).getId());
+        assertEquals(CompensationDTO.compensationId(employee.getEmployeeId(), LocalDate.parse("2022-01-01")), events.get(1).getId());
+        assertEquals(1, events.get(1).getVersion());
+        assertEquals(CompensationDTO.compensationId(employee.getEmployeeId(), LocalDate.parse("2023-01-01")), events.get(2).getId());
+        assertEquals(1, events.get(2).getVersion());
+        assertEquals(events.get(1).getId(), events.get(3).getId());
+        assertEquals(2, events.get(3).getVersion());
+        assertEquals(Arrays.asList("salary"), events.get(3).getChangedFields());
+        assertEquals("2023-01-01", events.get(2).getEffectiveDate());
+    }
+
+    private static Set<String> fieldNames(JsonNode node) {
+        Set<String> fieldNames = new TreeSet<>();
+        node.fieldNames().forEachRemaining(fieldNames::add);
+        return fieldNames;
+    }
+
+    /**
+     * Tests that an idle subscriber is sent heartbeat comments.
+     */
+    @Test
+    public void testChangeFeed_heartbeatWhileIdle() throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + port + "/changes").openConnection();
+        connection.setRequestProperty("Accept", "text/event-stream");
+        connection.setReadTimeout(10_000);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8));
+        try {
+            String line;
+            do {
+                line = reader.readLine();
+            } while (line != null && !line.startsWith(":"));
+            assertEquals(":" + ChangeFeed.HEARTBEAT_COMMENT, line);
+        } finally {
+            disconnect(connection, reader);
+        }
+    }
+
+    /**
+     * Reads the change feed until the given number of changes of the employee or its compensations have been sent.
+     *
+     * @return The changes, or null if the feed was reset first.
+     */
+    private List<ChangeEvent> readChanges(String path, String lastEventId, String employeeId, int count) throws IOException {
+        List<JsonNode> lines = readChangeLines(path, lastEventId, employeeId, count);
+        return lines == null ? null : toChangeEvents(lines);
+    }
+
+    private List<ChangeEvent> toChangeEvents(List<JsonNode> lines) throws IOException {
+        List<ChangeEvent> events = new ArrayList<>();
+        for (JsonNode line : lines) {
+            events.add(objectMapper.treeToValue(line, ChangeEvent.class));
+        }
+        return events;
+    }
+
+    /**
+     * Reads the change feed like {@link #readChanges}, keeping the data of every change as sent.
+     */
+    private List<JsonNode> readChangeLines(String path, String lastEventId, String employeeId, int count) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + port + path).openConnection();
+        connection.setRequestProperty("Accept", "text/event-stream");
+        if (lastEventId != null) {
+            connection.setRequestProperty("Last-Event-ID", lastEventId);
+        }
+        connection.setReadTimeout(10_000);
+
+        List<JsonNode> events = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8));
+        try {
+            String name = null;
+            String line;
+            while (events.size() < count && (line = reader.readLine()) != null) {
+                if (line.startsWith("event:")) {
+                    name = line.substring("event:".length());
+                } else if (line.startsWith("data:") && ChangeFeed.RESET_EVENT.equals(name)) {
+                    return null;
+                } else if (line.startsWith("data:")) {
+                    JsonNode event = objectMapper.readTree(line.substring("data:".length()));
+                    if (employeeId.equals(event.get("employeeId").asText())) {
+                        events.add(event);
+                    }
+                }
+            }
+        } finally {
+            disconnect(connection, reader);
+        }
+        assertEquals(count, events.size());
+        return events;
+    }
+
+    /**
+     * Completes the streams on the server and reads them to the end before the client disconnects, so they are not
+     * written to after it is gone.
+     */
+    private void disconnect(HttpURLConnection connection, BufferedReader reader) throws IOException {
+        changeFeed.completeAll();
+        try {
+            while (reader.readLine() != null) {
+                // Skips the events sent before the stream was completed.
+            }
+        } finally {
+            reader.close();
+            connection.disconnect();
+        }
+    }
+
+    private Employee createEmployee(String department, Employee... directReports) {
+        Employee employee = new Employee();
+        employee.setFirstName("Payroll");
+        employee.setDepartment(department);
+        employee.setDirectReports(new ArrayList<>());
+        for (Employee directReport : directReports) {
+            Employee reference = new Employee();
+            reference.setEmployeeId(directReport.getEmployeeId());
+            employee.getDirectReports().add(reference);
+        }
+        return restTemplate.postForEntity(employeeUrl, employee, Employee.class).getBody();
+    }
+
+    private void postCompensation(String employeeId, String salary, String effectiveDate) {
+        Compensation compensation = new Compensation();
+        compensation.setSalary(salary);
+        compensation.setEffectiveDate(effectiveDate);
+        assertEquals(HttpStatus.OK, restTemplate.postForEntity(compensationUrl, compensation, Compensation.class, employeeId).getStatusCode());
+    }
+
 }
@@ -1,6 +1,11 @@
 package com.mindex.challenge.service.impl;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mindex.challenge.dao.EmployeeRepository;
 import com.mindex.challenge.data.Employee;
+import com.mindex.challenge.data.EmployeeBulkResult;
+import com.mindex.challenge.data.EmployeePage;
+import com.mindex.challenge.data.ReportingStructure;
 import com.mindex.challenge.service.EmployeeService;
 import org.junit.Before;
 import org.junit.Test;
@@ -9,14 +14,37 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.client.TestRestTemplate;
 import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexInfo;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 @RunWith(SpringRunner.class)
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
@@ -24,20 +52,44 @@ public class EmployeeServiceImplTest {
 
     private String employeeUrl;
     private String employeeIdUrl;
+    private String employeeExportUrl;
+    private String employeeBulkUrl;
 
     @Autowired
     private EmployeeService employeeService;
 
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
     @LocalServerPort
     private int port;
 
     @Autowired
     private TestRestTemplate restTemplate;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
     @Before
     public void setup() {
         employeeUrl = "http://localhost:" + port + "/employee";
         employeeIdUrl = "http://localhost:" + port + "/employee/{id}";
+        employeeBulkUrl = "http://localhost:" + port + "/employee/bulk";
+        employeeExportUrl = "http://localhost:" + port + "/employee/export?withReportCounts={withReportCounts}";
+    }
+
+    /**
+     * Tests that the compound indexes backing the department and position listings are created.
+     */
+    @Test
+    public void testListingIndexes_created() {
+        List<String> indexNames = mongoTemplate.indexOps(Employee.class).getIndexInfo().stream()
+                .map(IndexInfo::getName)
+                .collect(Collectors.toList());
+        assertTrue(indexNames.toString(), indexNames.containsAll(Arrays.asList("department_employeeId", "position_employeeId")));
     }
 
     @Test
@@ -75,6 +127,261 @@ public class EmployeeServiceImplTest {
                         readEmployee.getEmployeeId()).getBody();
 
         assertEmployeeEquivalence(readEmployee, updatedEmployee);
+
+
+        // Cached read checks
+        long hits = employeeService.cacheStats().getHits();
+        Employee rereadEmployee = restTemplate.getForEntity(employeeIdUrl, Employee.class, createdEmployee.getEmployeeId()).getBody();
+        assertEmployeeEquivalence(updatedEmployee, rereadEmployee);
+        assertEquals(hits + 1, employeeService.cacheStats().getHits());
+    }
+
+    /**
+     * Tests that every write bumps the version and that polling with the entity tag gets a 304 until the next write.
+     */
+    @Test
+    public void testConditionalGet_notModifiedUntilUpdated() {
+        Employee employee = restTemplate.postForEntity(employeeUrl, new Employee(), Employee.class).getBody();
+        assertEquals(Long.valueOf(1), employee.getVersion());
+
+        String etag = restTemplate.getForEntity(employeeIdUrl, Employee.class, employee.getEmployeeId()).getHeaders().getETag();
+        HttpHeaders conditional = new HttpHeaders();
+        conditional.setIfNoneMatch(etag);
+        ResponseEntity<Employee> response = restTemplate.exchange(employeeIdUrl, HttpMethod.GET, new HttpEntity<>(conditional), Employee.class, employee.getEmployeeId());
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertNull(response.getBody());
+
+        employee.setFirstName("Updated");
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        Employee updatedEmployee = restTemplate.exchange(employeeIdUrl, HttpMethod.PUT, new HttpEntity<>(employee, headers), Employee.class, employee.getEmployeeId()).getBody();
+        assertEquals(Long.valueOf(2), updatedEmployee.getVersion());
+
+        response = restTemplate.exchange(employeeIdUrl, HttpMethod.GET, new HttpEntity<>(conditional), Employee.class, employee.getEmployeeId());
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("Updated", response.getBody().getFirstName());
+
+        EmployeeBulkResult[] results = restTemplate.postForEntity(employeeBulkUrl, new Employee[]{updatedEmployee}, EmployeeBulkResult[].class).getBody();
+        assertEquals(EmployeeBulkResult.Status.UPDATED, results[0].getStatus());
+        assertEquals(Long.valueOf(3), restTemplate.getForEntity(employeeIdUrl, Employee.class, employee.getEmployeeId()).getBody().getVersion());
+    }
+
+    /**
+     * Tests that the JSON and the Smile of the same version have different entity tags, so a Smile request carrying the
+     * tag of the JSON gets the Smile rather than a 304.
+     */
+    @Test
+    public void testConditionalGet_tagPerMediaType() {
+        Employee employee = restTemplate.postForEntity(employeeUrl, new Employee(), Employee.class).getBody();
+        String etag = restTemplate.getForEntity(employeeIdUrl, Employee.class, employee.getEmployeeId()).getHeaders().getETag();
+
+        HttpHeaders conditional = new HttpHeaders();
+        conditional.setIfNoneMatch(etag);
+        conditional.setAccept(Collections.singletonList(MediaType.valueOf("application/x-jackson-smile")));
+        ResponseEntity<byte[]> response = restTemplate.exchange(employeeIdUrl, HttpMethod.GET, new HttpEntity<>(conditional), byte[].class, employee.getEmployeeId());
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(MediaType.valueOf("application/x-jackson-smile"), response.getHeaders().getContentType());
+        assertNotEquals(etag, response.getHeaders().getETag());
+
+        conditional.setIfNoneMatch(response.getHeaders().getETag());
+        response = restTemplate.exchange(employeeIdUrl, HttpMethod.GET, new HttpEntity<>(conditional), byte[].class, employee.getEmployeeId());
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+    }
+
+    /**
+     * Tests that updates racing for the same employee never save the same version twice. An update that keeps losing
+     * the race gives up with a 409.
+     */
+    @Test
+    public void testConcurrentUpdates_everyVersionSavedOnce() throws Exception {
+        String employeeId = employeeService.create(new Employee()).getEmployeeId();
+        int updates = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(updates);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Long>> futures = new ArrayList<>();
+        for (int i = 0; i < updates; i++) {
+            Employee employee = new Employee();
+            employee.setEmployeeId(employeeId);
+            employee.setFirstName("Concurrent " + i);
+            futures.add(executor.submit(() -> {
+                start.await();
+                try {
+                    return employeeService.update(employee).getVersion();
+                } catch (ResponseStatusException exception) {
+                    assertEquals(HttpStatus.CONFLICT, exception.getStatus());
+                    return null;
+                }
+            }));
+        }
+        start.countDown();
+
+        TreeSet<Long> versions = new TreeSet<>();
+        for (Future<Long> future : futures) {
+            Long version = future.get();
+            if (version != null) {
+                assertTrue("Version saved twice: " + version, versions.add(version));
+            }
+        }
+        executor.shutdown();
+
+        assertFalse(versions.isEmpty());
+        assertEquals(Long.valueOf(2), versions.first());
+        assertEquals(Long.valueOf(1 + versions.size()), versions.last());
+        assertEquals(versions.last(), employeeRepository.findById(employeeId).get().getVersion());
+
+        Employee stale = employeeRepository.findById(employeeId).get();
+        stale.setVersion(versions.last());
+        assertFalse(employeeRepository.saveNextVersion(stale));
+    }
+
+    /**
+     * Tests that a department is listed in employeeId order across pages, with a cursor only while there is more.
+     */
+    @Test
+    public void testListByDepartment_pagedInEmployeeIdOrder() {
+        String department = "Paging " + UUID.randomUUID();
+        List<String> employeeIds = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Employee employee = new Employee();
+            employee.setDepartment(department);
+            employeeIds.add(restTemplate.postForEntity(employeeUrl, employee, Employee.class).getBody().getEmployeeId());
+        }
+        Collections.sort(employeeIds);
+
+        EmployeePage firstPage = restTemplate.getForEntity(employeeUrl + "?department={department}&pageSize=2", EmployeePage.class, department).getBody();
+        assertEquals(employeeIds.subList(0, 2), idsOf(firstPage));
+        assertEquals(employeeIds.get(1), firstPage.getNextCursor());
+
+        EmployeePage lastPage = restTemplate.getForEntity(employeeUrl + "?department={department}&pageSize=2&cursor={cursor}", EmployeePage.class,
+                department, firstPage.getNextCursor()).getBody();
+        assertEquals(employeeIds.subList(2, 3), idsOf(lastPage));
+        assertNull(lastPage.getNextCursor());
+
+        assertEquals(HttpStatus.BAD_REQUEST, restTemplate.getForEntity(employeeUrl + "?pageSize=0", String.class).getStatusCode());
+    }
+
+    /**
+     * Based on the default data provided, tests that the direct reports are listed in employeeId order across pages.
+     */
+    @Test
+    public void testListDirectReports_pagedInEmployeeIdOrder() {
+        String directReportsUrl = "http://localhost:" + port + "/employee/{id}/direct-reports?pageSize=1&cursor={cursor}";
+        String johnId = "16a596ae-edd3-4847-99fe-c4518e82c86f";
+
+        EmployeePage firstPage = restTemplate.getForEntity(directReportsUrl, EmployeePage.class, johnId, "").getBody();
+        assertEquals(1, firstPage.getEmployees().size());
+        assertEquals("03aa1462-ffa9-4978-901b-7c001562cf6f", firstPage.getEmployees().get(0).getEmployeeId());
+        assertEquals("Ringo", firstPage.getEmployees().get(0).getFirstName());
+
+        EmployeePage lastPage = restTemplate.getForEntity(directReportsUrl, EmployeePage.class, johnId, firstPage.getNextCursor()).getBody();
+        assertEquals("b7839309-3348-463b-a7e3-5de1c168beb3", lastPage.getEmployees().get(0).getEmployeeId());
+        assertNull(lastPage.getNextCursor());
+    }
+
+    /**
+     * Tests that created and updated employees are found by name prefix right away, and that a search needs a criterion.
+     */
+    @Test
+    public void testSearch_followsCreateAndUpdate() {
+        String searchUrl = employeeUrl + "/search?q={q}&department={department}";
+        String lastName = "Search" + UUID.randomUUID().toString().replace("-", "");
+
+        Employee employee = new Employee();
+        employee.setFirstName("Stuart");
+        employee.setLastName(lastName);
+        employee.setDepartment("Engineering");
+        employee = restTemplate.postForEntity(employeeUrl, employee, Employee.class).getBody();
+
+        Employee[] found = restTemplate.getForEntity(searchUrl, Employee[].class, "stu " + lastName.toLowerCase(), "engineering").getBody();
+        assertEquals(1, found.length);
+        assertEquals(employee.getEmployeeId(), found[0].getEmployeeId());
+
+        employee.setFirstName("Pete");
+        restTemplate.exchange(employeeIdUrl, HttpMethod.PUT, new HttpEntity<>(employee), Employee.class, employee.getEmployeeId());
+
+        assertEquals(0, restTemplate.getForEntity(searchUrl, Employee[].class, "stu " + lastName, "Engineering").getBody().length);
+        assertEquals(1, restTemplate.getForEntity(searchUrl, Employee[].class, "pete " + lastName, "Engineering").getBody().length);
+        assertEquals(HttpStatus.BAD_REQUEST, restTemplate.getForEntity(employeeUrl + "/search", String.class).getStatusCode());
+    }
+
+    private static List<String> idsOf(EmployeePage page) {
+        List<String> employeeIds = new ArrayList<>();
+        for (Employee employee : page.getEmployees()) {
+            employeeIds.add(employee.getEmployeeId());
+        }
+        return employeeIds;
+    }
+
+    @Test
+    public void testNullDirectReport_rejectedBeforeSaving() {
+        Employee employee = restTemplate.postForEntity(employeeUrl, new Employee(), Employee.class).getBody();
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        String body = "{\"employeeId\": \"" + employee.getEmployeeId() + "\", \"firstName\": \"Rejected\", \"directReports\": [null]}";
+
+        assertEquals(HttpStatus.BAD_REQUEST, restTemplate.exchange(employeeIdUrl, HttpMethod.PUT, new HttpEntity<>(body, headers), String.class,
+                employee.getEmployeeId()).getStatusCode());
+        assertNull(restTemplate.getForEntity(employeeIdUrl, Employee.class, employee.getEmployeeId()).getBody().getFirstName());
+
+        EmployeeBulkResult[] results = restTemplate.postForEntity(employeeBulkUrl, new HttpEntity<>("[" + body + "]", headers), EmployeeBulkResult[].class).getBody();
+        assertEquals(EmployeeBulkResult.Status.FAILED, results[0].getStatus());
+        assertNull(restTemplate.getForEntity(employeeIdUrl, Employee.class, employee.getEmployeeId()).getBody().getFirstName());
+    }
+
+    @Test
+    public void testBulkArray_createdAndUpdated() {
+        Employee existing = restTemplate.postForEntity(employeeUrl, new Employee(), Employee.class).getBody();
+        existing.setFirstName("Updated");
+        Employee created = new Employee();
+        created.setFirstName("Created");
+
+        EmployeeBulkResult[] results = restTemplate.postForEntity(employeeBulkUrl, new Employee[]{created, existing}, EmployeeBulkResult[].class).getBody();
+
+        assertEquals(2, results.length);
+        assertEquals(EmployeeBulkResult.Status.CREATED, results[0].getStatus());
+        assertNotNull(results[0].getEmployeeId());
+        assertEquals(EmployeeBulkResult.Status.UPDATED, results[1].getStatus());
+        assertEquals(existing.getEmployeeId(), results[1].getEmployeeId());
+
+        assertEquals("Created", restTemplate.getForEntity(employeeIdUrl, Employee.class, results[0].getEmployeeId()).getBody().getFirstName());
+        assertEquals("Updated", restTemplate.getForEntity(employeeIdUrl, Employee.class, existing.getEmployeeId()).getBody().getFirstName());
+    }
+
+    @Test
+    public void testBulkNdjsonWithUnreadableLine_earlierRowsSaved() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType("application/x-ndjson"));
+        String body = "{\"firstName\": \"First\"}\n{\"firstName\": \"Second\"}\n{\"firstName\": \n";
+
+        EmployeeBulkResult[] results = restTemplate.postForEntity(employeeBulkUrl, new HttpEntity<>(body, headers), EmployeeBulkResult[].class).getBody();
+
+        assertEquals(3, results.length);
+        assertEquals(EmployeeBulkResult.Status.CREATED, results[0].getStatus());
+        assertEquals(EmployeeBulkResult.Status.CREATED, results[1].getStatus());
+        assertEquals(EmployeeBulkResult.Status.FAILED, results[2].getStatus());
+        assertNull(results[2].getEmployeeId());
+        assertEquals("Second", restTemplate.getForEntity(employeeIdUrl, Employee.class, results[1].getEmployeeId()).getBody().getFirstName());
+    }
+
+    @Test
+    public void testExport() throws Exception {
+        String[] lines = restTemplate.getForEntity(employeeExportUrl, String.class, false).getBody().split("\n");
+        assertTrue(lines.length >= 5);
+        Map<String, Employee> employees = new HashMap<>();
+        for (String line : lines) {
+            Employee employee = objectMapper.readValue(line, Employee.class);
+            employees.put(employee.getEmployeeId(), employee);
+        }
+        assertEquals("John", employees.get("16a596ae-edd3-4847-99fe-c4518e82c86f").getFirstName());
+
+        lines = restTemplate.getForEntity(employeeExportUrl, String.class, true).getBody().split("\n");
+        Map<String, ReportingStructure> reportingStructures = new HashMap<>();
+        for (String line : lines) {
+            ReportingStructure reportingStructure = objectMapper.readValue(line, ReportingStructure.class);
+            reportingStructures.put(reportingStructure.getEmployee().getEmployeeId(), reportingStructure);
+        }
+        assertEquals(4, reportingStructures.get("16a596ae-edd3-4847-99fe-c4518e82c86f").getNumberOfReports());
+        assertEquals(0, reportingStructures.get("c0c2293d-16bd-4603-8e08-638a9d18b22c").getNumberOfReports());
     }
 
     private static void assertEmployeeEquivalence(Employee expected, Employee actual) {
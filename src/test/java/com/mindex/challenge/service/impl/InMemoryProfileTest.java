@@ -0,0 +1,139 @@
+package com.mindex.challenge.service.impl;
+
+import com.mindex.challenge.dao.EmployeeRepository;
+import com.mindex.challenge.dao.inmemory.InMemoryEmployeeRepository;
+import com.mindex.challenge.data.Compensation;
+import com.mindex.challenge.data.Employee;
+import com.mindex.challenge.data.EmployeePage;
+import com.mindex.challenge.data.ReportingStructure;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Runs the main flows with the repositories of the inmemory profile instead of the embedded MongoServer.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("inmemory")
+public class InMemoryProfileTest {
+
+    private String employeeUrl;
+    private String employeeIdUrl;
+    private String reportingStructureUrl;
+    private String compensationUrl;
+    private String compensationAsOfUrl;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Before
+    public void setup() {
+        employeeUrl = "http://localhost:" + port + "/employee";
+        employeeIdUrl = "http://localhost:" + port + "/employee/{id}";
+        reportingStructureUrl = "http://localhost:" + port + "/reporting-structure/{id}";
+        compensationUrl = "http://localhost:" + port + "/compensation/{id}";
+        compensationAsOfUrl = "http://localhost:" + port + "/compensation/{id}?asOf={asOf}";
+    }
+
+    @Test
+    public void testInMemoryRepository_seedDataLoaded() {
+        assertTrue(employeeRepository instanceof InMemoryEmployeeRepository);
+
+        ReportingStructure johnLennonReports = restTemplate.getForEntity(reportingStructureUrl, ReportingStructure.class, "16a596ae-edd3-4847-99fe-c4518e82c86f").getBody();
+        assertEquals(4, johnLennonReports.getNumberOfReports());
+    }
+
+    @Test
+    public void testCreateReadEmployee() {
+        Employee employee = new Employee();
+        employee.setFirstName("Yoko");
+        Employee createdEmployee = restTemplate.postForEntity(employeeUrl, employee, Employee.class).getBody();
+
+        Employee readEmployee = restTemplate.getForEntity(employeeIdUrl, Employee.class, createdEmployee.getEmployeeId()).getBody();
+        assertEquals("Yoko", readEmployee.getFirstName());
+    }
+
+    /**
+     * Tests that the repository calls of a request are counted without a database to send commands to.
+     */
+    @Test
+    public void testCreateEmployee_repositoryCallsRecorded() {
+        restTemplate.postForEntity(employeeUrl, new Employee(), Employee.class);
+        // The calls are recorded once the response is complete, so another request is made to be sure they were.
+        restTemplate.getForEntity(employeeIdUrl, Employee.class, "16a596ae-edd3-4847-99fe-c4518e82c86f");
+
+        DistributionSummary calls = meterRegistry.get("repository.calls").tag("uri", "/employee").tag("method", "POST").summary();
+        assertTrue(calls.count() >= 1);
+        assertTrue(calls.totalAmount() >= calls.count());
+    }
+
+    /**
+     * Tests that the in-memory indexes page a department in employeeId order, including after an employee moved to
+     * another department.
+     */
+    @Test
+    public void testListByDepartment_pagedInEmployeeIdOrder() {
+        String listUrl = employeeUrl + "?department={department}&pageSize=1&cursor={cursor}";
+        Employee first = new Employee();
+        first.setDepartment("Apple Corps");
+        first = restTemplate.postForEntity(employeeUrl, first, Employee.class).getBody();
+        Employee second = new Employee();
+        second.setDepartment("Apple Corps");
+        second = restTemplate.postForEntity(employeeUrl, second, Employee.class).getBody();
+        String lowerId = first.getEmployeeId().compareTo(second.getEmployeeId()) < 0 ? first.getEmployeeId() : second.getEmployeeId();
+        String higherId = lowerId.equals(first.getEmployeeId()) ? second.getEmployeeId() : first.getEmployeeId();
+
+        EmployeePage firstPage = restTemplate.getForEntity(listUrl, EmployeePage.class, "Apple Corps", "").getBody();
+        assertEquals(lowerId, firstPage.getEmployees().get(0).getEmployeeId());
+        EmployeePage lastPage = restTemplate.getForEntity(listUrl, EmployeePage.class, "Apple Corps", firstPage.getNextCursor()).getBody();
+        assertEquals(higherId, lastPage.getEmployees().get(0).getEmployeeId());
+        assertNull(lastPage.getNextCursor());
+
+        Employee moved = restTemplate.getForEntity(employeeIdUrl, Employee.class, lowerId).getBody();
+        moved.setDepartment("Northern Songs");
+        restTemplate.put(employeeIdUrl, moved, lowerId);
+        assertEquals(higherId, restTemplate.getForEntity(listUrl, EmployeePage.class, "Apple Corps", "").getBody().getEmployees().get(0).getEmployeeId());
+    }
+
+    @Test
+    public void testCompensationTimeline_effectiveEntryReturned() {
+        String employeeId = "b7839309-3348-463b-a7e3-5de1c168beb3";
+        postCompensation(employeeId, "100000", "2020-01-01");
+        postCompensation(employeeId, "120000", "2022-07-01");
+        postCompensation(employeeId, "125000", "2022-07-01");
+
+        assertEquals("100000", restTemplate.getForEntity(compensationAsOfUrl, Compensation.class, employeeId, "2022-06-30").getBody().getSalary());
+        assertEquals("125000", restTemplate.getForEntity(compensationAsOfUrl, Compensation.class, employeeId, "2022-07-01").getBody().getSalary());
+        assertEquals(HttpStatus.NOT_FOUND, restTemplate.getForEntity(compensationAsOfUrl, Compensation.class, employeeId, "2019-12-31").getStatusCode());
+    }
+
+    private void postCompensation(String employeeId, String salary, String effectiveDate) {
+        Compensation compensation = new Compensation();
+        compensation.setSalary(salary);
+        compensation.setEffectiveDate(effectiveDate);
+        assertEquals(HttpStatus.OK, restTemplate.postForEntity(compensationUrl, compensation, Compensation.class, employeeId).getStatusCode());
+    }
+}
@@ -0,0 +1,112 @@
+package com.mindex.challenge.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mindex.challenge.data.ReportingStructure;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Runs the reporting structure against the database with the level-batched strategy instead of the in-memory index.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "reporting-structure.strategy=" + ReportingStructureServiceImpl.LEVEL_BATCHED_STRATEGY)
+public class LevelBatchedReportingStructureServiceImplTest {
+
+    private String reportingStructureUrl;
+    private String reportingStructuresUrl;
+    private String employeeExportUrl;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Before
+    public void setup() {
+        reportingStructureUrl = "http://localhost:" + port + "/reporting-structure/{id}";
+        reportingStructuresUrl = "http://localhost:" + port + "/reporting-structure";
+        employeeExportUrl = "http://localhost:" + port + "/employee/export?withReportCounts=true";
+    }
+
+    @Test
+    public void testNonExistentEmployee_errorExpected() {
+        ResponseEntity<ReportingStructure> response = restTemplate.getForEntity(reportingStructureUrl, ReportingStructure.class, "iaman-employeethat-doesnot-exist");
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+    }
+
+    @Test
+    public void testAllUniqueDirectReports_correctNumberOfReportsCalculated() {
+        ReportingStructure johnLennonReports = restTemplate.getForEntity(reportingStructureUrl, ReportingStructure.class, "16a596ae-edd3-4847-99fe-c4518e82c86f").getBody();
+        assertEquals(4, johnLennonReports.getNumberOfReports());
+        assertEquals(2, johnLennonReports.getEmployee().getDirectReports().size());
+
+        ReportingStructure ringoStarrReports = restTemplate.getForEntity(reportingStructureUrl, ReportingStructure.class, "03aa1462-ffa9-4978-901b-7c001562cf6f").getBody();
+        assertEquals(2, ringoStarrReports.getNumberOfReports());
+    }
+
+    /**
+     * Tests that the batch endpoint returns the reporting structures in the order of the requested ids, including a
+     * manager whose subtree is part of the subtree of another requested manager.
+     */
+    @Test
+    public void testBatchOfOverlappingSubtrees_correctNumberOfReportsCalculated() {
+        String[] ids = {"16a596ae-edd3-4847-99fe-c4518e82c86f", "03aa1462-ffa9-4978-901b-7c001562cf6f", "16a596ae-edd3-4847-99fe-c4518e82c86f"};
+        ReportingStructure[] reportingStructures = restTemplate.postForEntity(reportingStructuresUrl, ids, ReportingStructure[].class).getBody();
+
+        assertEquals(3, reportingStructures.length);
+        assertEquals("John", reportingStructures[0].getEmployee().getFirstName());
+        assertEquals(4, reportingStructures[0].getNumberOfReports());
+        assertEquals("Ringo", reportingStructures[1].getEmployee().getFirstName());
+        assertEquals(2, reportingStructures[1].getNumberOfReports());
+        assertEquals(4, reportingStructures[2].getNumberOfReports());
+    }
+
+    @Test
+    public void testBatchWithNonExistentEmployee_notFoundEntryExpected() {
+        String[] ids = {"16a596ae-edd3-4847-99fe-c4518e82c86f", "iaman-employeethat-doesnot-exist"};
+        ReportingStructure[] reportingStructures = restTemplate.postForEntity(reportingStructuresUrl, ids, ReportingStructure[].class).getBody();
+
+        assertEquals(2, reportingStructures.length);
+        assertEquals(4, reportingStructures[0].getNumberOfReports());
+        assertNull(reportingStructures[0].getError());
+        assertEquals("iaman-employeethat-doesnot-exist", reportingStructures[1].getEmployee().getEmployeeId());
+        assertNotNull(reportingStructures[1].getError());
+    }
+
+
+    @Test
+    public void testExportWithReportCounts_countedInOnePass() throws Exception {
+        String[] lines = restTemplate.getForEntity(employeeExportUrl, String.class).getBody().split("\n");
+        Map<String, ReportingStructure> reportingStructures = new HashMap<>();
+        for (String line : lines) {
+            ReportingStructure reportingStructure = objectMapper.readValue(line, ReportingStructure.class);
+            reportingStructures.put(reportingStructure.getEmployee().getEmployeeId(), reportingStructure);
+        }
+
+        assertEquals(4, reportingStructures.get("16a596ae-edd3-4847-99fe-c4518e82c86f").getNumberOfReports());
+        assertFalse(reportingStructures.get("16a596ae-edd3-4847-99fe-c4518e82c86f").isTruncated());
+        assertEquals(2, reportingStructures.get("03aa1462-ffa9-4978-901b-7c001562cf6f").getNumberOfReports());
+    }
+
+}
@@ -0,0 +1,58 @@
+package com.mindex.challenge.service.impl;
+
+import com.mindex.challenge.data.EmployeeAnalytics;
+import com.mindex.challenge.data.OrgAnalytics;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class OrgAnalyticsServiceImplTest {
+
+    private String orgAnalyticsUrl;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Before
+    public void setup() {
+        orgAnalyticsUrl = "http://localhost:" + port + "/org-analytics?withEmployees={withEmployees}";
+    }
+
+    /**
+     * Based on the default data provided, tests that the metrics of every employee are computed.
+     */
+    @Test
+    public void testOrgAnalytics() {
+        OrgAnalytics orgAnalytics = restTemplate.getForEntity(orgAnalyticsUrl, OrgAnalytics.class, true).getBody();
+
+        assertTrue(orgAnalytics.getNumberOfEmployees() >= 5);
+        assertEquals(orgAnalytics.getNumberOfEmployees(), orgAnalytics.getEmployees().size());
+        assertEquals(orgAnalytics.getNumberOfManagers(), orgAnalytics.getSpan().getCount());
+
+        EmployeeAnalytics john = orgAnalytics.getEmployees().stream()
+                .filter(employee -> employee.getEmployeeId().equals("16a596ae-edd3-4847-99fe-c4518e82c86f"))
+                .findFirst().get();
+        assertEquals(0, john.getLevel());
+        assertEquals(2, john.getDirectReports());
+        assertEquals(4, john.getNumberOfReports());
+        assertEquals(2, john.getSubtreeDepth());
+
+        OrgAnalytics summary = restTemplate.getForEntity(orgAnalyticsUrl, OrgAnalytics.class, false).getBody();
+        assertNull(summary.getEmployees());
+        assertTrue(summary.getNumberOfReports().getMax() >= 4);
+    }
+}
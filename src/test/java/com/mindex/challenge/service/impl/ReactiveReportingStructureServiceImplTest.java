@@ -0,0 +1,88 @@
+package com.mindex.challenge.service.impl;
+
+import com.mindex.challenge.data.ReportingStructure;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Runs the reporting structure endpoints on the reactive Mongo driver.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"reporting-structure.reactive.enabled=true", "reporting-structure.reactive.concurrency=2"})
+public class ReactiveReportingStructureServiceImplTest {
+
+    private String reportingStructureUrl;
+    private String reportingStructuresUrl;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Before
+    public void setup() {
+        reportingStructureUrl = "http://localhost:" + port + "/reporting-structure/{id}";
+        reportingStructuresUrl = "http://localhost:" + port + "/reporting-structure";
+    }
+
+    @Test
+    public void testNonExistentEmployee_errorExpected() {
+        ResponseEntity<ReportingStructure> response = restTemplate.getForEntity(reportingStructureUrl, ReportingStructure.class, "iaman-employeethat-doesnot-exist");
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+    }
+
+    @Test
+    public void testAllUniqueDirectReports_correctNumberOfReportsCalculated() {
+        ReportingStructure johnLennonReports = restTemplate.getForEntity(reportingStructureUrl, ReportingStructure.class, "16a596ae-edd3-4847-99fe-c4518e82c86f").getBody();
+        assertEquals(4, johnLennonReports.getNumberOfReports());
+        assertEquals(2, johnLennonReports.getEmployee().getDirectReports().size());
+        assertEquals("Ringo", johnLennonReports.getEmployee().getDirectReports().get(1).getFirstName());
+        assertEquals(2, johnLennonReports.getEmployee().getDirectReports().get(1).getDirectReports().size());
+    }
+
+    @Test
+    public void testBatch_orderOfRequestedIdsKept() {
+        String[] ids = {"03aa1462-ffa9-4978-901b-7c001562cf6f", "16a596ae-edd3-4847-99fe-c4518e82c86f"};
+        ReportingStructure[] reportingStructures = restTemplate.postForEntity(reportingStructuresUrl, ids, ReportingStructure[].class).getBody();
+
+        assertEquals(2, reportingStructures.length);
+        assertEquals("Ringo", reportingStructures[0].getEmployee().getFirstName());
+        assertEquals(2, reportingStructures[0].getNumberOfReports());
+        assertEquals(4, reportingStructures[1].getNumberOfReports());
+    }
+
+    @Test
+    public void testReactiveCommands_recordedInMetrics() {
+        long commandsBefore = reactiveFindCommands();
+        restTemplate.getForEntity(reportingStructureUrl, ReportingStructure.class, "16a596ae-edd3-4847-99fe-c4518e82c86f");
+
+        // John, his two direct reports and the two direct reports of Ringo are looked up one by one.
+        assertTrue(reactiveFindCommands() - commandsBefore >= 5);
+    }
+
+    private long reactiveFindCommands() {
+        long count = 0;
+        for (Timer timer : meterRegistry.find("mongodb.driver.commands").tag("command", "find").timers()) {
+            count += timer.count();
+        }
+        return count;
+    }
+}
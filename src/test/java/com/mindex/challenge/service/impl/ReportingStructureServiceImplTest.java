@@ -1,7 +1,14 @@
 package com.mindex.challenge.service.impl;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.mindex.challenge.cache.ResponseCache;
 import com.mindex.challenge.data.Employee;
 import com.mindex.challenge.data.ReportingStructure;
+import com.mindex.challenge.index.SubtreeGraph;
+import com.mindex.challenge.service.EmployeeService;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -9,20 +16,30 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.client.TestRestTemplate;
 import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.context.ApplicationContext;
 import org.springframework.http.*;
 import org.springframework.test.context.junit4.SpringRunner;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 @RunWith(SpringRunner.class)
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
 public class ReportingStructureServiceImplTest {
 
     private String reportingStructureUrl;
+    private String reportingStructuresUrl;
     private String employeeIdUrl;
+    private String employeeUrl;
 
     @LocalServerPort
     private int port;
@@ -30,10 +47,27 @@ public class ReportingStructureServiceImplTest {
     @Autowired
     private TestRestTemplate restTemplate;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Autowired
+    private EmployeeService employeeService;
+
+    @Autowired
+    private ReportingStructureServiceImpl reportingStructureService;
+
+    @Autowired
+    private ResponseCache responseCache;
+
     @Before
     public void setup() {
+        employeeUrl = "http://localhost:" + port + "/employee";
         employeeIdUrl = "http://localhost:" + port + "/employee/{id}";
         reportingStructureUrl = "http://localhost:" + port + "/reporting-structure/{id}";
+        reportingStructuresUrl = "http://localhost:" + port + "/reporting-structure";
     }
 
     /**
@@ -127,4 +161,287 @@ public class ReportingStructureServiceImplTest {
         assertEquals(4, johnLennonReports.getNumberOfReports());
     }
 
+    /**
+     * Tests that employees created and updated after startup are picked up by the reporting structure, including a
+     * direct report that only exists once its manager has been updated.
+     */
+    @Test
+    public void testNewEmployeesAfterStartup_reportingStructureKeptUpToDate() {
+        Employee manager = new Employee();
+        manager.setFirstName("Brian");
+        manager.setLastName("Epstein");
+        manager = restTemplate.postForEntity(employeeUrl, manager, Employee.class).getBody();
+
+        Employee directReport = new Employee();
+        directReport.setFirstName("Mal");
+        directReport.setLastName("Evans");
+        directReport = restTemplate.postForEntity(employeeUrl, directReport, Employee.class).getBody();
+
+        ReportingStructure managerReports = restTemplate.getForEntity(reportingStructureUrl, ReportingStructure.class, manager.getEmployeeId()).getBody();
+        assertEquals(0, managerReports.getNumberOfReports());
+
+        List<Employee> directReports = new ArrayList<>();
+        directReports.add(directReport);
+        manager.setDirectReports(directReports);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        restTemplate.exchange(employeeIdUrl,
+                        HttpMethod.PUT,
+                        new HttpEntity<>(manager, headers),
+                        Employee.class,
+                        manager.getEmployeeId()).getBody();
+
+        managerReports = restTemplate.getForEntity(reportingStructureUrl, ReportingStructure.class, manager.getEmployeeId()).getBody();
+        assertEquals(1, managerReports.getNumberOfReports());
+        assertEquals("Mal", managerReports.getEmployee().getDirectReports().get(0).getFirstName());
+
+        // Updating the direct report has to show up in the memoized reporting structure of the manager.
+        directReport.setPosition("Road Manager");
+        restTemplate.exchange(employeeIdUrl,
+                        HttpMethod.PUT,
+                        new HttpEntity<>(directReport, headers),
+                        Employee.class,
+                        directReport.getEmployeeId()).getBody();
+
+        managerReports = restTemplate.getForEntity(reportingStructureUrl, ReportingStructure.class, manager.getEmployeeId()).getBody();
+        assertEquals(1, managerReports.getNumberOfReports());
+        assertEquals("Road Manager", managerReports.getEmployee().getDirectReports().get(0).getPosition());
+    }
+
+    /**
+     * Tests that reading a manager after one of their reports has been read, when both share a report with another
+     * manager, still counts the shared report once.
+     */
+    @Test
+    public void testSharedReportAfterMemoizedRead_countedOnce() {
+        Employee shared = createEmployee("Shared");
+        Employee left = createEmployee("Left", shared);
+        Employee right = createEmployee("Right", shared);
+        Employee top = createEmployee("Top", left, right);
+
+        assertEquals(1, restTemplate.getForEntity(reportingStructureUrl, ReportingStructure.class, left.getEmployeeId()).getBody().getNumberOfReports());
+        assertEquals(3, restTemplate.getForEntity(reportingStructureUrl, ReportingStructure.class, top.getEmployeeId()).getBody().getNumberOfReports());
+        assertEquals(1, restTemplate.getForEntity(reportingStructureUrl, ReportingStructure.class, right.getEmployeeId()).getBody().getNumberOfReports());
+    }
+
+    /**
+     * Tests that the batch endpoint returns the reporting structures in the order of the requested ids, including a
+     * manager whose subtree is part of the subtree of another requested manager.
+     */
+    @Test
+    public void testBatchOfOverlappingSubtrees_correctNumberOfReportsCalculated() {
+        String[] ids = {"16a596ae-edd3-4847-99fe-c4518e82c86f", "03aa1462-ffa9-4978-901b-7c001562cf6f", "16a596ae-edd3-4847-99fe-c4518e82c86f"};
+        ReportingStructure[] reportingStructures = restTemplate.postForEntity(reportingStructuresUrl, ids, ReportingStructure[].class).getBody();
+
+        assertEquals(3, reportingStructures.length);
+        assertEquals("John", reportingStructures[0].getEmployee().getFirstName());
+        assertEquals(4, reportingStructures[0].getNumberOfReports());
+        assertEquals("Ringo", reportingStructures[1].getEmployee().getFirstName());
+        assertEquals(2, reportingStructures[1].getNumberOfReports());
+        assertEquals(4, reportingStructures[2].getNumberOfReports());
+    }
+
+    @Test
+    public void testBatchWithNonExistentEmployee_notFoundEntryExpected() {
+        String[] ids = {"16a596ae-edd3-4847-99fe-c4518e82c86f", "iaman-employeethat-doesnot-exist"};
+        ReportingStructure[] reportingStructures = restTemplate.postForEntity(reportingStructuresUrl, ids, ReportingStructure[].class).getBody();
+
+        assertEquals(2, reportingStructures.length);
+        assertEquals(4, reportingStructures[0].getNumberOfReports());
+        assertNull(reportingStructures[0].getError());
+        assertEquals("iaman-employeethat-doesnot-exist", reportingStructures[1].getEmployee().getEmployeeId());
+        assertNotNull(reportingStructures[1].getError());
+    }
+
+    @Test
+    public void testReactiveDisabled_noReactiveClientCreated() {
+        assertEquals(0, applicationContext.getBeanNamesForType(com.mongodb.reactivestreams.client.MongoClient.class).length);
+    }
+
+    @Test
+    public void testBatchAboveMaxBatchSize_badRequestExpected() {
+        String[] ids = new String[1001];
+        Arrays.fill(ids, "16a596ae-edd3-4847-99fe-c4518e82c86f");
+        ResponseEntity<String> response = restTemplate.postForEntity(reportingStructuresUrl, ids, String.class);
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    }
+
+    /**
+     * Tests that traversals and the database commands of the request are recorded and exposed for scraping.
+     */
+    @Test
+    public void testReportingStructure_metricsRecorded() {
+        Employee dangling = new Employee();
+        dangling.setEmployeeId("iaman-metrics-reportthat-doesnot-exist");
+        Employee manager = createEmployee("Metrics", dangling);
+        double danglingReports = meterRegistry.counter("reporting.traversal.dangling.reports", "strategy", "index").count();
+
+        restTemplate.getForEntity(reportingStructureUrl, ReportingStructure.class, manager.getEmployeeId());
+
+        assertEquals(danglingReports + 1, meterRegistry.counter("reporting.traversal.dangling.reports", "strategy", "index").count(), 0);
+        String scrape = restTemplate.getForEntity("http://localhost:" + port + "/actuator/prometheus", String.class).getBody();
+        assertTrue(scrape.contains("reporting_traversal_reports_count{strategy=\"index\",}"));
+        assertTrue(scrape.contains("repository_calls_count{method=\"POST\",uri=\"/employee\",}"));
+        assertTrue(scrape.contains("http_server_requests_seconds_bucket{"));
+    }
+
+    /**
+     * Based on the default data provided, tests that the depth and fields limit the tree but not the count.
+     */
+    @Test
+    public void testDepthAndFields_partialTreeWithFullCount() {
+        String johnId = "16a596ae-edd3-4847-99fe-c4518e82c86f";
+
+        ReportingStructure shallow = restTemplate.getForEntity(reportingStructureUrl + "?depth=1", ReportingStructure.class, johnId).getBody();
+        assertEquals(4, shallow.getNumberOfReports());
+        assertEquals(2, shallow.getEmployee().getDirectReports().size());
+        assertEquals("Ringo", shallow.getEmployee().getDirectReports().get(1).getFirstName());
+        assertNull(shallow.getEmployee().getDirectReports().get(1).getDirectReports());
+
+        ReportingStructure ids = restTemplate.getForEntity(reportingStructureUrl + "?fields=ids", ReportingStructure.class, johnId).getBody();
+        assertEquals(4, ids.getNumberOfReports());
+        assertNull(ids.getEmployee().getFirstName());
+        Employee ringo = ids.getEmployee().getDirectReports().get(1);
+        assertEquals("03aa1462-ffa9-4978-901b-7c001562cf6f", ringo.getEmployeeId());
+        assertNull(ringo.getFirstName());
+        assertEquals(2, ringo.getDirectReports().size());
+
+        ReportingStructure count = restTemplate.getForEntity(reportingStructureUrl + "?fields=count", ReportingStructure.class, johnId).getBody();
+        assertEquals(4, count.getNumberOfReports());
+        assertEquals("John", count.getEmployee().getFirstName());
+        assertNull(count.getEmployee().getDirectReports());
+
+        assertEquals(HttpStatus.BAD_REQUEST, restTemplate.getForEntity(reportingStructureUrl + "?fields=names", String.class, johnId).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, restTemplate.getForEntity(reportingStructureUrl + "?depth=-1", String.class, johnId).getStatusCode());
+    }
+
+    /**
+     * Tests that the numbers of reports memoized by a count only request, without any trees, still get the full tree
+     * filled in afterwards.
+     */
+    @Test
+    public void testCountThenFullTree_directReportsFilledIn() {
+        Employee bottom = createEmployee("Bottom");
+        Employee middle = createEmployee("Middle", bottom);
+        Employee top = createEmployee("Top", middle);
+
+        assertEquals(1, restTemplate.getForEntity(reportingStructureUrl + "?fields=count", ReportingStructure.class, middle.getEmployeeId()).getBody().getNumberOfReports());
+        assertEquals(2, restTemplate.getForEntity(reportingStructureUrl + "?fields=count", ReportingStructure.class, top.getEmployeeId()).getBody().getNumberOfReports());
+
+        ReportingStructure full = restTemplate.getForEntity(reportingStructureUrl, ReportingStructure.class, top.getEmployeeId()).getBody();
+        assertEquals(2, full.getNumberOfReports());
+        assertEquals("Bottom", full.getEmployee().getDirectReports().get(0).getDirectReports().get(0).getFirstName());
+    }
+
+    /**
+     * Tests that polling with the entity tag gets a 304 until one of the reports is updated, and that the tag of a
+     * reporting structure built from memoized subtrees is the same as the one of a fresh traversal.
+     */
+    @Test
+    public void testConditionalGet_notModifiedUntilReportUpdated() {
+        Employee shared = createEmployee("Shared");
+        Employee left = createEmployee("Left", shared);
+        Employee right = createEmployee("Right", shared);
+        Employee top = createEmployee("Top", left, right);
+
+        restTemplate.getForEntity(reportingStructureUrl, ReportingStructure.class, left.getEmployeeId());
+        ResponseEntity<ReportingStructure> response = restTemplate.getForEntity(reportingStructureUrl, ReportingStructure.class, top.getEmployeeId());
+        String etag = response.getHeaders().getETag();
+        assertNotNull(etag);
+
+        SubtreeGraph fresh = SubtreeGraph.of(Arrays.asList(
+                employeeService.read(shared.getEmployeeId()), employeeService.read(left.getEmployeeId()),
+                employeeService.read(right.getEmployeeId()), employeeService.read(top.getEmployeeId())));
+        assertEquals(etag, "\"" + reportingStructureService.buildReportingStructure(fresh, top.getEmployeeId()).getEtag() + "-json\"");
+
+        HttpHeaders conditional = new HttpHeaders();
+        conditional.setIfNoneMatch(etag);
+        response = restTemplate.exchange(reportingStructureUrl, HttpMethod.GET, new HttpEntity<>(conditional), ReportingStructure.class, top.getEmployeeId());
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertNull(response.getBody());
+
+        shared.setPosition("Bassist");
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        restTemplate.exchange(employeeIdUrl, HttpMethod.PUT, new HttpEntity<>(shared, headers), Employee.class, shared.getEmployeeId());
+
+        response = restTemplate.exchange(reportingStructureUrl, HttpMethod.GET, new HttpEntity<>(conditional), ReportingStructure.class, top.getEmployeeId());
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNotEquals(etag, response.getHeaders().getETag());
+        assertEquals("Bassist", response.getBody().getEmployee().getDirectReports().get(1).getDirectReports().get(0).getPosition());
+    }
+
+    /**
+     * Tests that the JSON of a reporting structure is served from the response cache until a report is updated, which
+     * does not invalidate the manager's response but changes its tag.
+     */
+    @Test
+    public void testResponseCache_reusedUntilReportUpdated() {
+        Employee report = createEmployee("Report");
+        Employee manager = createEmployee("Manager", report);
+
+        String first = restTemplate.getForEntity(reportingStructureUrl, String.class, manager.getEmployeeId()).getBody();
+        long hits = responseCache.stats().getHits();
+        double stale = meterRegistry.counter("response.cache.stale").count();
+        assertEquals(first, restTemplate.getForEntity(reportingStructureUrl, String.class, manager.getEmployeeId()).getBody());
+        assertEquals(hits + 1, responseCache.stats().getHits());
+
+        report.setPosition("Drummer");
+        restTemplate.put(employeeIdUrl, report, report.getEmployeeId());
+
+        ReportingStructure updated = restTemplate.getForEntity(reportingStructureUrl, ReportingStructure.class, manager.getEmployeeId()).getBody();
+        assertEquals("Drummer", updated.getEmployee().getDirectReports().get(0).getPosition());
+        assertEquals(stale + 1, meterRegistry.counter("response.cache.stale").count(), 0);
+    }
+
+    /**
+     * Based on the default data provided, tests that the reporting structure is negotiated as Smile and CBOR with the
+     * same content as the JSON, that other media types are refused, and that large responses are compressed.
+     */
+    @Test
+    public void testBinaryMediaTypes_sameContentAsJson() throws IOException {
+        String johnId = "16a596ae-edd3-4847-99fe-c4518e82c86f";
+        String json = restTemplate.getForEntity(reportingStructureUrl, String.class, johnId).getBody();
+
+        HttpHeaders smileHeaders = new HttpHeaders();
+        smileHeaders.setAccept(Collections.singletonList(MediaType.valueOf("application/x-jackson-smile")));
+        ResponseEntity<byte[]> smile = restTemplate.exchange(reportingStructureUrl, HttpMethod.GET, new HttpEntity<>(smileHeaders), byte[].class, johnId);
+        assertEquals(MediaType.valueOf("application/x-jackson-smile"), smile.getHeaders().getContentType());
+        assertTrue(smile.getBody().length < json.length());
+        ObjectMapper smileMapper = new ObjectMapper(new SmileFactory());
+        assertEquals(new ObjectMapper().readTree(json), smileMapper.readTree(smile.getBody()));
+
+        HttpHeaders cborHeaders = new HttpHeaders();
+        cborHeaders.setAccept(Collections.singletonList(MediaType.APPLICATION_CBOR));
+        cborHeaders.setContentType(MediaType.APPLICATION_JSON);
+        ResponseEntity<byte[]> cbor = restTemplate.exchange(reportingStructuresUrl, HttpMethod.POST,
+                new HttpEntity<>(Collections.singletonList(johnId), cborHeaders), byte[].class);
+        assertEquals(MediaType.APPLICATION_CBOR, cbor.getHeaders().getContentType());
+        assertEquals(new ObjectMapper().readTree(json), new ObjectMapper(new CBORFactory()).readTree(cbor.getBody()).get(0));
+
+        HttpHeaders xmlHeaders = new HttpHeaders();
+        xmlHeaders.setAccept(Collections.singletonList(MediaType.APPLICATION_XML));
+        assertEquals(HttpStatus.NOT_ACCEPTABLE, restTemplate.exchange(reportingStructureUrl, HttpMethod.GET, new HttpEntity<>(xmlHeaders), String.class, johnId).getStatusCode());
+
+        HttpHeaders gzipHeaders = new HttpHeaders();
+        gzipHeaders.set(HttpHeaders.ACCEPT_ENCODING, "gzip");
+        gzipHeaders.setContentType(MediaType.APPLICATION_JSON);
+        ResponseEntity<byte[]> gzipped = restTemplate.exchange(reportingStructuresUrl, HttpMethod.POST,
+                new HttpEntity<>(Collections.nCopies(20, johnId), gzipHeaders), byte[].class);
+        assertEquals("gzip", gzipped.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+    }
+
+    private Employee createEmployee(String firstName, Employee... directReports) {
+        Employee employee = new Employee();
+        employee.setFirstName(firstName);
+        employee.setDirectReports(new ArrayList<>());
+        for (Employee directReport : directReports) {
+            Employee reference = new Employee();
+            reference.setEmployeeId(directReport.getEmployeeId());
+            employee.getDirectReports().add(reference);
+        }
+        return restTemplate.postForEntity(employeeUrl, employee, Employee.class).getBody();
+    }
+
 }